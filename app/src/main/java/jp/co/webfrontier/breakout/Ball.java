@@ -1,15 +1,10 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Point;
-import android.graphics.Rect;
-import android.view.View;
-
 /**
  * ボールを表すクラス
  * 表示部品なのでDrawableItemインターフェースを実装する
+ * 位置と速度は固定小数点数(16.16形式)で管理し、端末によらず同じ動きになるようにする
+ * 表示には位置を整数に丸めた中心座標と領域を使い、ブロックやパッドとの当たり判定は固定小数点数の位置のまま行う
  */
 public class Ball extends Item {
     /**
@@ -28,19 +23,19 @@ public class Ball extends Item {
     /**
      * ボールの最大速度（X方向）
      */
-    private static final float MAX_SPEED_X = 5f;
+    private static final int MAX_SPEED_X = Fixed.fromInt(5);
     /**
      * ボールの最大速度（Y方向）
      */
-    private static final float MAX_SPEED_Y = 8f;
+    private static final int MAX_SPEED_Y = Fixed.fromInt(8);
     /**
      * ボールの速度変化率（X方向）
      */
-    private static final float CHANGE_RATE_SPEED_X = 1.01f;
+    private static final int CHANGE_RATE_SPEED_X = Fixed.fromFloat(1.01f);
     /**
      * ボールの速度変化率（Y方向）
      */
-    private static final float CHANGE_RATE_SPEED_Y = 1.2f;
+    private static final int CHANGE_RATE_SPEED_Y = Fixed.fromFloat(1.2f);
     /**
      * デフォルトの半径
      */
@@ -50,13 +45,35 @@ public class Ball extends Item {
      */
     private int r;
     /**
-     * 速度（X方向）
+     * 位置（X方向、固定小数点数）
+     */
+    private int x;
+    /**
+     * 位置（Y方向、固定小数点数）
+     */
+    private int y;
+    /**
+     * 速度（X方向、固定小数点数）
+     */
+    private int xSpeed = Fixed.fromFloat(INITIAL_SPEED_X);
+    /**
+     * 速度（Y方向、固定小数点数）
      */
-    private float xSpeed = INITIAL_SPEED_X;
+    private int ySpeed = Fixed.fromFloat(INITIAL_SPEED_Y);
     /**
-     * 速度（Y方向）
+     * 更新前の位置（X方向、固定小数点数）
+     * 移動の経路で当たり判定を行うときの始点になる
      */
-    private float ySpeed = INITIAL_SPEED_Y;
+    private int prevX;
+    /**
+     * 更新前の位置（Y方向、固定小数点数）
+     */
+    private int prevY;
+    /**
+     * 当たり判定の結果の格納先
+     * 毎回生成しないように使い回す
+     */
+    private final Contact contact = new Contact();
 
     /**
      * コンストラクタ
@@ -65,12 +82,8 @@ public class Ball extends Item {
      * @param y ボールの位置(Y座標)
      */
     public Ball(int x, int y) {
-        painter.setColor(color);
-        painter.setAntiAlias(true);
-        this.center.x = x;
-        this.center.y = y;
         this.r = DEFAULT_RADIUS;
-        this.rect.set(this.center.x - this.r, this.center.y - this.r, this.center.x + this.r, this.center.y + this.r);
+        setCenter(x, y);
     }
 
     /**
@@ -82,14 +95,10 @@ public class Ball extends Item {
      * @param ySpeed ボールの速度(Y座標)
      */
     public Ball(int x, int y, float xSpeed, float ySpeed) {
-        painter.setColor(color);
-        painter.setAntiAlias(true);
-        this.center.x = x;
-        this.center.y = y;
-        this.xSpeed = xSpeed;
-        this.ySpeed = ySpeed;
+        this.xSpeed = Fixed.fromFloat(xSpeed);
+        this.ySpeed = Fixed.fromFloat(ySpeed);
         this.r = DEFAULT_RADIUS;
-        this.rect.set(this.center.x - this.r, this.center.y - this.r, this.center.x + this.r, this.center.y + this.r);
+        setCenter(x, y);
     }
 
     /**
@@ -102,14 +111,27 @@ public class Ball extends Item {
      * @param r ボールの半径
      */
     public Ball(int x, int y, int r, float xSpeed, float ySpeed) {
-        painter.setColor(color);
-        painter.setAntiAlias(true);
-        this.center.x = x;
-        this.center.y = y;
         this.r = r;
-        this.xSpeed = xSpeed;
-        this.ySpeed = ySpeed;
-        this.rect.set(this.center.x - this.r, this.center.y - this.r, this.center.x + this.r, this.center.y + this.r);
+        this.xSpeed = Fixed.fromFloat(xSpeed);
+        this.ySpeed = Fixed.fromFloat(ySpeed);
+        setCenter(x, y);
+    }
+
+    /**
+     * ボールを初期状態に戻す
+     * プールから取り出したボールを再利用するときに呼び出す
+     *
+     * @param x ボールの位置(X座標)
+     * @param y ボールの位置(Y座標)
+     */
+    public void reset(int x, int y) {
+        this.r = DEFAULT_RADIUS;
+        this.xSpeed = Fixed.fromFloat(INITIAL_SPEED_X);
+        this.ySpeed = Fixed.fromFloat(INITIAL_SPEED_Y);
+        setCenter(x, y);
+        prevRect.setEmpty();
+        prevX = this.x;
+        prevY = this.y;
     }
 
     /**
@@ -119,11 +141,95 @@ public class Ball extends Item {
      * @param y 中心座標(Y座標)
      */
     public void setCenter(int x, int y) {
-        center.x = x;
-        center.y = y;
+        setFixedCenter(Fixed.fromInt(x), Fixed.fromInt(y));
+    }
+
+    /**
+     * ボールの中心座標を固定小数点数で設定する(setter)
+     * 整数に丸めずに設定するため、画素未満の位置も保たれる
+     *
+     * @param x 中心座標(X座標、固定小数点数)
+     * @param y 中心座標(Y座標、固定小数点数)
+     */
+    public void setFixedCenter(int x, int y) {
+        this.x = x;
+        this.y = y;
+        syncCenter();
+    }
+
+    /**
+     * 更新前の位置を覚えておく
+     * Item#savePositionメソッドをオーバーライドして、固定小数点数の位置も覚えておく
+     */
+    @Override
+    public void savePosition() {
+        super.savePosition();
+        prevX = x;
+        prevY = y;
+    }
+
+    /**
+     * 更新前のボールの位置(X方向)を固定小数点数で取得する
+     *
+     * @return 更新前のボールの位置(X方向)
+     */
+    public int getPrevFixedX() { return prevX; }
+
+    /**
+     * 更新前のボールの位置(Y方向)を固定小数点数で取得する
+     *
+     * @return 更新前のボールの位置(Y方向)
+     */
+    public int getPrevFixedY() { return prevY; }
+
+    /**
+     * 固定小数点数の位置から、表示と当たり判定に使う中心座標と領域を求める
+     */
+    private void syncCenter() {
+        center.x = Fixed.toInt(x);
+        center.y = Fixed.toInt(y);
         rect.set(center.x - r, center.y - r, center.x + r, center.y + r);
     }
 
+    /**
+     * 現在の速度で、1フレームのうち指定した割合の時間だけ移動させる
+     *
+     * @param fraction 移動させる時間の割合(固定小数点数、Fixed#ONEで1フレーム)
+     */
+    public void move(int fraction) {
+        x += Fixed.mul(xSpeed, fraction);
+        y += Fixed.mul(ySpeed, fraction);
+        syncCenter();
+    }
+
+    /**
+     * ボールの位置(X方向)を固定小数点数で取得する
+     *
+     * @return ボールの位置(X方向)
+     */
+    public int getFixedX() { return x; }
+
+    /**
+     * ボールの位置(Y方向)を固定小数点数で取得する
+     *
+     * @return ボールの位置(Y方向)
+     */
+    public int getFixedY() { return y; }
+
+    /**
+     * ボールの速度(X方向)を固定小数点数で取得する
+     *
+     * @return ボールの速度(X方向)
+     */
+    public int getFixedXSpeed() { return xSpeed; }
+
+    /**
+     * ボールの速度(Y方向)を固定小数点数で取得する
+     *
+     * @return ボールの速度(Y方向)
+     */
+    public int getFixedYSpeed() { return ySpeed; }
+
     /**
      * ボールの半径を取得する(getter)
      *
@@ -144,7 +250,7 @@ public class Ball extends Item {
      * @return ボールのX方向の速度
      */
     public float getXSpeed() {
-        return xSpeed;
+        return Fixed.toFloat(xSpeed);
     }
 
     /**
@@ -152,7 +258,7 @@ public class Ball extends Item {
      *
      * @param xSpeed ボールのX方向の速度
      */
-    public void setXSpeed(float xSpeed) { this.xSpeed = xSpeed; }
+    public void setXSpeed(float xSpeed) { this.xSpeed = Fixed.fromFloat(xSpeed); }
 
     /**
      * ボールのY方向の速度を取得する(setter)
@@ -160,7 +266,7 @@ public class Ball extends Item {
      * @return ボールのY方向の速度
      */
     public float getYSpeed() {
-        return ySpeed;
+        return Fixed.toFloat(ySpeed);
     }
 
     /**
@@ -168,7 +274,7 @@ public class Ball extends Item {
      *
      * @param ySpeed ボールのX方向の速度
      */
-    public void setYSpeed(float ySpeed) { this.ySpeed = ySpeed; }
+    public void setYSpeed(float ySpeed) { this.ySpeed = Fixed.fromFloat(ySpeed); }
 
     /**
      * ボールの状態の更新を行う
@@ -183,9 +289,9 @@ public class Ball extends Item {
          * 当たり判定は考慮せずパッドとボールを動かす
          * フレームの更新(フレームレート60fps)/描画処理などの話をする
          */
-        center.x += xSpeed;
-        center.y += ySpeed;
-        this.rect.set(center.x - r, center.y - r, center.x + r, center.y + r);
+        x += xSpeed;
+        y += ySpeed;
+        syncCenter();
     }
 
     /**
@@ -193,27 +299,75 @@ public class Ball extends Item {
      * ボールの描画を行う
      * Item#drawメソッドをオーバーライドして、ボール独自の描画処理を実装する
      *
-     * @param canvas 描画するキャンバス
+     * @param renderer 描画先
      * @param x 描画を開始する座標(X座標)
      * @param y 描画を開始する座標(Y座標)
      */
     @Override
-    public void draw(Canvas canvas, int x, int y) {
-        canvas.drawCircle(x + center.x, y + center.y, r, painter);
+    public void draw(Renderer renderer, int x, int y) {
+        renderer.fillCircle(x + center.x, y + center.y, r, color);
+    }
+
+    /**
+     * 他の表示要素の描画に必要な状態をコピーする
+     * Item#copyFromメソッドをオーバーライドして、ボールの半径もコピーする
+     *
+     * @param src コピー元の表示要素
+     */
+    @Override
+    public void copyFrom(Item src) {
+        super.copyFrom(src);
+        if(src instanceof Ball) {
+            r = ((Ball)src).r;
+        }
+    }
+
+    /**
+     * 他の表示要素との衝突判定を行う
+     * Item#isCollidedメソッドをオーバーライドして、ボールを囲む正方形ではなく円で判定する
+     * 矩形の角の近くを通っただけの場合は衝突していない
+     *
+     * @param target 判定対象となる表示要素
+     *
+     * @return true  衝突している
+     * @return false 衝突していない
+     */
+    @Override
+    public boolean isCollided(Item target) {
+        return Collision.circleRect(x, y, r, target.getRect(), target, contact);
     }
 
     /**
      * 他の表示要素との反射処理を行う
+     * 重なっている位置から衝突面の法線を求めて反射させる
+     * 重なっていない場合はY方向に反射させる
      *
      * @param item 反射対象の表示要素
      */
     public void reflect(Item item) {
+        if(isCollided(item)) {
+            reflect(item, contact.normalX, contact.normalY);
+        } else {
+            reflect(item, 0, -Fixed.ONE);
+        }
+    }
+
+    /**
+     * 他の表示要素との反射処理を行う
+     * 衝突面の法線に対して鏡映の向きに反射させる
+     * 辺に衝突した場合はX方向かY方向だけ、角に衝突した場合は角からボールへ向かう向きに反射する
+     *
+     * @param item 反射対象の表示要素
+     * @param nx 衝突面の法線(X方向、長さFixed#ONEの固定小数点数)
+     * @param ny 衝突面の法線(Y方向、長さFixed#ONEの固定小数点数)
+     */
+    public void reflect(Item item, int nx, int ny) {
         /** B-08．反射した後のボールの移動速度を変更する
          * 最大速度、速度変化率の利用
          *
          */
         // 当たる位置によりX方向の反射角を変える。
-        xSpeed += (getCenter().x - item.getCenter().x) / 8;
+        xSpeed += Fixed.fromInt((getCenter().x - item.getCenter().x) / 8);
 
         // X方向の速度変化
         // 最大速度の大きさ以下に抑える
@@ -224,7 +378,7 @@ public class Ball extends Item {
                 xSpeed = -MAX_SPEED_X;
             }
         } else {
-            xSpeed *= CHANGE_RATE_SPEED_X;
+            xSpeed = Fixed.mul(xSpeed, CHANGE_RATE_SPEED_X);
         }
 
         // Y方向の速度変化
@@ -236,9 +390,44 @@ public class Ball extends Item {
                 ySpeed = -MAX_SPEED_Y;
             }
         } else {
-            ySpeed *= CHANGE_RATE_SPEED_Y;
+            ySpeed = Fixed.mul(ySpeed, CHANGE_RATE_SPEED_Y);
+        }
+
+        // 衝突面の法線の方向に反射させる
+        // 法線の向きの速度の成分を反転させる(すでに離れる向きに移動している場合は反転しない)
+        final int dot = Fixed.mul(xSpeed, nx) + Fixed.mul(ySpeed, ny);
+        if(dot < 0) {
+            xSpeed -= 2 * Fixed.mul(dot, nx);
+            ySpeed -= 2 * Fixed.mul(dot, ny);
+        }
+    }
+
+    /**
+     * ボールを加速させる
+     * 最大速度の大きさを超えないようにする
+     *
+     * @param rate 速度の倍率(固定小数点数)
+     */
+    public void accelerate(int rate) {
+        xSpeed = clamp(Fixed.mul(xSpeed, rate), MAX_SPEED_X);
+        ySpeed = clamp(Fixed.mul(ySpeed, rate), MAX_SPEED_Y);
+    }
+
+    /**
+     * 速度を最大速度の大きさ以下に抑える
+     *
+     * @param speed 速度(固定小数点数)
+     * @param max 最大速度の大きさ(固定小数点数)
+     * @return 抑えた速度
+     */
+    private static int clamp(int speed, int max) {
+        if(speed > max) {
+            return max;
+        }
+        if(speed < -max) {
+            return -max;
         }
-        boundY();
+        return speed;
     }
 
     /**
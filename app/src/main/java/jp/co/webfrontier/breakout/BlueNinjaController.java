@@ -188,6 +188,16 @@ public class BlueNinjaController {
     private BluetoothLeScanner bluetoothLeScanner = null;
     private BluetoothGatt bluetoothGatt = null;
 
+    /**
+     * BLE機器を検索する頻度(ScanSettings.SCAN_MODE_*)
+     */
+    private int scanMode = ScanSettings.SCAN_MODE_BALANCED;
+
+    /**
+     * BLE機器との通信の優先度(BluetoothGatt.CONNECTION_PRIORITY_*)
+     */
+    private int connectionPriority = BluetoothGatt.CONNECTION_PRIORITY_BALANCED;
+
     /**
      * コンストラクタ
      *
@@ -226,6 +236,26 @@ public class BlueNinjaController {
         return (status == BLEStatus.SCANNING);
     }
 
+    /**
+     * BLE機器を検索する頻度と通信の優先度を設定する
+     * 接続中の場合は通信の優先度をすぐに要求し直す
+     * 検索の頻度は次に検索を開始したときから使う
+     *
+     * @param scanMode 検索の頻度(ScanSettings.SCAN_MODE_*)
+     * @param connectionPriority 通信の優先度(BluetoothGatt.CONNECTION_PRIORITY_*)
+     */
+    public void setPowerSettings(int scanMode, int connectionPriority) {
+        this.scanMode = scanMode;
+        if(this.connectionPriority == connectionPriority) {
+            return;
+        }
+        this.connectionPriority = connectionPriority;
+        if(bluetoothGatt != null && isConnected()) {
+            Log.d(TAG, "requestConnectionPriority(" + connectionPriority + ")");
+            bluetoothGatt.requestConnectionPriority(connectionPriority);
+        }
+    }
+
     /**
      * BLE機器接続（デフォルト機器）
      */
@@ -321,7 +351,7 @@ public class BlueNinjaController {
 
             ScanSettings scanSettings =
                     new ScanSettings.Builder()
-                            .setScanMode(ScanSettings.SCAN_MODE_BALANCED)
+                            .setScanMode(scanMode)
                             .build();
 
             bluetoothLeScanner.startScan(scanFilterList, scanSettings, scanCallback);
@@ -468,6 +498,8 @@ public class BlueNinjaController {
                         if (gatt.setCharacteristicNotification(characteristic, true)) {
                             // Characteristics通知設定が成功
                             setStatus(BLEStatus.CONNECTED);
+                            // 性能プロファイルに合わせた通信の優先度を要求する
+                            gatt.requestConnectionPriority(connectionPriority);
                             Log.d(TAG, "setCharacteristicNotification() Success");
                         } else {
                             // Characteristics通知設定が失敗
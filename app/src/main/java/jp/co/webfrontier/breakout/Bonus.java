@@ -1,9 +1,5 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Rect;
-
 /** A-07. ボーナスアイテム（ミサイル）の取得
  * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
  * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
@@ -35,7 +31,7 @@ public class Bonus extends Item {
         /**
          * ミサイル
          */
-        MISSILE("ミサイル", 1);
+        MISSILE("ミサイル", 1, 10);
 
         /**
          * 種別名
@@ -47,15 +43,22 @@ public class Bonus extends Item {
          */
         private final int value;
 
+        /**
+         * 効果が続く時間(更新回数)
+         */
+        private final int durationTicks;
+
         /**
          * コンストラクタ
          *
          * @param value 種別値
+         * @param durationSeconds 効果が続く時間(秒)
          */
-        private Type(final String name, final int value)
+        private Type(final String name, final int value, final int durationSeconds)
         {
             this.name = name;
             this.value = value;
+            this.durationTicks = durationSeconds * FixedTimestep.TICKS_PER_SECOND;
         }
 
         /**
@@ -74,6 +77,14 @@ public class Bonus extends Item {
         {
             return value;
         }
+
+        /**
+         * 効果が続く時間を取得する
+         * ゲーム内時間で数えるため、一時停止中は減らない
+         *
+         * @return 効果が続く時間(更新回数)
+         */
+        int getDurationTicks() { return durationTicks; }
     }
     /**
      * アイテムの種別
@@ -91,9 +102,20 @@ public class Bonus extends Item {
      *
      * @param rect アイテム位置
      */
-    public Bonus(Rect rect) {
-        color = Color.GREEN;
-        painter.setColor(color);
+    public Bonus(Bounds rect) {
+        reset(rect);
+    }
+
+    /**
+     * アイテムを初期状態に戻す
+     * プールから取り出したアイテムを再利用するときに呼び出す
+     *
+     * @param rect アイテムを出したブロックの位置
+     */
+    public void reset(Bounds rect) {
+        type = Type.MISSILE;
+        color = GameColor.GREEN;
+        prevRect.setEmpty();
         center.x = rect.left + rect.width() / 2;
         center.y = rect.top + rect.height();
         WIDTH = rect.width() / 2;
@@ -116,13 +138,13 @@ public class Bonus extends Item {
      * アイテムの描画を行う
      * Item#drawメソッドをオーバーライドして、ブロック独自の描画処理を実装する
      *
-     * @param canvas 描画するキャンバス
+     * @param renderer 描画先
      * @param x 描画を開始する座標(X座標)
      * @param y 描画を開始する座標(Y座標)
      */
     @Override
-    public void draw(Canvas canvas, int x, int y) {
-        canvas.drawRoundRect(x + rect.left, y + rect.top, x + rect.right, y + rect.bottom, 20, 20, painter);
+    public void draw(Renderer renderer, int x, int y) {
+        renderer.fillRoundRect(x + rect.left, y + rect.top, x + rect.right, y + rect.bottom, 20, 20, color);
     }
 
     /**
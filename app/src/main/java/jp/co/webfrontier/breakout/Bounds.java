@@ -0,0 +1,212 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * ゲームの処理で使う矩形の領域を表すクラス
+ * ゲームの処理がAndroidのクラスに依存しないよう、android.graphics.Rectの代わりに使う
+ * 端末がない環境(JVM上の単体テストなど)でもゲームの処理を動かせる
+ * 座標と各メソッドの意味はandroid.graphics.Rectと同じ(右端と下端は領域に含まない)
+ */
+public class Bounds {
+    /**
+     * 左端
+     */
+    public int left;
+
+    /**
+     * 上端
+     */
+    public int top;
+
+    /**
+     * 右端
+     */
+    public int right;
+
+    /**
+     * 下端
+     */
+    public int bottom;
+
+    /**
+     * コンストラクタ
+     * 空の領域を作る
+     */
+    public Bounds() {}
+
+    /**
+     * コンストラクタ
+     *
+     * @param left 左端
+     * @param top 上端
+     * @param right 右端
+     * @param bottom 下端
+     */
+    public Bounds(int left, int top, int right, int bottom) {
+        set(left, top, right, bottom);
+    }
+
+    /**
+     * 領域を設定する
+     *
+     * @param left 左端
+     * @param top 上端
+     * @param right 右端
+     * @param bottom 下端
+     */
+    public void set(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    /**
+     * 他の領域と同じ領域を設定する
+     *
+     * @param src 複写元の領域
+     */
+    public void set(Bounds src) {
+        set(src.left, src.top, src.right, src.bottom);
+    }
+
+    /**
+     * 空の領域にする
+     */
+    public void setEmpty() {
+        set(0, 0, 0, 0);
+    }
+
+    /**
+     * 空の領域か
+     *
+     * @return true 幅か高さが0以下
+     */
+    public boolean isEmpty() {
+        return left >= right || top >= bottom;
+    }
+
+    /**
+     * 幅を取得する
+     *
+     * @return 幅
+     */
+    public int width() { return right - left; }
+
+    /**
+     * 高さを取得する
+     *
+     * @return 高さ
+     */
+    public int height() { return bottom - top; }
+
+    /**
+     * 中心座標(X座標)を取得する
+     *
+     * @return 中心座標(X座標)
+     */
+    public int centerX() { return (left + right) >> 1; }
+
+    /**
+     * 中心座標(Y座標)を取得する
+     *
+     * @return 中心座標(Y座標)
+     */
+    public int centerY() { return (top + bottom) >> 1; }
+
+    /**
+     * 領域を移動する
+     *
+     * @param dx 移動量(X方向)
+     * @param dy 移動量(Y方向)
+     */
+    public void offset(int dx, int dy) {
+        left += dx;
+        top += dy;
+        right += dx;
+        bottom += dy;
+    }
+
+    /**
+     * 指定した領域と重なっているか
+     * 辺が接しているだけの場合は重なっていないとみなす
+     *
+     * @param left 左端
+     * @param top 上端
+     * @param right 右端
+     * @param bottom 下端
+     * @return true 重なっている
+     */
+    public boolean intersects(int left, int top, int right, int bottom) {
+        return this.left < right && left < this.right && this.top < bottom && top < this.bottom;
+    }
+
+    /**
+     * 2つの領域が重なっているか
+     * 辺が接しているだけの場合は重なっていないとみなす
+     *
+     * @param a 領域
+     * @param b 領域
+     * @return true 重なっている
+     */
+    public static boolean intersects(Bounds a, Bounds b) {
+        return a.intersects(b.left, b.top, b.right, b.bottom);
+    }
+
+    /**
+     * 指定した領域を含むように広げる
+     * 空の領域を指定した場合は何もしない、この領域が空の場合は指定した領域にする
+     *
+     * @param left 左端
+     * @param top 上端
+     * @param right 右端
+     * @param bottom 下端
+     */
+    public void union(int left, int top, int right, int bottom) {
+        if(left >= right || top >= bottom) {
+            return;
+        }
+        if(isEmpty()) {
+            set(left, top, right, bottom);
+            return;
+        }
+        this.left = Math.min(this.left, left);
+        this.top = Math.min(this.top, top);
+        this.right = Math.max(this.right, right);
+        this.bottom = Math.max(this.bottom, bottom);
+    }
+
+    /**
+     * 他の領域を含むように広げる
+     *
+     * @param other 含める領域
+     */
+    public void union(Bounds other) {
+        union(other.left, other.top, other.right, other.bottom);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) {
+            return true;
+        }
+        if(!(o instanceof Bounds)) {
+            return false;
+        }
+        final Bounds b = (Bounds)o;
+        return left == b.left && top == b.top && right == b.right && bottom == b.bottom;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = left;
+        h = 31 * h + top;
+        h = 31 * h + right;
+        h = 31 * h + bottom;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "Bounds(" + left + ", " + top + " - " + right + ", " + bottom + ")";
+    }
+}
@@ -1,10 +1,5 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Color;
-import android.graphics.Point;
-import android.graphics.Rect;
-import android.util.Log;
-
 import java.util.ArrayList;
 
 /**
@@ -76,18 +71,74 @@ public class Breakout {
             return value;
         }
     }
+    /**
+     * 1フレーム分の更新処理のフェーズ
+     */
+    public enum Phase {
+        /**
+         * 移動
+         */
+        INTEGRATE("移動"),
+        /**
+         * 当たり判定
+         */
+        DETECT("当たり判定"),
+        /**
+         * 衝突処理
+         */
+        RESOLVE("衝突処理"),
+        /**
+         * アイテム取得
+         */
+        PICKUP("アイテム取得"),
+        /**
+         * 後処理
+         */
+        CLEANUP("後処理");
+
+        /**
+         * フェーズ名
+         */
+        private final String name;
+
+        /**
+         * コンストラクタ
+         *
+         * @param name フェーズ名
+         */
+        private Phase(final String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * フェーズ名を取得する
+         *
+         * @return フェーズ名
+         */
+        public String getName() { return name; }
+    }
+
     /**
      * ゲームの進行状態
      */
     private State state = State.INIT;
 
     /**
-     * ゲームフィールドの大きさ
+     * ゲームフィールドの幅(論理座標)
+     * ゲームの処理は画面の解像度によらず、幅がこの値の論理座標で行う
+     * 高さは画面の縦横比から決まる
+     * 画面の画素への変換は描画時にBreakoutViewが行う
      */
-    private Rect fieldRect = new Rect();
+    public static final int WORLD_WIDTH = 1080;
 
     /**
-     * ゲームフィールドから上のブロックまでのスペース
+     * ゲームフィールドの大きさ(論理座標)
+     */
+    private Bounds fieldRect = new Bounds();
+
+    /**
+     * ゲームフィールドから上のブロックまでのスペース(論理座標)
      */
     private static final int BRICK_UPPER_SPACE = 100;
 
@@ -106,24 +157,26 @@ public class Breakout {
 
     /**
      * ブロックの配列
+     * 格子状に配置し、当たり判定では領域が重なるセルのブロックだけを調べる
      */
-    private Brick[][] bricks = new Brick[BRICK_ROW][BRICK_COL];
+    private BrickGrid bricks = new BrickGrid(BRICK_ROW, BRICK_COL);
 
     /**
-     * パッド
+     * 当たり判定の対象となるセルの範囲
+     * 毎フレーム生成しないように使い回す
      */
-    private Pad pad = new Pad();
+    private final Bounds cellRange = new Bounds();
 
     /**
-     * ゲームフィールドに出ているボールのリスト
+     * パッド
      */
-    private ArrayList<Ball> activeBalls = new ArrayList<>();
+    private Pad pad = new Pad();
 
     /**
-     * ゲームフィールドから出たボールのリスト
-     * 削除処理用
+     * ゲームフィールドに出ているボール
+     * ゲームフィールドから出たボールは削除予約しておき、後処理フェーズでまとめて削除する
      */
-    private ArrayList<Ball> deactiveBalls = new ArrayList<>();
+    private final EntityRegistry<Ball> activeBalls = new EntityRegistry<>();
 
     /** A-07. ボーナスアイテム（ミサイル）の取得
      * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
@@ -131,24 +184,78 @@ public class Breakout {
      * タップでミサイルを発射しブロックを破壊できる
      */
     /**
-     * ゲームフィールドに出ているアイテムのリスト
+     * ゲームフィールドに出ているアイテム
+     */
+    private final EntityRegistry<Bonus> activeBonus = new EntityRegistry<>();
+
+    /**
+     * ゲームフィールドに出ているミサイル
+     * 発射、移動、ブロックとの当たり判定、削除はミサイルの管理クラスにまとめる
+     */
+    private final ProjectileSystem projectiles = new ProjectileSystem();
+
+    /**
+     * 1フレームの間にボールが衝突を処理する回数の上限
+     * 衝突するたびに残りの移動を続けるため、速いボールは1フレームで複数回反射することがある
+     */
+    private static final int MAX_SWEEP_STEPS = 4;
+
+    /**
+     * 当たり判定フェーズでブロックかパッドと衝突したボール
+     * ballContactInfoと同じインデックスで対になる
+     */
+    private ArrayList<Ball> ballContacts = new ArrayList<>();
+
+    /**
+     * 当たり判定フェーズで見つけたボールの最初の衝突
+     * 毎フレーム生成しないよう、必要な数だけ確保して使い回す
+     */
+    private ArrayList<Contact> ballContactInfo = new ArrayList<>();
+
+    /**
+     * 衝突処理中のボールの衝突
      */
-    private ArrayList<Bonus> activeBonus = new ArrayList<>();
+    private final Contact sweepContact = new Contact();
 
     /**
-     * ゲームフィールドから出たアイテムのリスト
+     * 衝突時刻を比べるための作業用の衝突
      */
-    private ArrayList<Bonus> deactiveBonus = new ArrayList<>();
+    private final Contact candidateContact = new Contact();
 
     /**
-     * ゲームフィールドに出ているミサイルのリスト
+     * 衝突した位置に戻したボールの重なりを調べるときの格納先
      */
-    private ArrayList<Missile> activeMissile = new ArrayList<>();
+    private final Contact overlapContact = new Contact();
 
     /**
-     * ゲームフィールドから出たミサイルのリスト
+     * ボールが1フレームで通過する範囲
      */
-    private ArrayList<Missile> deactiveMissile = new ArrayList<>();
+    private final Bounds sweepBounds = new Bounds();
+
+    /**
+     * フェーズごとの処理時間の通知先
+     */
+    private BreakoutPhaseListener phaseListener = null;
+
+    /**
+     * ボールのプール
+     */
+    private final ItemPool<Ball> ballPool = new ItemPool<Ball>() {
+        @Override
+        protected Ball create() {
+            return new Ball(0, 0);
+        }
+    };
+
+    /**
+     * ボーナスアイテムのプール
+     */
+    private final ItemPool<Bonus> bonusPool = new ItemPool<Bonus>() {
+        @Override
+        protected Bonus create() {
+            return new Bonus();
+        }
+    };
 
     /**
      * ボール残数の初期値
@@ -165,7 +272,29 @@ public class Breakout {
      * ゲーム内時間を管理する
      * 開始/停止/一時停止/再開を行う
      */
-    private long elapsedMilliseconds = 0; // ゲームの経過時間
+    /**
+     * ゲーム開始からの経過時間(更新回数)
+     * 実行中の更新ごとに1つ進めるため、一時停止中やゲームループの休止中は進まない
+     * UI部品の時計は使わず、ゲームの更新と同じ時間で数える
+     */
+    private long elapsedTicks = 0;
+
+    // [Task 17] スタートから一定時間経つとボールのスピードが上がる
+    /**
+     * ボールを加速させる間隔(更新回数)
+     */
+    private static final long SPEED_UP_INTERVAL_TICKS = 20L * FixedTimestep.TICKS_PER_SECOND;
+
+    /**
+     * 一定時間ごとにボールを加速させるときの速度の倍率(固定小数点数)
+     */
+    private static final int SPEED_UP_RATE = Fixed.fromFloat(1.1f);
+
+    /**
+     * ボールを加速させた回数
+     * 新しく出すボールも同じだけ加速させる
+     */
+    private int speedLevel = 0;
 
     /** A-05. ゲームの得点を表示する
      * 得点表示用のUI部品(TextView)を配置する
@@ -175,17 +304,25 @@ public class Breakout {
     private long score = 0;
 
     /**
-     * ゲームを表示するビュー
+     * 描画キュー
+     * ゲームは各レイヤーに表示要素を設定し、更新のたびにスナップショットを公開する
      */
-    BreakoutView view;
+    private final RenderQueue renderQueue;
+
+    /**
+     * ゲームの進行の通知先(ゲームを表示するビュー)
+     */
+    private final BreakoutListener listener;
 
     /**
      * コンストラクタ
      *
-     * @param view ゲームを表示するビュー
+     * @param renderQueue 描画キュー
+     * @param listener ゲームの進行の通知先
      */
-    public Breakout(BreakoutView view) {
-        this.view = view;
+    public Breakout(RenderQueue renderQueue, BreakoutListener listener) {
+        this.renderQueue = renderQueue;
+        this.listener = listener;
     }
 
     /**
@@ -196,10 +333,14 @@ public class Breakout {
      * 新しくゲーム開始する
      */
     private void start() {
-        Log.d(TAG, "ゲームを開始するよ。スタートボタンを押してね。");
+        GameLog.d(TAG, "ゲームを開始するよ。スタートボタンを押してね。");
 
         // 描画要素をクリアする
-        view.clearDrawingItems();
+        listener.onGameStarting();
+        // ボール、アイテム、ミサイルはゲームと描画で同じものを共有する
+        renderQueue.setBalls(activeBalls);
+        renderQueue.setPickups(activeBonus);
+        renderQueue.setProjectiles(projectiles.getProjectiles());
 
         /**
          * B-02．パッドを表示させる
@@ -232,6 +373,14 @@ public class Breakout {
          * 得点を加算していき表示する
          */
         score = 0;
+
+        /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
+         * 時間表示用のUI部品(Chronometer)を配置する
+         * ゲーム内時間を管理する
+         * 開始/停止/一時停止/再開を行う
+         */
+        elapsedTicks = 0;
+        speedLevel = 0;
     }
 
     /**
@@ -256,10 +405,13 @@ public class Breakout {
             return;
         }
 
-        Log.i(TAG, "ゲームの状態が変わったよ");
-        Log.i(TAG, "今の状態: " + currentState + " 新しい状態: " + newState);
+        GameLog.i(TAG, "ゲームの状態が変わったよ");
+        GameLog.i(TAG, "今の状態: " + currentState + " 新しい状態: " + newState);
         this.state = newState;
 
+        // 状態が変わったら休止しているゲームループを再開して描画し直す
+        listener.onStateChanged(currentState, newState);
+
         switch(currentState) {
             case INIT:
                 // 初期状態
@@ -272,7 +424,7 @@ public class Breakout {
                          * ブロックを全て消したらゲームクリア
                          * 全てのボールがゲームフィールド外に出たらゲームオーバー
                          */
-                        view.showStateMessage();
+                        listener.onShowStateMessage();
                         // スタートする
                         start();
                         break;
@@ -291,13 +443,7 @@ public class Breakout {
                 switch(newState) {
                     case RUNNING:
                         // 開始可能 -> 実行中
-                        view.hideStateMessage();
-                        /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-                         * 時間表示用のUI部品(Chronometer)を配置する
-                         * ゲーム内時間を管理する
-                         * 開始/停止/一時停止/再開を行う
-                         */
-                        view.startElapsedTimeCounter();
+                        listener.onHideStateMessage();
                         break;
                     default:
                         break;
@@ -314,13 +460,7 @@ public class Breakout {
                          * ブロックを全て消したらゲームクリア
                          * 全てのボールがゲームフィールド外に出たらゲームオーバー
                          */
-                        view.showStateMessage();
-                        /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-                         * 時間表示用のUI部品(Chronometer)を配置する
-                         * ゲーム内時間を管理する
-                         * 開始/停止/一時停止/再開を行う
-                         */
-                        view.pauseElapsedTimeCounter();
+                        listener.onShowStateMessage();
                         break;
                     case GAMEOVER:
                         // 実行中 -> ゲームオーバー
@@ -330,21 +470,17 @@ public class Breakout {
                          * ブロックを全て消したらゲームクリア
                          * 全てのボールがゲームフィールド外に出たらゲームオーバー
                          */
-                        view.showStateMessage();
-                        
-                        /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-                         * 時間表示用のUI部品(Chronometer)を配置する
-                         * ゲーム内時間を管理する
-                         * 開始/停止/一時停止/再開を行う
-                         */
-                        view.stopElapsedTimeCounter();
+                        listener.onShowStateMessage();
+
+                        // 計測中であれば計測結果を書き出す
+                        listener.onGameFinished(newState);
 
                         /** A-04. 効果音を鳴らす
                          * ゲームの効果音をつける
                          * ブロックを破壊したとき, 破壊できないブロックに当たったとき,パッドで反射したとき
                          * ボールをロストしたとき, ゲームをクリアしたとき, ゲームオーバーになったとき
                          */
-                        SoundController.playGameOver();
+                        SoundEffect.GAME_OVER.play();
                         break;
                     case CLEAR:
                         // 実行中 -> ゲームクリア
@@ -354,21 +490,17 @@ public class Breakout {
                          * ブロックを全て消したらゲームクリア
                          * 全てのボールがゲームフィールド外に出たらゲームオーバー
                          */
-                        view.showStateMessage();
+                        listener.onShowStateMessage();
 
-                        /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-                         * 時間表示用のUI部品(Chronometer)を配置する
-                         * ゲーム内時間を管理する
-                         * 開始/停止/一時停止/再開を行う
-                         */
-                        view.stopElapsedTimeCounter();
+                        // 計測中であれば計測結果を書き出す
+                        listener.onGameFinished(newState);
 
                         /** A-04. 効果音を鳴らす
                          * ゲームの効果音をつける
                          * ブロックを破壊したとき, 破壊できないブロックに当たったとき,パッドで反射したとき
                          * ボールをロストしたとき, ゲームをクリアしたとき, ゲームオーバーになったとき
                          */
-                        SoundController.playClear();
+                        SoundEffect.CLEAR.play();
                         break;
                     default:
                         break;
@@ -385,13 +517,7 @@ public class Breakout {
                 switch(newState) {
                     case RUNNING:
                         // 一時停止 -> 実行中
-                        view.hideStateMessage();
-                        /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-                         * 時間表示用のUI部品(Chronometer)を配置する
-                         * ゲーム内時間を管理する
-                         * 開始/停止/一時停止/再開を行う
-                         */
-                        view.resumeElapsedTimeCounter();
+                        listener.onHideStateMessage();
                         break;
                     default:
                         break;
@@ -408,7 +534,7 @@ public class Breakout {
                          * ブロックを全て消したらゲームクリア
                          * 全てのボールがゲームフィールド外に出たらゲームオーバー
                          */
-                        view.showStateMessage();
+                        listener.onShowStateMessage();
                         // スタートする
                         start();
                         break;
@@ -427,13 +553,7 @@ public class Breakout {
                          * ブロックを全て消したらゲームクリア
                          * 全てのボールがゲームフィールド外に出たらゲームオーバー
                          */
-                        view.showStateMessage();
-                        /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-                         * 時間表示用のUI部品(Chronometer)を配置する
-                         * ゲーム内時間を管理する
-                         * 開始/停止/一時停止/再開を行う
-                         */
-                        view.stopElapsedTimeCounter();
+                        listener.onShowStateMessage();
                         // スタートする
                         start();
                         break;
@@ -450,7 +570,7 @@ public class Breakout {
     /**
      * ゲームフィールドの領域を取得する
      */
-    public Rect getGameFieldRect() {
+    public Bounds getGameFieldRect() {
         return fieldRect;
     }
 
@@ -458,13 +578,14 @@ public class Breakout {
      * ゲームフィールドの大きさが変わったときに行う処理
      * Viewの大きさが変わったときに通知される
      *
+     * @param rect ゲームフィールドの領域(論理座標、幅はWORLD_WIDTH)
      */
-    public void onGameFieldSizeChanged(Rect rect) {
-        Log.d(TAG, "いまのゲームフィールド領域");
-        Log.d(TAG, "x: " + fieldRect.left + ", y: " + fieldRect.top + ", width: " + fieldRect.width() + ", height: " + fieldRect.height());
+    public void onGameFieldSizeChanged(Bounds rect) {
+        GameLog.d(TAG, "いまのゲームフィールド領域");
+        GameLog.d(TAG, "x: " + fieldRect.left + ", y: " + fieldRect.top + ", width: " + fieldRect.width() + ", height: " + fieldRect.height());
         fieldRect.set(rect);
-        Log.d(TAG, "新しいゲームフィールド領域");
-        Log.d(TAG, "x: " + fieldRect.left + ", y: " + fieldRect.top + ", width: " + fieldRect.width() + ", height: " + fieldRect.height());
+        GameLog.d(TAG, "新しいゲームフィールド領域");
+        GameLog.d(TAG, "x: " + fieldRect.left + ", y: " + fieldRect.top + ", width: " + fieldRect.width() + ", height: " + fieldRect.height());
 
         if (state == State.INIT) {
             setState(State.READY);
@@ -477,189 +598,437 @@ public class Breakout {
      * タップでミサイルを発射しブロックを破壊できる
      */
     /**
-     * ゲームフィールドをタッチしたときに行う処理
+     * ゲームフィールドを押したときに行う処理
+     * 押している間は、ミサイルアイテム取得済みであれば発射の間隔ごとにミサイルを撃ち続ける
+     * 発射は次の更新で行う
      */
-    public void onTouch() {
+    public void onTouchDown() {
         if(getState() != State.RUNNING) {
             return;
         }
+        projectiles.pullTrigger();
+    }
 
-        // ミサイルアイテム取得済みの場合
-        if(pad.launchMissile()) {
-            // ミサイル発射
-            Missile missile = new Missile(pad.getCenter().x, pad.getRect().top);
-            activeMissile.add(missile);
-            view.addDrawingItem(missile);
-        }
+    /**
+     * ゲームフィールドから指を離したときに行う処理
+     * 押してすぐ離した場合も、ミサイルアイテム取得済みであれば1回は撃つ
+     */
+    public void onTouch() {
+        projectiles.releaseTrigger();
     }
 
     /**
      * 1フレーム分の更新処理を行う
+     * 1回の呼び出しでFixedTimestep#TICK_NANOSだけゲームを進める
+     * 更新処理は以下のフェーズを順番に行う
+     * 各フェーズでは、ボール、ミサイル、ボーナスアイテム、パッドをそれぞれ1回ずつ処理する
+     *
+     * 1. 移動(INTEGRATE)   : 表示要素を移動させる
+     * 2. 当たり判定(DETECT) : 表示要素同士の衝突を調べる
+     * 3. 衝突処理(RESOLVE)  : 衝突したブロックの破壊とボールの反射を行う
+     * 4. アイテム取得(PICKUP): パッドでボーナスアイテムを取得する
+     * 5. 後処理(CLEANUP)    : ゲームフィールドから出た表示要素を削除し、クリア/ゲームオーバーを判定する
+     * 更新し終えた表示要素は描画用のスナップショットとして公開する
      */
     public void update() {
         if (getState() != State.RUNNING) {
-            // View#invalidateメソッドを呼び再描画を要求する
-            view.invalidate();
+            // 実行中以外は何も変化しないため、ゲームループは休止している
             return;
         }
 
         // 以降はゲーム実行中(RUNNING)状態で行う更新処理
+        long t = beginPhase();
+        tick();
+        integrate();
+        t = endPhase(Phase.INTEGRATE, t);
+
+        detect();
+        t = endPhase(Phase.DETECT, t);
+
+        resolve();
+        t = endPhase(Phase.RESOLVE, t);
+
+        pickUp();
+        t = endPhase(Phase.PICKUP, t);
+
+        cleanUp();
+        endPhase(Phase.CLEANUP, t);
+
+        publishSnapshot();
+    }
+
+    /**
+     * 現在の表示要素を描画用のスナップショットとして公開する
+     * 描画処理は公開されたスナップショットだけを描画するため、ゲームの表示要素を直接参照しない
+     * 更新しなかったフレームでも、入力や状態の変化を描画に反映するためにViewから呼び出す
+     * ゲームのインスタンスで排他した状態で呼び出すこと
+     */
+    public void publishSnapshot() {
+        renderQueue.publish();
+    }
 
+    /**
+     * フェーズの計測を開始する
+     *
+     * @return 計測開始時刻(ナノ秒) 通知先がない場合は0
+     */
+    private long beginPhase() {
+        return (phaseListener != null) ? System.nanoTime() : 0;
+    }
+
+    /**
+     * フェーズの計測を終了し、処理時間を通知する
+     *
+     * @param phase 終了したフェーズ
+     * @param start フェーズの開始時刻(ナノ秒)
+     * @return 次のフェーズの開始時刻(ナノ秒) 通知先がない場合は0
+     */
+    private long endPhase(Phase phase, long start) {
+        if(phaseListener == null) {
+            return 0;
+        }
+        final long now = System.nanoTime();
+        phaseListener.onPhaseFinished(phase, now - start);
+        return now;
+    }
+
+    /**
+     * フェーズごとの処理時間の通知先を設定する
+     *
+     * @param listener 通知先(通知しない場合はnull)
+     */
+    public void setPhaseListener(BreakoutPhaseListener listener) {
+        phaseListener = listener;
+    }
+
+    /**
+     * ゲーム内時間を1回分進める
+     * 一定時間ごとにボールを加速させる
+     */
+    private void tick() {
+        elapsedTicks++;
+        // [Task 17] スタートから一定時間経つとボールのスピードが上がる
+        if(elapsedTicks % SPEED_UP_INTERVAL_TICKS == 0) {
+            speedLevel++;
+            for(int i = 0; i < activeBalls.size(); i++) {
+                activeBalls.get(i).accelerate(SPEED_UP_RATE);
+            }
+        }
+    }
+
+    /**
+     * 移動フェーズ
+     * 当たり判定は考慮せず、各表示要素を移動させる
+     * 描画時に補間できるよう、移動前の位置を覚えておく
+     * パッドは入力にすぐ追従させたいので補間しない
+     */
+    private void integrate() {
         /** A-07. ボーナスアイテム（ミサイル）の取得
          * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
          * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
          * タップでミサイルを発射しブロックを破壊できる
          */
         // アイテムを更新する
-        for(final Bonus bonus : activeBonus) {
+        for(int i = 0; i < activeBonus.size(); i++) {
+            final Bonus bonus = activeBonus.get(i);
+            bonus.savePosition();
             bonus.update();
         }
 
         // ミサイルを更新する
-        for(Missile missile : activeMissile) {
-            missile.update();
-        }
+        projectiles.integrate();
 
-        // パッドを更新する
+        // パッドを更新する(ボーナスの効果の残りも減らす)
         pad.update();
 
-        // ボール削除用のリストをクリア
-        deactiveBalls.clear();
+        // ミサイルを発射する(発射したミサイルは次の更新から移動する)
+        projectiles.fire(pad.getCenter().x, pad.getRect().top, pad.launchMissile());
 
-        // ボールごとに更新／当たり判定
-        for(int i = activeBalls.size()-1; i>=0; i--) {
-            Ball ball = activeBalls.get(i);
+        // ボールを更新する
+        for(int i = 0; i < activeBalls.size(); i++) {
+            final Ball ball = activeBalls.get(i);
+            ball.savePosition();
             ball.update();
+        }
+    }
 
-            /**
-             * B-10．ブロックの破壊とボールの反射を行う
-             * 
-             */
-            for(int row = 0; row < BRICK_ROW; row++) {
-                for(int col = 0; col < BRICK_COL; col++) {
-                    final Brick brick = bricks[row][col];
-                    if(brick.isUnBroken() && ball.isCollided(brick)) {
-                        /** A-07. ボーナスアイテム（ミサイル）の取得
-                         * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
-                         * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
-                         * タップでミサイルを発射しブロックを破壊できる
-                         */
-                        // ボーナスブロックの場合はボーナスアイテムを表示する
-                        if(brick.getType() == Brick.Type.BONUS) {
-                            Bonus bonus = new Bonus(brick.getRect());
-                            activeBonus.add(bonus);
-                            view.addDrawingItem(bonus);
-                        }
-
-                        // ブロックと衝突したのでブロックを破壊しボールを反射させる
-                        brick.crash();
-                        ball.reflect(brick);
-                        /** A-05. ゲームの得点を表示する
-                         * 得点表示用のUI部品(TextView)を配置する
-                         * ブロックの耐久度ごとに破壊したときに得られる得点を決める
-                         * 得点を加算していき表示する
-                         */
-                        score += bricks[row][col].getPoint();
-                    }
+    /**
+     * 当たり判定フェーズ
+     * 衝突した組み合わせを記録するだけで、表示要素の状態は変えない
+     * ボールは移動前の位置から移動後の位置までの経路で判定し、最初に衝突するものだけを記録する
+     * 速いボールが薄いブロックやパッドをすり抜けることはない
+     */
+    private void detect() {
+        ballContacts.clear();
+
+        for(int i = 0; i < activeBalls.size(); i++) {
+            final Ball ball = activeBalls.get(i);
+            final int fromX = ball.getPrevFixedX();
+            final int fromY = ball.getPrevFixedY();
+
+            // 移動前の位置から移動後の位置までの間で最初に衝突するものを調べる
+            final int n = ballContacts.size();
+            if(ballContactInfo.size() == n) {
+                ballContactInfo.add(new Contact());
+            }
+            final Contact contact = ballContactInfo.get(n);
+            if(findFirstContact(ball, fromX, fromY, ball.getFixedX() - fromX, ball.getFixedY() - fromY, contact)) {
+                ballContacts.add(ball);
+            }
+        }
 
-                    /** A-07. ボーナスアイテム（ミサイル）の取得
-                     * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
-                     * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
-                     * タップでミサイルを発射しブロックを破壊できる
-                     */
-                    // ミサイルと当たり判定
-                    for(Missile missile : activeMissile) {
-                        // ミサイルとブロックの当たり判定
-                        if(brick.isUnBroken() && missile.isCollided(brick)) {
-                            brick.crash();
-                            deactiveMissile.add(missile);
-                        }
-
-                        // ゲームフィールドの外に出たミサイルを削除
-                        if(missile.getRect().top < fieldRect.top) {
-                            deactiveMissile.add(missile);
-                        }
+        /** A-07. ボーナスアイテム（ミサイル）の取得
+         * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
+         * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
+         * タップでミサイルを発射しブロックを破壊できる
+         */
+        // ミサイルと当たり判定
+        projectiles.detect(bricks);
+    }
+
+    /**
+     * ボールが移動する間に最初に衝突するブロックかパッドを求める
+     * ボールが通過する範囲と重なるセルのブロックだけを調べる
+     *
+     * @param ball ボール
+     * @param fromX 移動開始時のボールの中心(X座標、固定小数点数)
+     * @param fromY 移動開始時のボールの中心(Y座標、固定小数点数)
+     * @param dx 移動量(X方向、固定小数点数)
+     * @param dy 移動量(Y方向、固定小数点数)
+     * @param out 最初の衝突の格納先
+     *
+     * @return true  衝突する
+     * @return false 衝突しない
+     */
+    private boolean findFirstContact(Ball ball, int fromX, int fromY, int dx, int dy, Contact out) {
+        final int r = ball.getRadius();
+        boolean found = false;
+
+        sweepBounds.set(Fixed.floor(Math.min(fromX, fromX + dx)) - r,
+                        Fixed.floor(Math.min(fromY, fromY + dy)) - r,
+                        Fixed.ceil(Math.max(fromX, fromX + dx)) + r,
+                        Fixed.ceil(Math.max(fromY, fromY + dy)) + r);
+
+        /**
+         * B-10．ブロックの破壊とボールの反射を行う
+         * ボールが通過する範囲と重なるセルのブロックだけを調べる
+         */
+        if(bricks.getCellRange(sweepBounds, cellRange)) {
+            for(int row = cellRange.top; row <= cellRange.bottom; row++) {
+                for(int col = cellRange.left; col <= cellRange.right; col++) {
+                    if(!bricks.isLive(row, col)) {
+                        continue;
+                    }
+                    final Brick brick = bricks.get(row, col);
+                    if(Collision.sweepCircle(fromX, fromY, dx, dy, r, brick.getRect(), brick, candidateContact)
+                            && (!found || candidateContact.time < out.time)) {
+                        out.set(candidateContact);
+                        found = true;
                     }
                 }
             }
+        }
 
-            /**
-             * B-07．パッドでボールを反射させる
-             * パッドとボールの当たり判定を行う
-             */
-            if(ball.isCollided(pad)) {
-                // パッドと衝突したのでボールを反射させる
-                ball.reflect(pad);
-                /** A-04. 効果音を鳴らす
-                 * ゲームの効果音をつける
-                 * ブロックを破壊したとき, 破壊できないブロックに当たったとき,パッドで反射したとき
-                 * ボールをロストしたとき, ゲームをクリアしたとき, ゲームオーバーになったとき
-                 */
-                SoundController.playHitPad();
-            }
+        /**
+         * B-07．パッドでボールを反射させる
+         * パッドとボールの当たり判定を行う
+         */
+        if(Collision.sweepCircle(fromX, fromY, dx, dy, r, pad.getRect(), pad, candidateContact)
+                && (!found || candidateContact.time < out.time)) {
+            out.set(candidateContact);
+            found = true;
+        }
 
-            /** A-07. ボーナスアイテム（ミサイル）の取得
-             * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
-             * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
-             * タップでミサイルを発射しブロックを破壊できる
-             */
-            for(final Bonus bonus : activeBonus) {
-                // パッドと当たったらアイテム取得
-                if(bonus.isCollided(pad)) {
-                    // アイテム消去
-                    deactiveBonus.add(bonus);
-                    // パッドパワーアップ
-                    pad.powerUp(bonus.getBonusType());
-                    continue;
-                }
-                // ゲームフィールドの外に出たアイテムを削除リストへ追加
-                if(bonus.getRect().bottom > fieldRect.bottom) {
-                    deactiveBonus.add(bonus);
-                }
-            }
+        return found;
+    }
+
+    /**
+     * 衝突処理フェーズ
+     * 当たり判定フェーズで記録した衝突について、ブロックの破壊とボールの反射を行う
+     * ゲームフィールドの端での反射と、ゲームフィールド外に出たボールの判定もここで行う
+     */
+    private void resolve() {
+        for(int i = 0; i < ballContacts.size(); i++) {
+            resolveBall(ballContacts.get(i), ballContactInfo.get(i));
+        }
 
+        projectiles.resolve();
+
+        for(int i = 0; i < activeBalls.size(); i++) {
+            final Ball ball = activeBalls.get(i);
             /**
              * B-09．ゲームフィールドでのボールの跳ね返りとボールがゲームフィールド外へ出たかの判定をする
              * 上端はY方向、左右端はX方向で当たり判定を行いボールを反転させる
              * 下端の判定は厳密には行わずゲームフィールドとの交差判定で行う
              */
-            final Rect ballRect = ball.getRect();
+            final Bounds ballRect = ball.getRect();
+            final int r = ball.getRadius();
             // X方向の反射
+            // 端に合わせるのは反射する向きだけにして、もう一方の向きは画素未満の位置も保つ
             if(ballRect.left <= fieldRect.left) {
                 // 左端での反射
-                ball.setCenter(ball.getRadius(), ball.getCenter().y);
+                ball.setFixedCenter(Fixed.fromInt(fieldRect.left + r), ball.getFixedY());
                 ball.boundX();
             } else if(ballRect.right >= fieldRect.right) {
                 // 右端での反射
-                ball.setCenter(fieldRect.right - ball.getRadius(), ball.getCenter().y);
+                ball.setFixedCenter(Fixed.fromInt(fieldRect.right - r), ball.getFixedY());
                 ball.boundX();
             }
 
             // Y方向の反射
             if(ballRect.top <= fieldRect.top) {
                 // 上端での反射
-                ball.setCenter(ball.getCenter().x, ball.getRadius());
+                ball.setFixedCenter(ball.getFixedX(), Fixed.fromInt(fieldRect.top + r));
                 // 速度反転
                 ball.boundY();
             }
 
             if(!ball.getRect().intersects(fieldRect.left, fieldRect.top, fieldRect.right, fieldRect.bottom)) {
-                // ボールがゲームフィールド外に出たら、後で消すために削除処理用のリストに登録
-                deactiveBalls.add(ball);
+                // ボールがゲームフィールド外に出たら、後で消すために削除を予約
+                activeBalls.removeLater(ball);
                 /** A-04. 効果音を鳴らす
                  * ゲームの効果音をつける
                  * ブロックを破壊したとき, 破壊できないブロックに当たったとき,パッドで反射したとき
                  * ボールをロストしたとき, ゲームをクリアしたとき, ゲームオーバーになったとき
                  */
-                SoundController.playLostBall();
+                SoundEffect.LOST_BALL.play();
             }
         }
+    }
 
-        // ゲームフィールド外に出たボールを削除
-        for(final Ball ball : deactiveBalls) {
-            removeBall(ball);
+    /**
+     * ボールの衝突を時刻順に処理する
+     * 衝突した位置までボールを戻して反射させ、残りの時間は反射後の速度で移動させる
+     * 移動中にさらに衝突する場合は、上限の回数まで同じ処理を繰り返す
+     *
+     * @param ball ボール
+     * @param first 当たり判定フェーズで見つけた最初の衝突
+     */
+    private void resolveBall(Ball ball, Contact first) {
+        int fromX = ball.getPrevFixedX();
+        int fromY = ball.getPrevFixedY();
+        int dx = ball.getFixedX() - fromX;
+        int dy = ball.getFixedY() - fromY;
+
+        sweepContact.set(first);
+        if(sweepContact.item != pad && !((Brick)sweepContact.item).isUnBroken()) {
+            // 先に処理した別のボールがブロックを破壊していたら衝突を調べ直す
+            if(!findFirstContact(ball, fromX, fromY, dx, dy, sweepContact)) {
+                return;
+            }
+        }
+
+        for(int step = 0; step < MAX_SWEEP_STEPS; step++) {
+            final Contact c = sweepContact;
+            final Bounds box = c.item.getRect();
+            final int r = ball.getRadius();
+
+            // 衝突した位置までボールを戻す
+            // 時刻の端数を切り捨てたことや、移動開始時点で重なっていたことで重なっている場合は、法線の向きに押し出す
+            int cx = fromX + Fixed.mul(dx, c.time);
+            int cy = fromY + Fixed.mul(dy, c.time);
+            if(Collision.circleRect(cx, cy, r, box, c.item, overlapContact)) {
+                final int push = overlapContact.depth + Fixed.ONE;
+                cx += Fixed.mul(overlapContact.normalX, push);
+                cy += Fixed.mul(overlapContact.normalY, push);
+            }
+            ball.setFixedCenter(cx, cy);
+
+            hitBall(ball, c);
+
+            // 残りの時間は反射後の速度で移動させる
+            ball.move(Fixed.ONE - c.time);
+            fromX = cx;
+            fromY = cy;
+            dx = ball.getFixedX() - fromX;
+            dy = ball.getFixedY() - fromY;
+
+            if(!findFirstContact(ball, fromX, fromY, dx, dy, sweepContact)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * ボールがブロックかパッドに衝突したときの処理を行う
+     *
+     * @param ball ボール
+     * @param c 衝突
+     */
+    private void hitBall(Ball ball, Contact c) {
+        if(c.item == pad) {
+            // パッドと衝突したのでボールを反射させる
+            ball.reflect(pad, c.normalX, c.normalY);
+            /** A-04. 効果音を鳴らす
+             * ゲームの効果音をつける
+             * ブロックを破壊したとき, 破壊できないブロックに当たったとき,パッドで反射したとき
+             * ボールをロストしたとき, ゲームをクリアしたとき, ゲームオーバーになったとき
+             */
+            SoundEffect.HIT_PAD.play();
+            return;
+        }
+
+        final Brick brick = (Brick)c.item;
+        /** A-07. ボーナスアイテム（ミサイル）の取得
+         * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
+         * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
+         * タップでミサイルを発射しブロックを破壊できる
+         */
+        // ボーナスブロックの場合はボーナスアイテムを表示する
+        if(brick.getType() == Brick.Type.BONUS) {
+            Bonus bonus = bonusPool.obtain();
+            bonus.reset(brick.getRect());
+            activeBonus.add(bonus);
+        }
+
+        // ブロックと衝突したのでブロックを破壊しボールを反射させる
+        brick.crash();
+        ball.reflect(brick, c.normalX, c.normalY);
+        /** A-05. ゲームの得点を表示する
+         * 得点表示用のUI部品(TextView)を配置する
+         * ブロックの耐久度ごとに破壊したときに得られる得点を決める
+         * 得点を加算していき表示する
+         */
+        score += brick.getPoint();
+    }
+
+    /**
+     * アイテム取得フェーズ
+     * パッドに当たったボーナスアイテムを取得する
+     */
+    private void pickUp() {
+        /** A-07. ボーナスアイテム（ミサイル）の取得
+         * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
+         * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
+         * タップでミサイルを発射しブロックを破壊できる
+         */
+        for(int i = 0; i < activeBonus.size(); i++) {
+            final Bonus bonus = activeBonus.get(i);
+            // パッドと当たったらアイテム取得
+            if(bonus.isCollided(pad)) {
+                // アイテム消去
+                activeBonus.removeLater(bonus);
+                // パッドパワーアップ
+                pad.powerUp(bonus.getBonusType());
+                continue;
+            }
+            // ゲームフィールドの外に出たアイテムを削除リストへ追加
+            if(bonus.getRect().bottom > fieldRect.bottom) {
+                activeBonus.removeLater(bonus);
+            }
         }
-        deactiveBalls.clear();
+    }
+
+    /**
+     * 後処理フェーズ
+     * ゲームフィールドから出た表示要素を削除し、ゲームクリア/ゲームオーバーを判定する
+     */
+    private void cleanUp() {
+        // ゲームフィールドの外に出たミサイルの削除を予約
+        projectiles.cull(fieldRect);
+
+        // ゲームフィールド外に出たボールを削除
+        activeBalls.flush(ballPool);
 
         // 総ボール数をチェック
         int ballCount = remainingBallCount + activeBalls.size();
@@ -668,7 +1037,7 @@ public class Breakout {
             if(getRemainingBricksCount() == 0) {
                 // ブロックがなくなった状態
                 // ゲームクリア
-                Log.d(TAG, "ゲームクリア！おめでとう！！");
+                GameLog.d(TAG, "ゲームクリア！おめでとう！！");
                 setState(State.CLEAR);
             } else {
                 // ブロックがまだ残っている状態
@@ -680,7 +1049,7 @@ public class Breakout {
         } else if(ballCount == 0) {
             // ボールの残数がなくなった状態
             // ゲームオーバー
-            Log.d(TAG, "残念。ゲームオーバーだよ。");
+            GameLog.d(TAG, "残念。ゲームオーバーだよ。");
             setState(State.GAMEOVER);
         }
 
@@ -689,20 +1058,11 @@ public class Breakout {
          * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
          * タップでミサイルを発射しブロックを破壊できる
          */
-        // ゲームフィールド外に出たアイテムを削除
-        for(final Bonus bonus : deactiveBonus) {
-            removeBonus(bonus);
-        }
-        deactiveBonus.clear();
-
-        // ゲームフィールド外に出たミサイルを削除
-        for(final Missile missile : deactiveMissile) {
-            removeMissile(missile);
-        }
-        deactiveMissile.clear();
+        // 取得したアイテムとゲームフィールド外に出たアイテムを削除
+        activeBonus.flush(bonusPool);
 
-        // View#invalidateメソッドを呼び再描画を要求する
-        view.invalidate();
+        // ブロックに当たったミサイルとゲームフィールド外に出たミサイルを削除
+        projectiles.flush();
     }
 
     /**
@@ -738,7 +1098,7 @@ public class Breakout {
     private void adjustPad() {
         int padWidth = fieldRect.width()/6;
         int padHeight = fieldRect.height()/100;
-        pad.setRect(new Rect(pad.left(), pad.top(), pad.left() + padWidth, pad.top() + padHeight));
+        pad.setRect(new Bounds(pad.left(), pad.top(), pad.left() + padWidth, pad.top() + padHeight));
     }
 
     /**
@@ -746,11 +1106,12 @@ public class Breakout {
      */
     public void initializePad() {
         adjustPad();
+        pad.clearBonus();
 
         int padX = (fieldRect.width() - pad.getWidth())/2;
         int padY = fieldRect.height() - 10*pad.getHeight();
-        pad.setRect(new Rect(padX, padY, padX + pad.getWidth(), padY + pad.getHeight()));
-        view.addDrawingItem(pad);
+        pad.setRect(new Bounds(padX, padY, padX + pad.getWidth(), padY + pad.getHeight()));
+        renderQueue.setPad(pad);
     }
 
     /**
@@ -758,7 +1119,7 @@ public class Breakout {
      *
      * @return パッドの中心座標
      */
-    public Point getPadPosition() {
+    public Position getPadPosition() {
         return pad.getCenter();
     }
 
@@ -783,9 +1144,13 @@ public class Breakout {
 
         // ボール残数があるときのみ、ボールを追加する
         if(remainingBallCount > 0) {
-            Ball ball = new Ball(x, y);
+            Ball ball = ballPool.obtain();
+            ball.reset(x, y);
+            // 経過時間に応じて加速させた分だけ、新しいボールも加速させる
+            for(int i = 0; i < speedLevel; i++) {
+                ball.accelerate(SPEED_UP_RATE);
+            }
             activeBalls.add(ball);
-            view.addDrawingItem(ball);
             remainingBallCount--;
             ret = true;
         }
@@ -793,16 +1158,6 @@ public class Breakout {
         return ret;
     }
 
-    /**
-     * ボールをゲームフィールドから取り除く
-     *
-     * @param ball ゲームフィールドから削除するボール
-     */
-    private void removeBall(Ball ball) {
-        activeBalls.remove(ball);
-        view.removeDrawingItem(ball);
-    }
-
      /**
      * ボールの状態を初期化する
      */
@@ -811,7 +1166,16 @@ public class Breakout {
         remainingBallCount = DEFAULT_REMAINING_BALLS;
 
         // ゲームフィールドにあるボールをクリア
-        activeBalls.clear();
+        activeBalls.clear(ballPool);
+
+        /** A-07. ボーナスアイテム（ミサイル）の取得
+         * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
+         * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
+         * タップでミサイルを発射しブロックを破壊できる
+         */
+        // 前のゲームで残ったアイテムとミサイルをクリア
+        activeBonus.clear(bonusPool);
+        projectiles.clear();
     }
 
     /**
@@ -827,15 +1191,15 @@ public class Breakout {
                  * 残りブロック数のカウントに壊れないブロックを含まないようにする
                  */
                 if(row%2 == 0 && col%2 == 0) {
-                    bricks[row][col] = new BrickUnbroken();
+                    bricks.set(row, col, new BrickUnbroken());
                 } else if(row == BRICK_ROW/2 && col == BRICK_COL/2) {
                     /** A-06. ボーナスブロックの追加
                      * ボーナスアイテムを出すブロック
                      * Brickを継承して作成する
                      */
-                    bricks[row][col] = new BrickBonus();
+                    bricks.set(row, col, new BrickBonus());
                 } else {
-                    bricks[row][col] = new BrickNormal();
+                    bricks.set(row, col, new BrickNormal());
                 }
             }
         }
@@ -850,17 +1214,13 @@ public class Breakout {
         int brick_w = fieldRect.width() / BRICK_COL;
         int brick_h = fieldRect.height() / 30;
 
-        for(int row = 0; row < BRICK_ROW; row++) {
-            for(int col = 0; col < BRICK_COL; col++) {
-                final Brick brick = bricks[row][col];
-                brick.setSize(brick_w, brick_h);
-                /** B-13．ブロックを複数行にする
-                 *  複数行にした場合の表示位置を調整する
-                 */
-                brick.move(col * brick_w, row * brick_h + BRICK_UPPER_SPACE);
-                view.addDrawingItem(brick);
-            }
-        }
+        /** B-13．ブロックを複数行にする
+         *  複数行にした場合の表示位置を調整する
+         */
+        bricks.layout(0, BRICK_UPPER_SPACE, brick_w, brick_h);
+
+        // ブロックは格子ごと描画する(格子の配置を変えたので画像は全て描き直される)
+        renderQueue.setBricks(bricks);
     }
 
     /**
@@ -874,26 +1234,12 @@ public class Breakout {
 
     /**
      * 残ブロック数取得
+     * ブロックが破壊されるたびに更新している値を返すため、毎フレーム呼んでもよい
      *
      * @return 残ブロック数
      */
     public int getRemainingBricksCount() {
-        int count = 0;
-        for(int row = 0; row < BRICK_ROW; row++) {
-            for(int col = 0; col < BRICK_COL; col++) {
-                final Brick brick = bricks[row][col];
-                /** A-02. 壊れないブロックを作る
-                 * Brickを継承して新たな壊れないブロックのクラスを作成
-                 * crashメソッドをオーバーライドして、ブロックが壊れないようにする
-                 * 偶数行、偶数列の位置に壊れないブロックを配置する
-                 * 残りブロック数のカウントに壊れないブロックを含まないようにする
-                 */
-                if(brick.getType() == Brick.Type.NORMAL && brick.isUnBroken()) {
-                    ++count;
-                }
-            }
-        }
-        return count;
+        return bricks.getRemainingCount();
     }
 
     /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
@@ -903,22 +1249,18 @@ public class Breakout {
      */
     /**
      * ゲーム開始からの経過時間を取得する
+     * ゲームの更新回数から求めるため、一時停止していた時間は含まない
      *
-     * @return ゲーム開始からの経過時間
+     * @return ゲーム開始からの経過時間(ミリ秒)
      */
-    public long getElapsedMilliseconds() { return elapsedMilliseconds; }
+    public long getElapsedMilliseconds() { return elapsedTicks * 1000L / FixedTimestep.TICKS_PER_SECOND; }
 
-    /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-     * 時間表示用のUI部品(Chronometer)を配置する
-     * ゲーム内時間を管理する
-     * 開始/停止/一時停止/再開を行う
-     */
     /**
-     * ゲーム開始からの経過時間を設定する
+     * ゲーム開始からの経過時間を更新回数で取得する
      *
-     * @param s 設定したい時間
+     * @return ゲーム開始からの更新回数
      */
-    public void setElapsedMilliseconds(long s) { elapsedMilliseconds = s; }
+    public long getElapsedTicks() { return elapsedTicks; }
 
     /** A-05. ゲームの得点を表示する
      * 得点表示用のUI部品(TextView)を配置する
@@ -932,28 +1274,27 @@ public class Breakout {
      */
     public long getScore() { return score; }
 
-    /** A-07. ボーナスアイテム（ミサイル）の取得
-     * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
-     * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
-     * タップでミサイルを発射しブロックを破壊できる
+    /**
+     * ミサイルの管理クラスを取得する
+     * 連射の速さと、1回に撃つミサイルの並べ方を変更するときに使う
+     *
+     * @return ミサイルの管理クラス
      */
+    public ProjectileSystem getProjectiles() { return projectiles; }
+
     /**
-     * アイテムをゲームフィールドから取り除く
+     * ボールのプールを取得する
+     * 再利用できた回数と新たに生成した回数を計測結果に含めるために使う
      *
-     * @param bonus ゲームフィールドから削除するアイテム
+     * @return ボールのプール
      */
-    private void removeBonus(Bonus bonus) {
-        activeBonus.remove(bonus);
-        view.removeDrawingItem(bonus);
-    }
+    ItemPool<Ball> getBallPool() { return ballPool; }
 
     /**
-     * ミサイルをゲームフィールドから取り除く
+     * ボーナスアイテムのプールを取得する
+     * 再利用できた回数と新たに生成した回数を計測結果に含めるために使う
      *
-     * @param missile ゲームフィールドから削除するミサイル
+     * @return ボーナスアイテムのプール
      */
-    private void removeMissile(Missile missile) {
-        activeMissile.remove(missile);
-        view.removeDrawingItem(missile);
-    }
+    ItemPool<Bonus> getBonusPool() { return bonusPool; }
 }
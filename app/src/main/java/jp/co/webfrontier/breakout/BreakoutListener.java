@@ -0,0 +1,41 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * ゲームの進行を受け取るためのインターフェース
+ * ゲームの処理はビューを直接参照せず、このインターフェースを通して表示の更新を依頼する
+ * ゲームの処理がAndroidのクラスに依存しないため、端末がない環境でもゲームを動かせる
+ */
+
+public interface BreakoutListener {
+
+    /**
+     * 新しいゲームを始める前の通知
+     * 前のゲームの描画要素を片付ける
+     */
+    public void onGameStarting();
+
+    /**
+     * ゲームの状態が変わったときの通知
+     *
+     * @param from 変わる前の状態
+     * @param to 変わった後の状態
+     */
+    public void onStateChanged(Breakout.State from, Breakout.State to);
+
+    /**
+     * ゲームの状態のメッセージを表示するときの通知
+     */
+    public void onShowStateMessage();
+
+    /**
+     * ゲームの状態のメッセージを隠すときの通知
+     */
+    public void onHideStateMessage();
+
+    /**
+     * ゲームが終了(ゲームオーバー、ゲームクリア)したときの通知
+     *
+     * @param state 終了したときの状態
+     */
+    public void onGameFinished(Breakout.State state);
+}
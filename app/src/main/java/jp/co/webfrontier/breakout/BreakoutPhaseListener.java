@@ -0,0 +1,16 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 1フレーム分の更新処理の各フェーズの処理時間を受け取るためのインターフェース
+ */
+
+public interface BreakoutPhaseListener {
+
+    /**
+     * フェーズの処理が終わったときの通知
+     *
+     * @param phase 終わったフェーズ
+     * @param elapsedNanos フェーズの処理にかかった時間(ナノ秒)
+     */
+    public void onPhaseFinished(Breakout.Phase phase, long elapsedNanos);
+}
@@ -1,27 +1,31 @@
 package jp.co.webfrontier.breakout;
 
 import android.content.Context;
-import android.content.res.Resources;
+import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Point;
 import android.graphics.Rect;
 import android.os.Handler;
+import android.os.Looper;
 import android.os.Message;
-import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
 import android.view.View;
-import android.widget.Chronometer;
 import android.widget.TextView;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * ブロック崩しゲームのViewクラス
+ * 通常は専用の描画スレッド(RenderThread)がサーフェスへ描画する
+ * レイアウトでrenderOnSurface属性をfalseにすると、従来どおりUIスレッドでonDrawメソッドから描画する
  */
-public class BreakoutView extends View {
+public class BreakoutView extends SurfaceView implements SurfaceHolder.Callback, BreakoutListener {
     /**
      * デバッグログ用タグ
      */
@@ -41,57 +45,269 @@ public class BreakoutView extends View {
     public static final int BLE_CONNECTED_COLOR = Color.BLUE;
 
     /**
-     * ステータス表示領域の高さ
+     * 描画スレッドからサーフェスへ描画するかどうか
+     * falseの場合はUIスレッドのRefreshHandlerで更新し、onDrawメソッドで描画する
+     * レイアウトのrenderOnSurface属性で指定する(省略時はtrue)
      */
-    private static final int STATUS_H = 240;
+    private boolean renderOnSurface = true;
 
     /**
      * 画面の大きさ
      */
     private Rect displayRect = new Rect();
+
+    /**
+     * ゲームフィールドの論理座標1あたりの画素数
+     * ゲームは論理座標で処理し、描画時にこの倍率で画面の画素に変換する
+     */
+    private float fieldScale = 1.0f;
+
+    /**
+     * ゲームフィールドを描画する解像度の調整
+     * 解像度を下げている間は、縮小したビットマップへ描画して拡大する
+     */
+    private final ResolutionScaler resolutionScaler = new ResolutionScaler();
+
+    /**
+     * 処理時間に応じて省く処理の管理
+     * 処理時間が予定時間に近づいたら、アンチエイリアス、装飾、ステータス表示の更新、解像度の順に省く
+     */
+    private final FrameGovernor governor = new FrameGovernor();
+
+    /**
+     * ゲームフィールドを描画する解像度の倍率の上限
+     * 端末の温度や電池の状態に応じて、処理時間に余裕があっても解像度を上げすぎないようにする
+     */
+    private volatile float maxRenderScale = ResolutionScaler.MAX_SCALE;
+
+    /**
+     * ステータス領域の表示の更新を保留しているかどうか
+     * 処理を省いている間は、表示する値が変わっても一定の間隔を空けて更新する
+     */
+    private boolean statusPending = false;
+
+    /**
+     * 前回ステータス領域の表示を更新した時刻(ナノ秒)
+     */
+    private long lastStatusNanos = 0;
+
+    /**
+     * UIスレッドのゲームループで前回更新にかかった時間(ナノ秒)
+     */
+    private long lastUpdateNanos = 0;
+
+    /**
+     * 描画スレッドが描画する画面の大きさ
+     * 描画はゲームのインスタンスで排他せずに行うため、排他している間にdisplayRectを写し取っておく
+     */
+    private final Rect frameRect = new Rect();
+
+    /**
+     * 描画スレッドが描画するゲームフィールドの論理座標1あたりの画素数
+     */
+    private float frameScale = 1.0f;
     /**
      * ペインター
      */
     private Paint painter = new Paint();
 
     /**
-     * 描画要素のリスト
-     * onDrawメソッドが呼ばれたときにこのリストにある要素が描画される
+     * ステータス領域のペインター
      */
-    private ArrayList<Item> drawableItems = new ArrayList<>();
+    private Paint statusPainter = new Paint();
 
     /**
-     * 描画更新頻度
+     * 前回描き直した描画要素を囲む領域(ゲームフィールドの座標系)
+     * 描画要素が移動した後、移動前の位置を消すために使う
      */
-    private static final long REFRESH_INTERVAL = 1000 / 60; // 60fps = 16.6..ms
+    private final Bounds lastItemBounds = new Bounds();
+
+    /**
+     * 今回描き直す描画要素を囲む領域(ゲームフィールドの座標系)
+     */
+    private final Bounds itemBounds = new Bounds();
+
+    /**
+     * 見た目が変わったブロックを囲む領域(ゲームフィールドの座標系)
+     */
+    private final Bounds brickBounds = new Bounds();
+
+    /**
+     * 描き直す領域(ゲームフィールドの座標系)
+     */
+    private final Bounds fieldDirtyBounds = new Bounds();
+
+    /**
+     * 描き直す領域(Viewの座標系)
+     */
+    private final Rect dirtyRect = new Rect();
+
+    /**
+     * 描画スレッドがサーフェスをロックする領域(Viewの座標系)
+     */
+    private final Rect surfaceDirtyRect = new Rect();
+
+    /**
+     * 次のフレームでView全体を描き直すかどうか
+     * どのスレッドからも要求されるため、描画処理を行うスレッドは取り出すと同時に下ろす
+     */
+    private final AtomicBoolean fullRedraw = new AtomicBoolean(true);
+
+    /**
+     * ステータス表示領域の高さ(画素)
+     * ステータス表示のレイアウト(main.xml)と同じdp単位の寸法(status_height)から、画面の密度に合わせて求める
+     */
+    private int statusHeight = 0;
+
+    /**
+     * 描画キュー
+     * ゲームフィールドの表示要素をレイヤーの順番に描画する
+     */
+    private final RenderQueue renderQueue = new RenderQueue();
+
+    /**
+     * ブロックの画像のキャッシュ
+     * ブロックは画像にキャッシュして描画し、見た目が変わったブロックだけ描き直す
+     */
+    private final BrickLayer brickLayer = new BrickLayer();
+
+    /**
+     * ゲームフィールドの表示要素の描画先
+     * 描画のたびにキャンバスを差し替えて使い回す
+     */
+    private final CanvasRenderer canvasRenderer = new CanvasRenderer();
+
+    /**
+     * 処理時間の計測
+     */
+    private final FrameProfiler profiler = new FrameProfiler();
+
+    /**
+     * 描画の頻度の管理
+     * ゲームの更新はFixedTimestepで固定の時間刻みで行うため、描画の頻度はゲームの速さに影響しない
+     */
+    private final FramePacer pacer = new FramePacer();
+
+    /**
+     * ゲームの更新の時間管理
+     */
+    private FixedTimestep timestep = new FixedTimestep();
+
+    /**
+     * 描画時の補間係数
+     */
+    private float renderAlpha = 1.0f;
+
     /**
      * 更新ハンドラクラス
      * 一定時間後にupdateメソッドを実行させる
      */
     class RefreshHandler extends Handler {
+        /**
+         * 次のフレームの予定時刻(ナノ秒) 未定の場合は負の値
+         * 待機時間はミリ秒単位でしか指定できないため、予定時刻から毎回求めて誤差が貯まらないようにする
+         */
+        private long nextFrameNanos = -1;
+
         /**
          * 一定時間待機する
          */
         public void sleep(long delayMillis) {
             this.removeMessages(0);
+            nextFrameNanos = -1;
             sendMessageDelayed(obtainMessage(0), delayMillis);
         }
 
+        /**
+         * 次のフレームの予定時刻まで待機する
+         *
+         * @param nowNanos 現在のフレームの開始時刻(ナノ秒)
+         */
+        public void sleepUntilNextFrame(long nowNanos) {
+            final long interval = pacer.getIntervalNanos();
+            if(nextFrameNanos < 0 || nowNanos - nextFrameNanos > interval) {
+                // 大きく遅れた場合は遅れを取り戻そうとせず、現在時刻から数え直す
+                nextFrameNanos = nowNanos;
+            }
+            nextFrameNanos += interval;
+            this.removeMessages(0);
+            sendMessageDelayed(obtainMessage(0), Math.max(0, (nextFrameNanos - System.nanoTime()) / 1000000L));
+        }
+
         /**
          * sleepから復帰したらゲームの更新を行うためにBreakout#updateメソッドを呼び出す
+         * 前回からの経過時間に応じた回数だけ更新し、余った時間は描画時の補間に使う
          */
         @Override
         public void handleMessage(Message msg) {
-            BreakoutView.this.game.update();
-            sleep(REFRESH_INTERVAL);
+            final long now = System.nanoTime();
+            final boolean profiling = profiler.isEnabled();
+            if(profiling) {
+                profiler.onFrameStarted(now);
+            }
+            final int steps = timestep.advance(now);
+            for(int i = 0; i < steps; i++) {
+                BreakoutView.this.game.update();
+            }
+            if(steps == 0 || !isGameRunning()) {
+                // 更新しなかった場合も、入力や状態の変化を描画に反映する
+                BreakoutView.this.game.publishSnapshot();
+            }
+            lastUpdateNanos = System.nanoTime() - now;
+            if(profiling) {
+                profiler.onUpdateFinished(lastUpdateNanos);
+            }
+            renderAlpha = timestep.getAlpha();
+            // 更新しなかった場合も補間した位置で描画し直す
+            // 変化があった領域だけを描き直す
+            invalidateChanged();
+            if(isGameRunning()) {
+                sleepUntilNextFrame(now);
+            } else {
+                // 実行中でなければ次に起こされるまで休止する
+                parked = true;
+            }
         }
     };
     private RefreshHandler refreshHandler = new RefreshHandler();
 
+    /**
+     * 描画スレッド
+     * サーフェスが存在する間だけ動かす
+     */
+    private volatile RenderThread renderThread = null;
+
+    /**
+     * UIスレッドのゲームループ(RefreshHandler)を休止しているかどうか
+     */
+    private volatile boolean parked = false;
+
+    /**
+     * アクティビティが前面にあるかどうか
+     * 前面にない間はゲームループを再開しない
+     */
+    private volatile boolean resumed = true;
+
+    /**
+     * ステータス領域の表示を更新する処理
+     * 描画スレッドからUIスレッドへ渡すため、毎フレーム生成しないように使い回す
+     */
+    private final Runnable statusUpdater = new Runnable() {
+        @Override
+        public void run() {
+            showStatus();
+        }
+    };
+
     /**
      * ブロック崩しゲームのインスタンス
      */
-    private Breakout game = new Breakout(this);
+    private Breakout game = new Breakout(renderQueue, this);
+
+    /**
+     * ステータス領域の表示
+     */
+    private Hud hud;
 
     /**
      * コンストラクタ
@@ -100,7 +316,7 @@ public class BreakoutView extends View {
      */
     public BreakoutView(Context context) {
         super(context);
-        initialize();
+        initialize(null);
     }
 
     /**
@@ -111,7 +327,7 @@ public class BreakoutView extends View {
      */
     public BreakoutView(Context context, AttributeSet attrs) {
         super(context, attrs);
-        initialize();
+        initialize(attrs);
     }
 
     /**
@@ -123,42 +339,495 @@ public class BreakoutView extends View {
      */
     public BreakoutView(Context context, AttributeSet attrs, int defStyle) {
         super(context, attrs, defStyle);
-        initialize();
+        initialize(attrs);
     }
 
     /**
      * 初期化処理
+     *
+     * @param attrs 属性(指定しない場合はnull)
      */
-    private void initialize() {
+    private void initialize(AttributeSet attrs) {
+        final TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.BreakoutView);
+        renderOnSurface = a.getBoolean(R.styleable.BreakoutView_renderOnSurface, true);
+        a.recycle();
+        Log.d(TAG, renderOnSurface ? "描画スレッドから描画するよ" : "UIスレッドから描画するよ");
+
         setFocusable(true);
-        refreshHandler.sleep(0);
+        hud = new Hud(getContext().getResources());
+        statusHeight = getResources().getDimensionPixelSize(R.dimen.status_height);
+        statusPainter.setColor(STS_BG_COLOR);
+        profiler.watchPool("ball", game.getBallPool());
+        profiler.watchPool("bonus", game.getBonusPool());
+        profiler.watchPool("missile", game.getProjectiles().getPool());
+        if(renderOnSurface) {
+            // サーフェスが作られたら描画スレッドを開始する
+            getHolder().addCallback(this);
+        } else {
+            // SurfaceViewは通常onDrawメソッドが呼ばれないため、呼ばれるようにする
+            setWillNotDraw(false);
+            refreshHandler.sleep(0);
+        }
     }
 
     /**
-     * 描画要素を追加する
-     * 次のフレームからこの要素が描画される
-     * @param i 描画要素
+     * サーフェスが作られたときに呼ばれる
+     * 描画スレッドを開始する
+     *
+     * @param holder サーフェス
      */
-    public void addDrawingItem(Item i) {
-        drawableItems.add(i);
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        Log.d(TAG, "サーフェスが作られたよ");
+        timestep.reset();
+        renderThread = new RenderThread(this, holder);
+        renderThread.start();
     }
 
     /**
-     * 描画要素を削除する
-     * 次のフレームからこの要素が描画されなくなる
-     * @param i 描画要素
+     * サーフェスの大きさが変わったときに呼ばれる
+     * 大きさの変化はonSizeChangedメソッドで処理する
+     *
+     * @param holder サーフェス
+     * @param format ピクセル形式
+     * @param width 幅
+     * @param height 高さ
      */
-    public void removeDrawingItem(Item i)
-    {
-        drawableItems.remove(i);
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {}
+
+    /**
+     * サーフェスが破棄されるときに呼ばれる
+     * サーフェスが使えなくなる前に描画スレッドを終了させる
+     *
+     * @param holder サーフェス
+     */
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        Log.d(TAG, "サーフェスが破棄されるよ");
+        if(renderThread != null) {
+            renderThread.quitAndWait();
+            renderThread = null;
+        }
+        brickLayer.release();
+        resolutionScaler.release();
+    }
+
+    /**
+     * 描画スレッドから垂直同期ごとに呼ばれる
+     * 経過時間に応じてゲームを更新し、サーフェスへ描画する
+     * UIスレッドからの操作と同時に実行されないよう、更新はゲームのインスタンスで排他する
+     * 描画は更新処理が公開したスナップショットだけを参照するため、排他を解いてから行う
+     *
+     * @param holder 描画先のサーフェス
+     * @param frameTimeNanos フレームの開始時刻(ナノ秒)
+     */
+    boolean renderFrame(SurfaceHolder holder, long frameTimeNanos) {
+        if(!pacer.shouldRender(frameTimeNanos)) {
+            // 描画の頻度がディスプレイのリフレッシュレートより低いため、この垂直同期では描画しない
+            return true;
+        }
+        boolean statusChanged = false;
+        boolean running = true;
+        final boolean profiling;
+        final long start = System.nanoTime();
+        long t = start;
+        synchronized(game) {
+            profiling = profiler.isEnabled();
+            if(profiling) {
+                profiler.onFrameStarted(frameTimeNanos);
+            }
+            final int steps = timestep.advance(frameTimeNanos);
+            for(int i = 0; i < steps; i++) {
+                game.update();
+            }
+            if(steps == 0 || !isGameRunning()) {
+                // 更新しなかった場合も、入力や状態の変化を描画に反映する
+                game.publishSnapshot();
+            }
+            if(profiling) {
+                final long now = System.nanoTime();
+                profiler.onUpdateFinished(now - t);
+                t = now;
+            }
+            renderAlpha = timestep.getAlpha();
+            frameRect.set(displayRect);
+            frameScale = fieldScale;
+            statusChanged = requestStatus();
+            running = isGameRunning();
+        }
+
+        // 前回の描画から変化した領域だけをロックする
+        // ロックした領域の外側は、前回サーフェスに描画した内容が保たれる
+        final boolean full = fullRedraw.getAndSet(false);
+        final Canvas canvas;
+        boolean dirty = collectDirtyRect(frameRect, frameScale, full, surfaceDirtyRect);
+        if(profiling && !full) {
+            // 計測結果は毎フレーム変わるため、ステータス領域も描き直す
+            if(!dirty) {
+                surfaceDirtyRect.setEmpty();
+            }
+            surfaceDirtyRect.union(frameRect.left, 0, frameRect.right, statusHeight);
+            dirty = true;
+        }
+        if(dirty) {
+            // システムが領域を広げることがあるが、描画はロックした領域に切り抜かれるため全体を描いてよい
+            canvas = full ? holder.lockCanvas() : holder.lockCanvas(surfaceDirtyRect);
+        } else {
+            canvas = null;
+        }
+        if(canvas != null) {
+            try {
+                drawFrame(canvas, frameRect, frameScale);
+            } finally {
+                holder.unlockCanvasAndPost(canvas);
+            }
+        } else if(full) {
+            // サーフェスを描画できなかったため、次のフレームで全体を描き直す
+            fullRedraw.set(true);
+        }
+        final long end = System.nanoTime();
+        synchronized(game) {
+            if(profiling) {
+                profiler.onDrawFinished(end - t);
+            }
+            // 更新と描画にかかった時間に応じて、次のフレームから省く処理を変える
+            if(governor.onFrameMeasured(end - start)) {
+                // 解像度が変わることがあるため全体を描き直す
+                fullRedraw.set(true);
+            }
+        }
+        // ステータス領域のTextViewはUIスレッドでしか更新できない
+        // 表示する値が変わったフレームだけUIスレッドへ渡す
+        if(shouldShowStatus(statusChanged, frameTimeNanos, running)) {
+            post(statusUpdater);
+        }
+        // 実行中でなければ、この状態を描画したところで休止する
+        return running && resumed;
+    }
+
+    /**
+     * 描画スレッドが休止から再開したときに描画スレッドから呼ばれる
+     * 休止していた時間の分をまとめて更新しないよう、時間の計測をやり直す
+     */
+    void onLoopResumed() {
+        synchronized(game) {
+            timestep.reset();
+            profiler.restartInterval();
+        }
+        pacer.reset();
+    }
+
+    /**
+     * ゲームが実行中かどうか
+     *
+     * @return true 実行中
+     */
+    private boolean isGameRunning() {
+        return game.getState() == Breakout.State.RUNNING;
+    }
+
+    /**
+     * 再描画を要求する
+     * ゲームループが休止している場合は再開する
+     * 入力があったときや、ゲームの状態が変わったときに呼び出す
+     * どのスレッドから呼び出してもよい
+     */
+    public void requestRender() {
+        if(!resumed) {
+            return;
+        }
+        if(renderOnSurface) {
+            final RenderThread t = renderThread;
+            if(t != null) {
+                t.wake();
+            }
+        } else if(parked) {
+            parked = false;
+            timestep.reset();
+            profiler.restartInterval();
+            refreshHandler.sleep(0);
+        }
+    }
+
+    /**
+     * ゲームの状態が変わったときにゲームから呼ばれる
+     * 休止しているゲームループを再開して描画し直す
+     *
+     * @param from 変わる前の状態
+     * @param to 変わった後の状態
+     */
+    @Override
+    public void onStateChanged(Breakout.State from, Breakout.State to) {
+        requestRender();
+    }
+
+    /**
+     * ゲームループを休止する
+     * アクティビティが一時停止したときに呼び出す
+     */
+    public void pauseLoop() {
+        resumed = false;
+        if(renderOnSurface) {
+            final RenderThread t = renderThread;
+            if(t != null) {
+                t.park();
+            }
+        } else {
+            refreshHandler.removeMessages(0);
+            parked = true;
+        }
+    }
+
+    /**
+     * ゲームループを再開する
+     * アクティビティが再開したときに呼び出す
+     */
+    public void resumeLoop() {
+        resumed = true;
+        requestRender();
+    }
+
+    /**
+     * View全体の描き直しを要求する
+     * 描画要素の構成やViewの大きさが変わったときに呼び出す
+     */
+    private void invalidateAll() {
+        fullRedraw.set(true);
+        if(!renderOnSurface) {
+            postInvalidate();
+        }
     }
 
     /**
-     * 描画要素のリストを空にする
+     * 前回の描画から変化した領域だけ描き直しを要求する
+     * UIスレッドから呼び出すこと
      */
-    public void clearDrawingItems()
+    private void invalidateChanged() {
+        final boolean full = fullRedraw.getAndSet(false);
+        if(!collectDirtyRect(displayRect, fieldScale, full, dirtyRect)) {
+            return;
+        }
+        if(full) {
+            invalidate();
+        } else {
+            invalidate(dirtyRect);
+        }
+    }
+
+    /**
+     * 前回の描画から変化した領域を求める
+     * 描画要素の前回の位置と今回の位置、見た目が変わったブロックを合わせた領域を描き直す
+     * 描画処理を行うスレッドから呼び出す
+     *
+     * @param display 画面の大きさ
+     * @param scale ゲームフィールドの論理座標1あたりの画素数
+     * @param full true View全体を描き直す
+     * @param out 描き直す領域(Viewの座標系)
+     * @return 描き直す領域があればtrue
+     */
+    private boolean collectDirtyRect(Rect display, float scale, boolean full, Rect out) {
+        renderQueue.collectBounds(itemBounds);
+        if(full) {
+            lastItemBounds.set(itemBounds);
+            out.set(display);
+            return true;
+        }
+
+        final Bounds dirty = fieldDirtyBounds;
+        dirty.setEmpty();
+        if(!itemBounds.equals(lastItemBounds)) {
+            dirty.union(lastItemBounds);
+            dirty.union(itemBounds);
+        } else {
+            // 領域が変わらなくても、その中で描画要素が動いていることがあるため描き直す
+            dirty.set(itemBounds);
+        }
+        if(getBrickDirtyBounds(brickBounds)) {
+            dirty.union(brickBounds);
+        }
+        lastItemBounds.set(itemBounds);
+
+        if(dirty.isEmpty()) {
+            return false;
+        }
+        // 論理座標から画素に変換する(拡大したときの補間で広がる分も含める)
+        out.set((int)Math.floor(dirty.left * scale) - 1,
+                (int)Math.floor(dirty.top * scale) - 1,
+                (int)Math.ceil(dirty.right * scale) + 1,
+                (int)Math.ceil(dirty.bottom * scale) + 1);
+        out.offset(display.left, statusHeight);
+        return true;
+    }
+
+    /**
+     * 最新のスナップショットで、前回描画したときから見た目が変わったブロックを囲む領域を求める
+     * 描画処理を行うスレッドから呼び出す
+     *
+     * @param out 求めた領域の格納先(ゲームフィールドの座標系)
+     * @return true  見た目が変わったブロックがある
+     * @return false 見た目が変わったブロックはない
+     */
+    private boolean getBrickDirtyBounds(Bounds out) {
+        final RenderSnapshot snapshot = renderQueue.acquire();
+        return snapshot.hasBricks() && brickLayer.getDirtyBounds(snapshot, out);
+    }
+
+    /**
+     * UIスレッドで処理を行う
+     * UIスレッド以外から呼ばれた場合はUIスレッドへ処理を渡す
+     *
+     * @param r 処理
+     */
+    private void runOnUiThread(Runnable r) {
+        if(Looper.myLooper() == Looper.getMainLooper()) {
+            r.run();
+        } else {
+            post(r);
+        }
+    }
+
+    /**
+     * 処理時間の計測を開始、停止する
+     * 計測中は計測結果をステータス領域に重ねて表示し、ゲーム終了時にファイルへ書き出す
+     *
+     * @param enabled true 開始する
+     */
+    public void setProfilerEnabled(boolean enabled) {
+        synchronized(game) {
+            profiler.setEnabled(enabled);
+            game.setPhaseListener(enabled ? profiler : null);
+        }
+        invalidateAll();
+        requestRender();
+    }
+
+    /**
+     * ディスプレイが対応するリフレッシュレートを設定する
+     * 電力プロファイルと合わせて描画の頻度を選び直す
+     *
+     * @param rates 対応するリフレッシュレート(Hz)
+     * @param current 現在のリフレッシュレート(Hz)
+     */
+    public void setDisplayRates(float[] rates, float current) {
+        pacer.setDisplayRates(rates, current);
+        onFrameRateChanged();
+    }
+
+    /**
+     * ディスプレイの現在のリフレッシュレートが変わったときに呼び出す
+     *
+     * @param current 現在のリフレッシュレート(Hz)
+     */
+    public void onDisplayRateChanged(float current) {
+        pacer.onDisplayRateChanged(current);
+        onFrameRateChanged();
+    }
+
+    /**
+     * 電力プロファイルを設定する
+     * ゲームの速さは変えずに描画の頻度だけを変える
+     *
+     * @param profile 電力プロファイル
+     */
+    public void setPowerProfile(FramePacer.PowerProfile profile) {
+        pacer.setProfile(profile);
+        onFrameRateChanged();
+    }
+
+    /**
+     * ゲームフィールドを描画する解像度の倍率の上限を設定する
+     * 次に描画するフレームから反映する
+     *
+     * @param maxScale 倍率の上限(ResolutionScaler.MIN_SCALE以上ResolutionScaler.MAX_SCALE以下)
+     */
+    public void setMaxRenderScale(float maxScale) {
+        maxRenderScale = maxScale;
+        invalidateAll();
+        requestRender();
+    }
+
+    /**
+     * ディスプレイに要求するリフレッシュレートを取得する
+     *
+     * @return リフレッシュレート(Hz)
+     */
+    public float getPreferredDisplayRate() {
+        return pacer.getPreferredDisplayRate();
+    }
+
+    /**
+     * 描画の頻度が変わったときの処理
+     * 1フレームの予定時間を描画の間隔に合わせる
+     */
+    private void onFrameRateChanged() {
+        final long interval = pacer.getIntervalNanos();
+        synchronized(game) {
+            profiler.setFrameBudgetNanos(interval);
+            governor.setBudgetNanos(interval);
+        }
+    }
+
+    /**
+     * 処理時間に応じて処理を省くかどうかを設定する
+     * 省かない場合は常にアンチエイリアスと装飾を描画し、画面の解像度で描画する
+     *
+     * @param enabled true 省く
+     */
+    public void setLoadSheddingEnabled(boolean enabled) {
+        synchronized(game) {
+            governor.setEnabled(enabled);
+        }
+        invalidateAll();
+        requestRender();
+    }
+
+    /**
+     * 処理時間を計測中かどうか
+     *
+     * @return true 計測中
+     */
+    public boolean isProfilerEnabled() {
+        return profiler.isEnabled();
+    }
+
+    /**
+     * ゲームが終了(ゲームオーバー、ゲームクリア)したときにゲームから呼ばれる
+     * 計測中であれば計測結果をファイルへ書き出す
+     *
+     * @param state 終了したときの状態
+     */
+    @Override
+    public void onGameFinished(Breakout.State state) {
+        if(!profiler.isEnabled()) {
+            return;
+        }
+        profiler.dump(getProfileDir(), state.name());
+        profiler.reset();
+    }
+
+    /**
+     * 計測結果の書き出し先のディレクトリを取得する
+     *
+     * @return 書き出し先のディレクトリ
+     */
+    private File getProfileDir() {
+        File dir = getContext().getExternalFilesDir(null);
+        if(dir == null) {
+            dir = getContext().getFilesDir();
+        }
+        return dir;
+    }
+
+    /**
+     * 新しいゲームを始める前にゲームから呼ばれる
+     * 描画キューを空にする
+     */
+    @Override
+    public void onGameStarting()
     {
-        drawableItems.clear();
+        renderQueue.clear();
+        invalidateAll();
     }
 
     /**
@@ -182,58 +851,57 @@ public class BreakoutView extends View {
         Log.d(TAG, "x: " + displayRect.left + ", y: " + displayRect.top + ", width: " + displayRect.width() + ", height: " + displayRect.height());
 
         // ゲームフィールドの領域変更を通知
-        game.onGameFieldSizeChanged(new Rect(0, 0, displayRect.width(), displayRect.height() - STATUS_H));
-
-        // 残りボール数の表示
-        showRemainingBallCount();
-
-        // 残りブロック数の表示
-        showRemainingBrickCount();
-    }
+        // ゲームには画面の解像度によらない論理座標の大きさを渡す
+        final int fieldW = displayRect.width();
+        final int fieldH = displayRect.height() - statusHeight;
+        synchronized(game) {
+            fieldScale = fieldW > 0 ? (float)fieldW / Breakout.WORLD_WIDTH : 1.0f;
+            game.onGameFieldSizeChanged(new Bounds(0, 0, Breakout.WORLD_WIDTH, Math.round(fieldH / fieldScale)));
+            game.publishSnapshot();
+        }
+        invalidateAll();
 
-    /**
-     * 残り(ゲームフィールドに出ていない)のボール数の表示
-     */
-    private void showRemainingBallCount() {
-        TextView tv = (TextView)getRootView().findViewById(R.id.remaining_balls);
-        if(tv != null) {
-            Resources resource = getContext().getResources();
-            CharSequence newMessage = resource.getText(R.string.remaining_ball_count);
-            tv.setText(newMessage + Integer.toString(game.getRemainingBallCount()));
+        // 残りボール数、残りブロック数の表示
+        synchronized(game) {
+            requestStatus();
         }
+        showStatus();
     }
 
     /**
-     * 残りのブロック数を表示する
+     * ステータス領域に表示する値をゲームから取得してHUDに渡す
+     * ゲームのインスタンスで排他した状態で呼び出すこと
+     *
+     * @return true 表示する値が変わった
      */
-    private void showRemainingBrickCount() {
-        TextView tv = (TextView)getRootView().findViewById(R.id.remaining_bricks);
-        if(tv != null) {
-            Resources resource = getContext().getResources();
-            CharSequence newMessage = resource.getText(R.string.remaining_brick_count);
-            tv.setText(newMessage + Integer.toString(game.getRemainingBricksCount()));
-        }
+    private boolean requestStatus() {
+        /** A-05. ゲームの得点を表示する
+         * 得点表示用のUI部品(TextView)を配置する
+         * ブロックの耐久度ごとに破壊したときに得られる得点を決める
+         * 得点を加算していき表示する
+         */
+        return hud.request(game.getRemainingBallCount(), game.getRemainingBricksCount(),
+                game.getElapsedMilliseconds() / 1000, game.getScore());
     }
 
-    /** A-05. ゲームの得点を表示する
-     * 得点表示用のUI部品(TextView)を配置する
-     * ブロックの耐久度ごとに破壊したときに得られる得点を決める
-     * 得点を加算していき表示する
+    /**
+     * ゲームの状態に応じたメッセージを表示する
+     * ゲームから呼ばれる
      */
-    public void showScore() {
-        TextView tv = (TextView)getRootView().findViewById(R.id.score);
-        if(tv != null) {
-            Resources resource = getContext().getResources();
-            CharSequence newMessage = "得点：";
-            tv.setText(newMessage + Long.toString(game.getScore()));
-        }
+    @Override
+    public void onShowStateMessage() {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                showStateMessageOnUiThread();
+            }
+        });
     }
 
     /**
-     * ゲームの状態に応じたメッセージを表示する
-     *
+     * ゲームの状態に応じたメッセージを表示する(UIスレッド)
      */
-    public void showStateMessage() {
+    private void showStateMessageOnUiThread() {
         /** B-12. スタート、クリア、ゲームオーバー、一時停止中でメッセージを表示する
          * ゲームの開始が可能になったらスタート画面を出す
          * ゲームの実行中にスタートボタンが押されたら一時停止、再度スタートボタンが押されたら再開
@@ -265,8 +933,22 @@ public class BreakoutView extends View {
 
     /**
      * ゲームの状態に応じたメッセージを非表示にする
+     * ゲームから呼ばれる
+     */
+    @Override
+    public void onHideStateMessage() {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                hideStateMessageOnUiThread();
+            }
+        });
+    }
+
+    /**
+     * ゲームの状態に応じたメッセージを非表示にする(UIスレッド)
      */
-    public void hideStateMessage() {
+    private void hideStateMessageOnUiThread() {
         /** B-12. スタート、クリア、ゲームオーバー、一時停止中でメッセージを表示する
          * ゲームの開始が可能になったらスタート画面を出す
          * ゲームの実行中にスタートボタンが押されたら一時停止、再度スタートボタンが押されたら再開
@@ -289,42 +971,148 @@ public class BreakoutView extends View {
      */
     @Override
     public void onDraw(Canvas canvas) {
-        // 1. ステータス領域を描画する
-        // 色を設定する
-        canvas.drawColor(STS_BG_COLOR);
+        if(renderOnSurface) {
+            // 描画スレッドがサーフェスへ描画する
+            return;
+        }
+        final long t = System.nanoTime();
+        if(shouldShowStatus(requestStatus(), t, isGameRunning())) {
+            showStatus();
+        }
+        drawFrame(canvas, displayRect, fieldScale);
+        final long elapsed = System.nanoTime() - t;
+        if(profiler.isEnabled()) {
+            profiler.onDrawFinished(elapsed);
+        }
+        if(governor.onFrameMeasured(lastUpdateNanos + elapsed)) {
+            // 解像度が変わることがあるため全体を描き直す
+            invalidateAll();
+        }
+    }
 
-        // 残りボール数の表示
-        showRemainingBallCount();
+    /**
+     * ステータス領域のTextViewの表示を更新する
+     * UIスレッドから呼び出すこと
+     */
+    private void showStatus() {
+        // 残りボール数、残りブロック数、得点のうち値が変わったものだけ表示を更新する
+        hud.apply(getRootView());
+    }
 
-        // 残りブロック数の表示
-        showRemainingBrickCount();
+    /**
+     * 1フレーム分の描画を行う
+     * UIスレッドのonDrawメソッドと描画スレッドの両方から呼ばれる
+     * ゲームフィールドは描画キューが公開されたスナップショットから描画するため、ゲームのインスタンスで排他しなくてよい
+     *
+     * @param canvas 描画キャンバス
+     * @param display 画面の大きさ
+     * @param scale ゲームフィールドの論理座標1あたりの画素数
+     */
+    private void drawFrame(Canvas canvas, Rect display, float scale) {
+        // 0. 処理を省く段階を反映する
+        applyLoadLevel();
 
-        /** A-05. ゲームの得点を表示する
-         * 得点表示用のUI部品(TextView)を配置する
-         * ブロックの耐久度ごとに破壊したときに得られる得点を決める
-         * 得点を加算していき表示する
-         */
-        showScore();
+        // 1. ステータス領域を描画する
+        // ゲームフィールドと重ならないよう、ステータス領域だけを塗る
+        canvas.drawRect(display.left, 0, display.width(), statusHeight, statusPainter);
+        // 計測中は計測結果をステータス領域に重ねて表示する
+        profiler.drawOverlay(canvas, display.left, statusHeight);
 
         // 2. ゲームフィールドを描画する
-        canvas.drawRect(displayRect.left, STATUS_H, displayRect.width(), displayRect.height(), painter);
+        final int fieldW = display.width();
+        final int fieldH = display.height() - statusHeight;
+        if(fieldW <= 0 || fieldH <= 0) {
+            return;
+        }
+        if(resolutionScaler.isReduced()) {
+            // 縮小したビットマップへ描画してから拡大して転送する
+            final Canvas field = resolutionScaler.begin(fieldW, fieldH);
+            drawField(field, fieldW, fieldH, scale * resolutionScaler.getScale());
+            resolutionScaler.end(canvas, display.left, statusHeight, fieldW, fieldH);
+        } else {
+            canvas.save();
+            canvas.translate(display.left, statusHeight);
+            drawField(canvas, fieldW, fieldH, scale);
+            canvas.restore();
+        }
+    }
+
+    /**
+     * 処理を省く段階を描画に反映する
+     * 描画処理を行うスレッドから呼び出す
+     */
+    private void applyLoadLevel() {
+        final boolean effects = governor.isEffectsEnabled();
+        canvasRenderer.setAntiAlias(governor.isAntiAliasEnabled());
+        canvasRenderer.setEffectsEnabled(effects);
+        brickLayer.setFilterBitmap(effects);
+        resolutionScaler.setMaxScale(maxRenderScale);
+        resolutionScaler.setScale(governor.getResolutionScale());
+    }
+
+    /**
+     * ステータス領域の表示を更新するかどうかを判定する
+     * 処理を省いている間は、表示する値が変わっても前回の更新から一定の間隔を空ける
+     * ゲームが実行中でなければ、休止する前に最新の値を表示するため間隔によらず更新する
+     * 描画処理を行うスレッドから呼び出す
+     *
+     * @param changed 表示する値が変わったかどうか
+     * @param nowNanos 現在の時刻(ナノ秒)
+     * @param running ゲームが実行中かどうか
+     * @return true 更新する
+     */
+    private boolean shouldShowStatus(boolean changed, long nowNanos, boolean running) {
+        statusPending |= changed;
+        if(!statusPending) {
+            return false;
+        }
+        if(running && nowNanos - lastStatusNanos < governor.getHudIntervalNanos()) {
+            return false;
+        }
+        statusPending = false;
+        lastStatusNanos = nowNanos;
+        return true;
+    }
 
-        // ゲームフィールド内の描画要素を描画する
-        for(final Item item : drawableItems) {
-            // キャンバスの座標系に変換して描画する必要があるためオフセット値を渡す
-            item.draw(canvas, displayRect.left, STATUS_H);
+    /**
+     * ゲームフィールドを描画する
+     * キャンバスの原点をゲームフィールドの左上に合わせてから呼び出すこと
+     *
+     * @param canvas 描画キャンバス
+     * @param width ゲームフィールドの幅(画素)
+     * @param height ゲームフィールドの高さ(画素)
+     * @param scale 論理座標1あたりの画素数
+     */
+    private void drawField(Canvas canvas, int width, int height, float scale) {
+        canvas.drawRect(0, 0, width, height, painter);
+
+        // ゲームフィールド内の表示要素をレイヤーの順番に描画する
+        // 表示要素は論理座標で描画し、キャンバスの倍率で画素に変換する
+        canvas.save();
+        canvas.scale(scale, scale);
+        canvasRenderer.setCanvas(canvas);
+        final RenderSnapshot snapshot = renderQueue.acquire();
+        if(snapshot.hasBricks()) {
+            // ブロックはキャッシュした画像を描画先のキャンバスへ転送する
+            brickLayer.draw(canvas, snapshot, 0, 0, scale);
         }
+        RenderQueue.drawItems(snapshot, canvasRenderer, 0, 0, renderAlpha);
+        canvasRenderer.setCanvas(null);
+        canvas.restore();
     }
 
     /**
      * 現在のパッドの位置を取得する
      *
-     * @return パッドの中心座標
+     * @return パッドの中心座標(Viewの座標系)
      */
     public Point getPadPosition() {
-        final Point c = game.getPadPosition();
-        Point p = new Point(c.x, c.y);
-        p.offset(displayRect.left, STATUS_H);
+        Point p;
+        synchronized(game) {
+            final Position c = game.getPadPosition();
+            p = new Point(Math.round(c.x * fieldScale), Math.round(c.y * fieldScale));
+        }
+        p.offset(displayRect.left, statusHeight);
 
         return p;
     }
@@ -344,7 +1132,11 @@ public class BreakoutView extends View {
      * @param color パッドに設定する色
      */
     public void setPadColor(final int color) {
-        game.setPadColor(color);
+        synchronized(game) {
+            game.setPadColor(color);
+        }
+        // ゲームループが休止していても新しい色で描画し直す
+        requestRender();
     }
 
     /**
@@ -356,6 +1148,18 @@ public class BreakoutView extends View {
      * @param dy Y方向の移動量
      */
     public void movePad(final float dx, final float dy) {
+        synchronized(game) {
+            movePadLocked(dx, dy);
+        }
+    }
+
+    /**
+     * パッドを移動させる(ゲームのインスタンスで排他済み)
+     *
+     * @param dx X方向の移動量
+     * @param dy Y方向の移動量
+     */
+    private void movePadLocked(final float dx, final float dy) {
         /**
          * B-06．パッドとボールを動かす
          * 当たり判定は考慮せずパッドとボールを動かす
@@ -389,10 +1193,39 @@ public class BreakoutView extends View {
         game.movePad((int)px, (int)py);
     }
     
+    /**
+     * ゲームフィールドが押されたときの処理
+     * ゲーム中は押している間ミサイルを撃ち続ける
+     */
+    public void onTouchDown(final float x, final float y) {
+        synchronized(game) {
+            game.onTouchDown();
+        }
+    }
+
+    /**
+     * ゲームフィールドのタッチが取り消されたときの処理
+     * ミサイルを撃つのをやめるだけで、ゲームの状態は変えない
+     */
+    public void onTouchCancel() {
+        synchronized(game) {
+            game.onTouch();
+        }
+    }
+
     /**
      * ゲームフィールドがタッチされたときの処理
      */
     public void onTouch(final float x, final float y) {
+        synchronized(game) {
+            onTouchLocked(x, y);
+        }
+    }
+
+    /**
+     * ゲームフィールドがタッチされたときの処理(ゲームのインスタンスで排他済み)
+     */
+    private void onTouchLocked(final float x, final float y) {
         if(game.getState() == Breakout.State.GAMEOVER
                 || game.getState() == Breakout.State.CLEAR) {
             // ゲームオーバーかゲームクリアの状態でタッチされたら、開始可能状態に戻す
@@ -413,6 +1246,15 @@ public class BreakoutView extends View {
      * スタートボタンが押下されたときの処理
      */
     public void onPushStartButton() {
+        synchronized(game) {
+            onPushStartButtonLocked();
+        }
+    }
+
+    /**
+     * スタートボタンが押下されたときの処理(ゲームのインスタンスで排他済み)
+     */
+    private void onPushStartButtonLocked() {
         Breakout.State state = game.getState();
         switch(state){
             case READY:
@@ -432,99 +1274,4 @@ public class BreakoutView extends View {
                 break;
         }
     }
-
-    /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-     * 時間表示用のUI部品(Chronometer)を配置する
-     * ゲーム内時間を管理する
-     * 開始/停止/一時停止/再開を行う
-     */
-    /**
-     * 経過時間を表示するChronometerを開始する
-     */
-    public void startElapsedTimeCounter() {
-        final Breakout.State state = game.getState();
-        if (state != Breakout.State.RUNNING) {
-            return;
-        }
-        Chronometer counter = (Chronometer)getRootView().findViewById(R.id.elapsed_time);
-        if(counter != null) {
-            game.setElapsedMilliseconds(0);
-            counter.setBase(SystemClock.elapsedRealtime());
-            counter.start();
-        }
-    }
-
-    /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-     * 時間表示用のUI部品(Chronometer)を配置する
-     * ゲーム内時間を管理する
-     * 開始/停止/一時停止/再開を行う
-     */
-    /**
-     * 経過時間を表示するChronometerを停止する
-     */
-    public void stopElapsedTimeCounter() {
-        final Breakout.State state = game.getState();
-        if (state != Breakout.State.RUNNING
-                && state != Breakout.State.CLEAR
-                && state != Breakout.State.GAMEOVER)
-            return;
-        Chronometer counter = (Chronometer)getRootView().findViewById(R.id.elapsed_time);
-        if(counter != null) {
-            counter.stop();
-        }
-    }
-
-    /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-     * 時間表示用のUI部品(Chronometer)を配置する
-     * ゲーム内時間を管理する
-     * 開始/停止/一時停止/再開を行う
-     */
-    /**
-     * 経過時間を表示するChronometerを一時停止する
-     * Chronometerは内部時間が止まらないため、再開時のために一時停止した時間を覚えておく
-     */
-    public void pauseElapsedTimeCounter() {
-        final Breakout.State state = game.getState();
-        if (state != Breakout.State.RUNNING
-                && state != Breakout.State.PAUSING)
-            return;
-        Chronometer counter = (Chronometer)getRootView().findViewById(R.id.elapsed_time);
-        if(counter != null) {
-            counter.stop();
-            game.setElapsedMilliseconds(counter.getBase() - SystemClock.elapsedRealtime());
-        }
-    }
-
-    /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-     * 時間表示用のUI部品(Chronometer)を配置する
-     * ゲーム内時間を管理する
-     * 開始/停止/一時停止/再開を行う
-     */
-    /**
-     * 経過時間を表示するChronometerを再開する
-     * Chronometerは内部時間が止まらないため、一時停止の時間に巻き戻す
-     */
-    public void resumeElapsedTimeCounter() {
-        final Breakout.State state = game.getState();
-        if (state != Breakout.State.RUNNING
-                && state != Breakout.State.PAUSING)
-            return;
-        Chronometer counter = (Chronometer)getRootView().findViewById(R.id.elapsed_time);
-        if(counter != null) {
-            counter.setBase(SystemClock.elapsedRealtime() + game.getElapsedMilliseconds());
-            counter.start();
-        }
-    }
-
-    // [Task 17] スタートから一定時間経つとボールのスピードが上がる
-    /**
-     * ゲーム開始からの経過時間(ミリ秒)を取得する
-     */
-    private long getElapsedTime() {
-        Chronometer counter = (Chronometer)findViewById(R.id.elapsed_time);
-        if(counter != null) {
-            return SystemClock.elapsedRealtime() - counter.getBase();
-        }
-        return 0;
-    }
 }
@@ -1,10 +1,5 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.Rect;
-import android.view.View;
-
 /**
  * ブロックを表す基底クラス
  * 表示要素なのでItemクラスを継承する
@@ -97,6 +92,23 @@ abstract class Brick extends Item {
      */
     protected boolean broken = false;
 
+    /**
+     * 所属するブロックの格子
+     * 破壊されたときに通知する
+     */
+    private BrickGrid grid = null;
+
+    /**
+     * 格子上のセル番号
+     */
+    private int cellIndex = -1;
+
+    /**
+     * ブロックの色の番号
+     * 同じ色のブロックをまとめて描画するときの振り分けに使う
+     */
+    private int paletteIndex = BrickPalette.indexOf(GameColor.WHITE);
+
     /**
      * コンストラクタ
      *
@@ -145,16 +157,16 @@ abstract class Brick extends Item {
      * ブロックの描画を行う
      * Item#drawメソッドをオーバーライドして、ブロック独自の描画処理を実装する
      *
-     * @param canvas 描画するキャンバス
+     * @param renderer 描画先
      * @param x 描画を開始する座標(X座標)
      * @param y 描画を開始する座標(Y座標)
      */
     @Override
-    public void draw(Canvas canvas, int x, int y) {
+    public void draw(Renderer renderer, int x, int y) {
         if(broken) {
             return;
         }
-        canvas.drawRect(x + rect.left, y + rect.top, x + rect.right - SPACE, y + rect.bottom - SPACE, painter);
+        renderer.fillRect(x + rect.left, y + rect.top, x + rect.right - SPACE, y + rect.bottom - SPACE, color);
     }
 
     /**
@@ -162,7 +174,69 @@ abstract class Brick extends Item {
      *
      */
     public void crash() {
+        setBroken();
+    }
+
+    /**
+     * ブロックを破壊された状態にする
+     * 所属する格子へ破壊されたことを通知する
+     */
+    protected void setBroken() {
+        if(broken) {
+            return;
+        }
         broken = true;
+        if(grid != null) {
+            grid.onBrickBroken(cellIndex);
+        }
+    }
+
+    /**
+     * ブロックの色の番号を取得する
+     *
+     * @return BrickPaletteの色の番号
+     */
+    public int getPaletteIndex() { return paletteIndex; }
+
+    /**
+     * ブロックの色を設定する
+     * 色に対応するBrickPaletteの色の番号に切り替える
+     *
+     * @param color ブロックの色
+     */
+    @Override
+    public void setColor(final int color) {
+        this.color = color;
+        paletteIndex = BrickPalette.indexOf(color);
+    }
+
+    /**
+     * 他の表示要素の描画に必要な状態をコピーする
+     * Item#copyFromメソッドをオーバーライドして、破壊されたかどうかと色の番号もコピーする
+     * 所属する格子はコピーしない(写しが破壊されても格子へは通知しない)
+     *
+     * @param src コピー元の表示要素
+     */
+    @Override
+    public void copyFrom(Item src) {
+        super.copyFrom(src);
+        if(src instanceof Brick) {
+            final Brick brick = (Brick)src;
+            type = brick.type;
+            broken = brick.broken;
+            paletteIndex = brick.paletteIndex;
+        }
+    }
+
+    /**
+     * 所属する格子とセル番号を設定する
+     *
+     * @param grid ブロックの格子
+     * @param cellIndex 格子上のセル番号
+     */
+    void attach(BrickGrid grid, int cellIndex) {
+        this.grid = grid;
+        this.cellIndex = cellIndex;
     }
 
     /**
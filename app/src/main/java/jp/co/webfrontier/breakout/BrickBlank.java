@@ -1,7 +1,5 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Color;
-
 /**
  * ブロック（なし）
  */
@@ -18,8 +16,7 @@ public class BrickBlank extends Brick {
         type = Type.BLANK;
 
         // ペインターへ色設定
-        color = Color.GRAY;
-        painter.setColor(color);
+        setColor(GameColor.GRAY);
     }
 
     /**
@@ -35,8 +32,7 @@ public class BrickBlank extends Brick {
         type = Type.BLANK;
 
         // ペインターへ色設定
-        this.color = Color.BLACK;
-        painter.setColor(color);
+        setColor(GameColor.BLACK);
     }
 
     /** A-05. ゲームの得点を表示する
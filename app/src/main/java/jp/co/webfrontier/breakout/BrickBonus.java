@@ -1,7 +1,5 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Color;
-
 /** A-06. ボーナスブロックの追加
  * ボーナスアイテムを出すブロック
  * Brickを継承して作成する
@@ -37,8 +35,7 @@ public class BrickBonus extends Brick {
         type = Type.BONUS;
 
         // ペインターへ色設定
-        color = Color.MAGENTA;
-        painter.setColor(color);
+        setColor(GameColor.MAGENTA);
     }
 
     @Override
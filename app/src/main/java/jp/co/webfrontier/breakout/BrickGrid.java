@@ -0,0 +1,309 @@
+package jp.co.webfrontier.breakout;
+
+import java.util.BitSet;
+
+/**
+ * ブロックを格子状に並べて管理するクラス
+ * ブロックは等間隔の格子上に配置されるため、座標から行と列を直接求めることができる
+ * 当たり判定では、対象の領域が重なるセルのブロックだけを調べればよい
+ * 壊れていないブロックのセルと残りブロック数は、ブロックが破壊されるたびに更新する
+ */
+public class BrickGrid {
+    /**
+     * デバッグログ用タグ
+     */
+    private static final String TAG = "BrickGrid";
+
+    /**
+     * 行数
+     */
+    private final int rows;
+
+    /**
+     * 列数
+     */
+    private final int cols;
+
+    /**
+     * ブロックの配列
+     */
+    private final Brick[][] bricks;
+
+    /**
+     * 壊れていないブロックがあるセル
+     * セル番号(行 * 列数 + 列)のビットが立っていれば壊れていない
+     */
+    private final BitSet live;
+
+    /**
+     * 壊れていない、破壊可能なブロックの数
+     * 残りブロック数のカウントに壊れないブロックは含まない
+     */
+    private int remainingCount = 0;
+
+    /**
+     * 格子の左上の座標(X座標)
+     */
+    private int originX = 0;
+
+    /**
+     * 格子の左上の座標(Y座標)
+     */
+    private int originY = 0;
+
+    /**
+     * 1セルの幅
+     */
+    private int cellWidth = 0;
+
+    /**
+     * 1セルの高さ
+     */
+    private int cellHeight = 0;
+
+    /**
+     * コンストラクタ
+     *
+     * @param rows 行数
+     * @param cols 列数
+     */
+    public BrickGrid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.bricks = new Brick[rows][cols];
+        this.live = new BitSet(rows * cols);
+    }
+
+    /**
+     * 行数を取得する
+     *
+     * @return 行数
+     */
+    public int getRowCount() { return rows; }
+
+    /**
+     * 列数を取得する
+     *
+     * @return 列数
+     */
+    public int getColCount() { return cols; }
+
+    /**
+     * 指定したセルのブロックを取得する
+     *
+     * @param row 行
+     * @param col 列
+     * @return ブロック
+     */
+    public Brick get(int row, int col) {
+        return bricks[row][col];
+    }
+
+    /**
+     * 指定したセルにブロックを設定する
+     *
+     * @param row 行
+     * @param col 列
+     * @param brick ブロック
+     */
+    public void set(int row, int col, Brick brick) {
+        final int index = row * cols + col;
+        final Brick old = bricks[row][col];
+        if(old != null) {
+            old.attach(null, -1);
+            if(live.get(index) && isBreakable(old)) {
+                remainingCount--;
+            }
+            live.clear(index);
+        }
+
+        bricks[row][col] = brick;
+        if(brick != null) {
+            brick.attach(this, index);
+            if(brick.isUnBroken()) {
+                live.set(index);
+                if(isBreakable(brick)) {
+                    remainingCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 指定したセルに壊れていないブロックがあるか
+     *
+     * @param row 行
+     * @param col 列
+     * @return true  壊れていないブロックがある
+     * @return false ブロックがないか、壊れている
+     */
+    public boolean isLive(int row, int col) {
+        return live.get(row * cols + col);
+    }
+
+    /**
+     * 残りブロック数を取得する
+     * ブロックが破壊されるたびに更新しているため、格子全体を調べることはない
+     *
+     * @return 残りブロック数
+     */
+    public int getRemainingCount() {
+        return remainingCount;
+    }
+
+    /**
+     * ブロックが破壊されたときにブロックから呼ばれる
+     *
+     * @param cellIndex 破壊されたブロックのセル番号
+     */
+    void onBrickBroken(int cellIndex) {
+        if(!live.get(cellIndex)) {
+            return;
+        }
+        live.clear(cellIndex);
+        if(isBreakable(bricks[cellIndex / cols][cellIndex % cols])) {
+            remainingCount--;
+        }
+    }
+
+    /**
+     * セル番号からブロックを取得する
+     *
+     * @param cellIndex セル番号
+     * @return ブロック
+     */
+    public Brick get(int cellIndex) {
+        return bricks[cellIndex / cols][cellIndex % cols];
+    }
+
+    /**
+     * 格子の右端の座標を取得する
+     *
+     * @return 格子の右端の座標(X座標)
+     */
+    public int getRight() { return originX + cols * cellWidth; }
+
+    /**
+     * 格子の下端の座標を取得する
+     *
+     * @return 格子の下端の座標(Y座標)
+     */
+    public int getBottom() { return originY + rows * cellHeight; }
+
+    /**
+     * 格子の左上の座標(X座標)を取得する
+     *
+     * @return 格子の左上の座標(X座標)
+     */
+    public int getOriginX() { return originX; }
+
+    /**
+     * 格子の左上の座標(Y座標)を取得する
+     *
+     * @return 格子の左上の座標(Y座標)
+     */
+    public int getOriginY() { return originY; }
+
+    /**
+     * 1セルの幅を取得する
+     *
+     * @return 1セルの幅
+     */
+    public int getCellWidth() { return cellWidth; }
+
+    /**
+     * 1セルの高さを取得する
+     *
+     * @return 1セルの高さ
+     */
+    public int getCellHeight() { return cellHeight; }
+
+    /**
+     * 残りブロック数に数えるブロックか
+     *
+     * @param brick ブロック
+     * @return true  数える
+     * @return false 数えない
+     */
+    private static boolean isBreakable(Brick brick) {
+        /** A-02. 壊れないブロックを作る
+         * Brickを継承して新たな壊れないブロックのクラスを作成
+         * crashメソッドをオーバーライドして、ブロックが壊れないようにする
+         * 偶数行、偶数列の位置に壊れないブロックを配置する
+         * 残りブロック数のカウントに壊れないブロックを含まないようにする
+         */
+        return brick.getType() == Brick.Type.NORMAL;
+    }
+
+    /**
+     * 格子の位置とセルの大きさを決め、各ブロックをセルの位置に配置する
+     *
+     * @param x 格子の左上の座標(X座標)
+     * @param y 格子の左上の座標(Y座標)
+     * @param w 1セルの幅
+     * @param h 1セルの高さ
+     */
+    public void layout(int x, int y, int w, int h) {
+        originX = x;
+        originY = y;
+        cellWidth = w;
+        cellHeight = h;
+
+        for(int row = 0; row < rows; row++) {
+            for(int col = 0; col < cols; col++) {
+                final Brick brick = bricks[row][col];
+                if(brick == null) {
+                    continue;
+                }
+                brick.setSize(w, h);
+                brick.move(x + col * w, y + row * h);
+            }
+        }
+    }
+
+    /**
+     * 指定した領域が重なるセルの範囲を求める
+     * 範囲はleftとrightに列、topとbottomに行を格納する(いずれも端の値を含む)
+     *
+     * @param r 調べる領域
+     * @param range 求めたセルの範囲の格納先
+     *
+     * @return true  重なるセルがある
+     * @return false 重なるセルがない
+     */
+    public boolean getCellRange(Bounds r, Bounds range) {
+        if(cellWidth <= 0 || cellHeight <= 0) {
+            return false;
+        }
+
+        final int right = originX + cols * cellWidth;
+        final int bottom = originY + rows * cellHeight;
+        // Bounds#intersectsと同じく、辺が接しているだけの場合は重なっていないとみなす
+        if(r.right <= originX || r.left >= right || r.bottom <= originY || r.top >= bottom) {
+            return false;
+        }
+
+        range.set(clamp((r.left - originX) / cellWidth, cols),
+                  clamp((r.top - originY) / cellHeight, rows),
+                  clamp((r.right - 1 - originX) / cellWidth, cols),
+                  clamp((r.bottom - 1 - originY) / cellHeight, rows));
+        return true;
+    }
+
+    /**
+     * インデックスを0以上、上限未満に収める
+     *
+     * @param i インデックス
+     * @param n 上限
+     * @return 収めたインデックス
+     */
+    private static int clamp(int i, int n) {
+        if(i < 0) {
+            return 0;
+        }
+        if(i >= n) {
+            return n - 1;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,353 @@
+package jp.co.webfrontier.breakout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+
+import java.util.Arrays;
+
+/**
+ * ブロックの画像をキャッシュするレイヤー
+ * ブロックは破壊されたときや色が変わったときにしか見た目が変わらないため、
+ * オフスクリーンのビットマップに描いておき、毎フレームはビットマップを1回転送するだけにする
+ * スナップショットのブロックと前回ビットマップに描いたブロックを比べ、見た目が変わったセルだけ描き直す
+ * 全体を描き直すときは、同じ色のブロックを1つの図形にまとめて色ごとに1回で描画する
+ */
+public class BrickLayer {
+    /**
+     * デバッグログ用タグ
+     */
+    private static final String TAG = "BrickLayer";
+
+    /**
+     * ブロックの画像
+     * 描画先の画素と1対1になるよう、ゲームフィールドの論理座標に描画先の倍率を掛けた大きさで持つ
+     */
+    private Bitmap bitmap = null;
+
+    /**
+     * ブロックの画像を描いたときの倍率(論理座標1あたりの画素数)
+     */
+    private float drawnScale = 0;
+
+    /**
+     * ブロックの画像を転送するペインター
+     * 画像は描画先の画素と同じ大きさで持つため、補間するのは倍率の端数で画素がずれるときだけ
+     */
+    private final Paint blitPainter = new Paint();
+
+    /**
+     * ブロックの画像に描画するキャンバス
+     */
+    private final Canvas layerCanvas = new Canvas();
+
+    /**
+     * セルを透明に消すペインター
+     */
+    private final Paint eraser = new Paint();
+
+    /**
+     * ブロックの画像へ1つずつ描き直すときの描画先
+     */
+    private final CanvasRenderer layerRenderer = new CanvasRenderer();
+
+    /**
+     * 色ごとのブロックの図形
+     * BrickPaletteの色の番号で引く
+     */
+    private Path[] batches = new Path[0];
+
+    /**
+     * 色ごとのペインター
+     * BrickPaletteの色の番号で引く
+     */
+    private Paint[] painters = new Paint[0];
+
+    /**
+     * 画像に描いた格子の行数
+     */
+    private int drawnRows = 0;
+
+    /**
+     * 画像に描いた格子の列数
+     */
+    private int drawnCols = 0;
+
+    /**
+     * 画像に描いた格子の左上の座標(X座標)
+     */
+    private int drawnOriginX = 0;
+
+    /**
+     * 画像に描いた格子の左上の座標(Y座標)
+     */
+    private int drawnOriginY = 0;
+
+    /**
+     * 画像に描いた格子の1セルの幅
+     */
+    private int drawnCellWidth = 0;
+
+    /**
+     * 画像に描いた格子の1セルの高さ
+     */
+    private int drawnCellHeight = 0;
+
+    /**
+     * セルにブロックを描いたか(セル番号で引く)
+     */
+    private boolean[] drawnVisible = new boolean[0];
+
+    /**
+     * セルに描いたブロックの色(セル番号で引く)
+     */
+    private int[] drawnColors = new int[0];
+
+    /**
+     * 見た目が変わったセルを描き直すときのセルの領域
+     */
+    private final Bounds cellRect = new Bounds();
+
+    /**
+     * コンストラクタ
+     */
+    public BrickLayer() {
+        eraser.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+        layerRenderer.setCanvas(layerCanvas);
+        blitPainter.setFilterBitmap(true);
+    }
+
+    /**
+     * ブロックの画像をキャンバスへ描画する
+     * 前回描いたときから見た目が変わったブロックがあれば、そのセルだけ描き直してから描画する
+     * キャンバスには論理座標から画素への倍率(scale)が掛かっていること
+     *
+     * @param canvas 描画キャンバス
+     * @param snapshot 描画するスナップショット
+     * @param x 描画を開始する座標(X座標)
+     * @param y 描画を開始する座標(Y座標)
+     * @param scale キャンバスの倍率(論理座標1あたりの画素数)
+     */
+    public void draw(Canvas canvas, RenderSnapshot snapshot, int x, int y, float scale) {
+        final int w = (int)Math.ceil(snapshot.getBrickRight() * scale);
+        final int h = (int)Math.ceil(snapshot.getBrickBottom() * scale);
+        if(w <= 0 || h <= 0) {
+            return;
+        }
+
+        if(bitmap == null || bitmap.getWidth() != w || bitmap.getHeight() != h || scale != drawnScale) {
+            // 格子の大きさか描画先の解像度が変わったので作り直す
+            release();
+            bitmap = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+            // ビットマップを設定するとキャンバスの倍率が戻るため、設定してから倍率を掛ける
+            layerCanvas.setBitmap(bitmap);
+            layerCanvas.scale(scale, scale);
+            drawnScale = scale;
+            rebuild(snapshot);
+        } else if(!isSameLayout(snapshot)) {
+            rebuild(snapshot);
+        } else {
+            patch(snapshot);
+        }
+
+        // 画像は既に画素の大きさなので、キャンバスの倍率を打ち消して等倍で転送する
+        canvas.save();
+        canvas.scale(1 / scale, 1 / scale);
+        canvas.drawBitmap(bitmap, x * scale, y * scale, blitPainter);
+        canvas.restore();
+    }
+
+    /**
+     * 前回描いたときから見た目が変わったブロックを囲む領域を求める
+     * 次にdrawを呼び出したときに描き直される領域になる
+     *
+     * @param snapshot 描画するスナップショット
+     * @param out 求めた領域の格納先(ゲームフィールドの座標系)
+     * @return true  見た目が変わったブロックがある
+     * @return false 見た目が変わったブロックはない
+     */
+    public boolean getDirtyBounds(RenderSnapshot snapshot, Bounds out) {
+        out.setEmpty();
+        if(bitmap == null || !isSameLayout(snapshot)) {
+            out.set(snapshot.getBrickOriginX(), snapshot.getBrickOriginY(),
+                    snapshot.getBrickRight(), snapshot.getBrickBottom());
+            return !out.isEmpty();
+        }
+        final int n = drawnRows * drawnCols;
+        for(int i = 0; i < n; i++) {
+            if(isChanged(snapshot, i)) {
+                getCellRect(i, cellRect);
+                out.union(cellRect);
+            }
+        }
+        return !out.isEmpty();
+    }
+
+    /**
+     * ブロックの画像を拡大するときに補間するかどうかを設定する
+     *
+     * @param filter true 補間する
+     */
+    public void setFilterBitmap(boolean filter) {
+        blitPainter.setFilterBitmap(filter);
+    }
+
+    /**
+     * ブロックの画像を破棄する
+     */
+    public void release() {
+        if(bitmap != null) {
+            layerCanvas.setBitmap(null);
+            bitmap.recycle();
+            bitmap = null;
+        }
+    }
+
+    /**
+     * スナップショットの格子の配置が、前回描いた格子と同じか
+     *
+     * @param snapshot スナップショット
+     * @return true 同じ
+     */
+    private boolean isSameLayout(RenderSnapshot snapshot) {
+        return snapshot.getBrickRowCount() == drawnRows
+                && snapshot.getBrickColCount() == drawnCols
+                && snapshot.getBrickOriginX() == drawnOriginX
+                && snapshot.getBrickOriginY() == drawnOriginY
+                && snapshot.getBrickCellWidth() == drawnCellWidth
+                && snapshot.getBrickCellHeight() == drawnCellHeight;
+    }
+
+    /**
+     * セルの見た目が前回描いたときから変わったか
+     *
+     * @param snapshot スナップショット
+     * @param cellIndex セル番号
+     * @return true 変わった
+     */
+    private boolean isChanged(RenderSnapshot snapshot, int cellIndex) {
+        final Brick brick = snapshot.getBrick(cellIndex);
+        final boolean visible = brick != null && brick.isUnBroken();
+        if(visible != drawnVisible[cellIndex]) {
+            return true;
+        }
+        return visible && brick.getColor() != drawnColors[cellIndex];
+    }
+
+    /**
+     * セルに描いたブロックを記録する
+     *
+     * @param snapshot スナップショット
+     * @param cellIndex セル番号
+     */
+    private void record(RenderSnapshot snapshot, int cellIndex) {
+        final Brick brick = snapshot.getBrick(cellIndex);
+        drawnVisible[cellIndex] = brick != null && brick.isUnBroken();
+        drawnColors[cellIndex] = brick != null ? brick.getColor() : 0;
+    }
+
+    /**
+     * セルの領域を求める
+     *
+     * @param cellIndex セル番号
+     * @param out 求めた領域の格納先
+     */
+    private void getCellRect(int cellIndex, Bounds out) {
+        final int left = drawnOriginX + (cellIndex % drawnCols) * drawnCellWidth;
+        final int top = drawnOriginY + (cellIndex / drawnCols) * drawnCellHeight;
+        out.set(left, top, left + drawnCellWidth, top + drawnCellHeight);
+    }
+
+    /**
+     * 全てのブロックを描き直す
+     *
+     * @param snapshot スナップショット
+     */
+    private void rebuild(RenderSnapshot snapshot) {
+        bitmap.eraseColor(Color.TRANSPARENT);
+
+        drawnRows = snapshot.getBrickRowCount();
+        drawnCols = snapshot.getBrickColCount();
+        drawnOriginX = snapshot.getBrickOriginX();
+        drawnOriginY = snapshot.getBrickOriginY();
+        drawnCellWidth = snapshot.getBrickCellWidth();
+        drawnCellHeight = snapshot.getBrickCellHeight();
+        final int n = drawnRows * drawnCols;
+        if(drawnVisible.length < n) {
+            drawnVisible = new boolean[n];
+            drawnColors = new int[n];
+        }
+
+        final int colorCount = BrickPalette.size();
+        if(batches.length < colorCount) {
+            final int c = batches.length;
+            batches = Arrays.copyOf(batches, colorCount);
+            painters = Arrays.copyOf(painters, colorCount);
+            for(int i = c; i < colorCount; i++) {
+                batches[i] = new Path();
+                painters[i] = new Paint();
+                painters[i].setColor(BrickPalette.getColor(i));
+            }
+        }
+        for(int i = 0; i < colorCount; i++) {
+            batches[i].rewind();
+        }
+
+        // ブロックを色ごとの図形に振り分ける
+        for(int i = 0; i < n; i++) {
+            final Brick brick = snapshot.getBrick(i);
+            if(brick != null) {
+                addTo(batches[brick.getPaletteIndex()], brick);
+            }
+            record(snapshot, i);
+        }
+
+        // 色ごとに1回で描画する
+        for(int i = 0; i < colorCount; i++) {
+            if(!batches[i].isEmpty()) {
+                layerCanvas.drawPath(batches[i], painters[i]);
+            }
+        }
+    }
+
+    /**
+     * ブロックの描画領域を図形に追加する
+     * 破壊されたブロックは追加しない
+     *
+     * @param path 追加先の図形
+     * @param brick ブロック
+     */
+    private static void addTo(Path path, Brick brick) {
+        if(!brick.isUnBroken()) {
+            return;
+        }
+        final Bounds r = brick.getRect();
+        path.addRect(r.left, r.top, r.right - Brick.SPACE, r.bottom - Brick.SPACE, Path.Direction.CW);
+    }
+
+    /**
+     * 見た目が変わったブロックのセルだけ描き直す
+     *
+     * @param snapshot スナップショット
+     */
+    private void patch(RenderSnapshot snapshot) {
+        final int n = drawnRows * drawnCols;
+        for(int i = 0; i < n; i++) {
+            if(!isChanged(snapshot, i)) {
+                continue;
+            }
+            // セルを透明にしてからブロックを描く(破壊されたブロックは何も描かない)
+            getCellRect(i, cellRect);
+            layerCanvas.drawRect(cellRect.left, cellRect.top, cellRect.right, cellRect.bottom, eraser);
+            final Brick brick = snapshot.getBrick(i);
+            if(brick != null) {
+                brick.draw(layerRenderer, 0, 0);
+            }
+            record(snapshot, i);
+        }
+    }
+}
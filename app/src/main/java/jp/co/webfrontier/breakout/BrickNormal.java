@@ -1,7 +1,5 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Color;
-
 /**
  * ブロック（通常）
  */
@@ -24,15 +22,15 @@ public class BrickNormal extends Brick {
         /**
          * 通常のブロック
          */
-        NORMAL("通常のブロック", 1, Color.GRAY),
+        NORMAL("通常のブロック", 1, GameColor.GRAY),
         /**
          * ちょっと強いブロック
          */
-        STRONGER("ちょっと強いブロック", 3, Color.CYAN),
+        STRONGER("ちょっと強いブロック", 3, GameColor.CYAN),
         /**
          * もっと強いブロック
          */
-        STRONGEST("もっと強いブロック", 5, Color.RED);
+        STRONGEST("もっと強いブロック", 5, GameColor.RED);
 
         /**
          * 耐久度の名前
@@ -157,8 +155,7 @@ public class BrickNormal extends Brick {
         }
 
         // ペインターへ色設定
-        color = robustness.getColor();
-        painter.setColor(color);
+        setColor(robustness.getColor());
     }
 
     /** A-01. 複数回当てないと破壊できないブロックを作る
@@ -172,13 +169,13 @@ public class BrickNormal extends Brick {
         hitCount++;
         final int r = robustness.getValue();
         if(r == hitCount) {
-            broken = true;
+            setBroken();
             /** A-04. 効果音を鳴らす
              * ゲームの効果音をつける
              * ブロックを破壊したとき, 破壊できないブロックに当たったとき,パッドで反射したとき
              * ボールをロストしたとき, ゲームをクリアしたとき, ゲームオーバーになったとき
              */
-            SoundController.playHitBrick();
+            SoundEffect.HIT_BRICK.play();
         }
     }
 
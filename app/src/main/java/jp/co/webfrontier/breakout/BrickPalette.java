@@ -0,0 +1,69 @@
+package jp.co.webfrontier.breakout;
+
+import java.util.Arrays;
+
+/**
+ * ブロックの色に番号を振るクラス
+ * ブロックの色は数種類しかないため、色ごとに番号を振り、ブロックを色ごとにまとめて描画するときの振り分けに使う
+ * 色ごとのペインターは描画側(BrickLayer)が番号で引いて使い回す
+ */
+public final class BrickPalette {
+    /**
+     * 登録できる色の数の初期値
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * 登録済みの色
+     */
+    private static int[] colors = new int[INITIAL_CAPACITY];
+
+    /**
+     * 登録済みの色の数
+     */
+    private static int size = 0;
+
+    /**
+     * インスタンスは生成しない
+     */
+    private BrickPalette() {}
+
+    /**
+     * 色の番号を取得する
+     * 初めての色の場合は登録して、新しい番号を振る
+     *
+     * @param color 色
+     * @return 色の番号
+     */
+    public static synchronized int indexOf(int color) {
+        for(int i = 0; i < size; i++) {
+            if(colors[i] == color) {
+                return i;
+            }
+        }
+        if(size == colors.length) {
+            colors = Arrays.copyOf(colors, size * 2);
+        }
+        colors[size] = color;
+        return size++;
+    }
+
+    /**
+     * 色の番号に対応する色を取得する
+     *
+     * @param index 色の番号
+     * @return 色
+     */
+    public static synchronized int getColor(int index) {
+        return colors[index];
+    }
+
+    /**
+     * 登録済みの色の数を取得する
+     *
+     * @return 色の数
+     */
+    public static synchronized int size() {
+        return size;
+    }
+}
@@ -1,7 +1,5 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Color;
-
 /** A-02. 壊れないブロックを作る
  * Brickを継承して新たな壊れないブロックのクラスを作成
  * crashメソッドをオーバーライドして、ブロックが壊れないようにする
@@ -19,7 +17,7 @@ public class BrickUnbroken extends Brick {
      * ブロックの色
      *
      */
-    private static int COLOR = Color.WHITE;
+    private static int COLOR = GameColor.WHITE;
 
     /**
      * コンストラクタ
@@ -50,7 +48,7 @@ public class BrickUnbroken extends Brick {
         type = Type.UNBROKEN;
 
         // ペインターへ色設定
-        painter.setColor(COLOR);
+        setColor(COLOR);
     }
 
     /**
@@ -64,7 +62,7 @@ public class BrickUnbroken extends Brick {
          * ブロックを破壊したとき, 破壊できないブロックに当たったとき,パッドで反射したとき
          * ボールをロストしたとき, ゲームをクリアしたとき, ゲームオーバーになったとき
          */
-        SoundController.playHitHardBrick();
+        SoundEffect.HIT_HARD_BRICK.play();
     }
 
     /** A-05. ゲームの得点を表示する
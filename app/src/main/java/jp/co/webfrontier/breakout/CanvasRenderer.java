@@ -0,0 +1,157 @@
+package jp.co.webfrontier.breakout;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.Arrays;
+
+/**
+ * android.graphics.Canvasへ描画する描画先
+ * ペインターは色ごとに1つだけ生成して使い回す
+ */
+public class CanvasRenderer implements Renderer {
+    /**
+     * 色ごとのペインターの数の初期値
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 描画先のキャンバス
+     */
+    private Canvas canvas = null;
+
+    /**
+     * ペインターを生成済みの色
+     */
+    private int[] colors = new int[INITIAL_CAPACITY];
+
+    /**
+     * 色ごとのペインター
+     */
+    private Paint[] paints = new Paint[INITIAL_CAPACITY];
+
+    /**
+     * ペインターを生成済みの色の数
+     */
+    private int paintCount = 0;
+
+    /**
+     * 直前に使ったペインターの番号
+     * 同じ色が続くことが多いため、先に調べる
+     */
+    private int lastPaint = -1;
+
+    /**
+     * アンチエイリアスで描画するかどうか
+     */
+    private boolean antiAlias = true;
+
+    /**
+     * 装飾(角丸など)を描画するかどうか
+     * 描画しない場合は単純な図形で代わりに描画する
+     */
+    private boolean effects = true;
+
+    /**
+     * 描画先のキャンバスを設定する
+     *
+     * @param canvas 描画先のキャンバス
+     */
+    public void setCanvas(Canvas canvas) {
+        this.canvas = canvas;
+    }
+
+    /**
+     * 描画先のキャンバスを取得する
+     *
+     * @return 描画先のキャンバス
+     */
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * アンチエイリアスで描画するかどうかを設定する
+     * 生成済みのペインターにも反映する
+     *
+     * @param antiAlias true アンチエイリアスで描画する
+     */
+    public void setAntiAlias(boolean antiAlias) {
+        if(this.antiAlias == antiAlias) {
+            return;
+        }
+        this.antiAlias = antiAlias;
+        for(int i = 0; i < paintCount; i++) {
+            paints[i].setAntiAlias(antiAlias);
+        }
+    }
+
+    /**
+     * 装飾を描画するかどうかを設定する
+     *
+     * @param effects true 描画する
+     */
+    public void setEffectsEnabled(boolean effects) {
+        this.effects = effects;
+    }
+
+    /**
+     * 塗りつぶした矩形を描画する
+     */
+    @Override
+    public void fillRect(float left, float top, float right, float bottom, int color) {
+        canvas.drawRect(left, top, right, bottom, paintFor(color));
+    }
+
+    /**
+     * 塗りつぶした角丸矩形を描画する
+     * 装飾を描画しない場合は角を丸めない
+     */
+    @Override
+    public void fillRoundRect(float left, float top, float right, float bottom, float rx, float ry, int color) {
+        if(!effects) {
+            canvas.drawRect(left, top, right, bottom, paintFor(color));
+            return;
+        }
+        canvas.drawRoundRect(left, top, right, bottom, rx, ry, paintFor(color));
+    }
+
+    /**
+     * 塗りつぶした円を描画する
+     */
+    @Override
+    public void fillCircle(float cx, float cy, float radius, int color) {
+        canvas.drawCircle(cx, cy, radius, paintFor(color));
+    }
+
+    /**
+     * 色に対応するペインターを取得する
+     * 初めての色の場合はペインターを生成する
+     *
+     * @param color 色
+     * @return ペインター
+     */
+    private Paint paintFor(int color) {
+        if(lastPaint >= 0 && colors[lastPaint] == color) {
+            return paints[lastPaint];
+        }
+        for(int i = 0; i < paintCount; i++) {
+            if(colors[i] == color) {
+                lastPaint = i;
+                return paints[i];
+            }
+        }
+        if(paintCount == colors.length) {
+            colors = Arrays.copyOf(colors, paintCount * 2);
+            paints = Arrays.copyOf(paints, paintCount * 2);
+        }
+        final Paint p = new Paint();
+        p.setColor(color);
+        // 円の輪郭を滑らかにする(座標が整数の矩形の見た目は変わらない)
+        p.setAntiAlias(antiAlias);
+        colors[paintCount] = color;
+        paints[paintCount] = p;
+        lastPaint = paintCount++;
+        return p;
+    }
+}
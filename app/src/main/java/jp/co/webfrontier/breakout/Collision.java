@@ -0,0 +1,254 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 当たり判定の計算を行うクラス
+ * 円の位置と移動量は固定小数点数(16.16形式)で受け取り、整数演算だけで計算する
+ * 端末によらず同じ衝突の結果になるため、ボールの動きが変わらない
+ */
+public final class Collision {
+
+    /**
+     * インスタンスは生成しない
+     */
+    private Collision() {}
+
+    /**
+     * 円と矩形が重なっているかを調べる(厳密な当たり判定)
+     * 円の中心に最も近い矩形上の点を求め、中心からの距離が半径より短ければ重なっているとする
+     * 円を囲む正方形で判定すると、矩形の角の近くを通っただけでも重なっていることになってしまう
+     * 接しているだけの場合は重なっていないとみなす(Bounds#intersectsと同じ)
+     *
+     * @param x 円の中心(X座標、固定小数点数)
+     * @param y 円の中心(Y座標、固定小数点数)
+     * @param r 円の半径
+     * @param box 矩形
+     * @param item 矩形の表示要素(衝突情報に格納する)
+     * @param out 衝突情報の格納先(時刻は0、法線は矩形から円へ押し出す向き)
+     *
+     * @return true  重なっている
+     * @return false 重なっていない
+     */
+    public static boolean circleRect(int x, int y, int r, Bounds box, Item item, Contact out) {
+        final int left = Fixed.fromInt(box.left);
+        final int top = Fixed.fromInt(box.top);
+        final int right = Fixed.fromInt(box.right);
+        final int bottom = Fixed.fromInt(box.bottom);
+        final int radius = Fixed.fromInt(r);
+        final int ox = x - clamp(x, left, right);
+        final int oy = y - clamp(y, top, bottom);
+        final long d2 = (long)ox * ox + (long)oy * oy;
+        if(d2 >= (long)radius * radius) {
+            return false;
+        }
+
+        if(d2 > 0) {
+            // 中心が矩形の外にある場合は、最も近い点から中心へ押し出す
+            final int d = Fixed.sqrt(d2);
+            out.set(item, 0, Fixed.div(ox, d), Fixed.div(oy, d), radius - d);
+            return true;
+        }
+
+        // 中心が矩形の中にある場合は、最も近い辺から押し出す
+        final int toLeft = x - left;
+        final int toRight = right - x;
+        final int toTop = y - top;
+        final int toBottom = bottom - y;
+        final int minX = Math.min(toLeft, toRight);
+        final int minY = Math.min(toTop, toBottom);
+        if(minX < minY) {
+            out.set(item, 0, (toLeft < toRight) ? -Fixed.ONE : Fixed.ONE, 0, minX + radius);
+        } else {
+            out.set(item, 0, 0, (toTop < toBottom) ? -Fixed.ONE : Fixed.ONE, minY + radius);
+        }
+        return true;
+    }
+
+    /**
+     * 移動する円と矩形の衝突時刻を求める(連続的な当たり判定)
+     * 円が矩形に触れる中心の範囲は、矩形を円の半径だけ広げて角を丸めた図形になる
+     * 円の中心の移動を線分として、まず角を丸めずに広げた矩形との交差を調べ、
+     * 角の部分から入る場合は、矩形の角を中心とする半径rの円との交差を調べ直す
+     * 移動の途中で矩形をすり抜ける場合も、最初に接触した時刻と法線を求められる
+     * 移動の開始時点ですでに重なっている場合は、近づく向きに移動しているときだけ時刻0の衝突とする
+     *
+     * @param x 移動開始時の円の中心(X座標、固定小数点数)
+     * @param y 移動開始時の円の中心(Y座標、固定小数点数)
+     * @param dx 移動量(X方向、固定小数点数)
+     * @param dy 移動量(Y方向、固定小数点数)
+     * @param r 円の半径
+     * @param box 矩形
+     * @param item 矩形の表示要素(衝突情報に格納する)
+     * @param out 衝突情報の格納先
+     *
+     * @return true  移動中に衝突する
+     * @return false 衝突しない
+     */
+    public static boolean sweepCircle(int x, int y, int dx, int dy, int r, Bounds box, Item item, Contact out) {
+        if(dx == 0 && dy == 0) {
+            // 移動していない
+            return false;
+        }
+
+        final int minX = Fixed.fromInt(box.left - r);
+        final int maxX = Fixed.fromInt(box.right + r);
+        final int minY = Fixed.fromInt(box.top - r);
+        final int maxY = Fixed.fromInt(box.bottom + r);
+
+        // 移動量が小さいと時刻がintに収まらないため、時刻はlongで求める
+        long tNear = Long.MIN_VALUE;
+        long tFar = Long.MAX_VALUE;
+        int nx = 0;
+        int ny = 0;
+
+        // X方向の範囲に入っている時刻
+        if(dx == 0) {
+            if(x <= minX || x >= maxX) {
+                return false;
+            }
+        } else {
+            final long t1 = divTime(minX - x, dx);
+            final long t2 = divTime(maxX - x, dx);
+            tNear = Math.min(t1, t2);
+            tFar = Math.max(t1, t2);
+            nx = (dx > 0) ? -Fixed.ONE : Fixed.ONE;
+        }
+
+        // Y方向の範囲に入っている時刻
+        if(dy == 0) {
+            if(y <= minY || y >= maxY) {
+                return false;
+            }
+        } else {
+            final long t1 = divTime(minY - y, dy);
+            final long t2 = divTime(maxY - y, dy);
+            final long near = Math.min(t1, t2);
+            if(near > tNear) {
+                // 後から範囲に入った方向の面に衝突する
+                tNear = near;
+                nx = 0;
+                ny = (dy > 0) ? -Fixed.ONE : Fixed.ONE;
+            }
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+
+        if(tNear >= tFar || tFar <= 0 || tNear > Fixed.ONE) {
+            return false;
+        }
+
+        if(tNear <= 0 && circleRect(x, y, r, box, item, out)) {
+            // 移動の開始時点で重なっている
+            // 離れる向きに移動している場合は、そのまま離れていくので衝突としない
+            return (long)out.normalX * dx + (long)out.normalY * dy < 0;
+        }
+
+        // 広げた矩形に入る位置が角の部分であれば、角の円との交差を調べる
+        final int t = (int)Math.max(tNear, 0);
+        final int ex = x + Fixed.mul(dx, t);
+        final int ey = y + Fixed.mul(dy, t);
+        final int left = Fixed.fromInt(box.left);
+        final int top = Fixed.fromInt(box.top);
+        final int right = Fixed.fromInt(box.right);
+        final int bottom = Fixed.fromInt(box.bottom);
+        final boolean outsideX = ex < left || ex > right;
+        final boolean outsideY = ey < top || ey > bottom;
+        if(outsideX && outsideY) {
+            final int cornerX = (ex < left) ? left : right;
+            final int cornerY = (ey < top) ? top : bottom;
+            return sweepCorner(x, y, dx, dy, r, cornerX, cornerY, item, out);
+        }
+
+        out.set(item, t, nx, ny, 0);
+        return true;
+    }
+
+    /**
+     * 移動する円と矩形の角の衝突時刻を求める
+     * 円の中心の移動を線分として、角を中心とする半径rの円との交差を調べる
+     * 角の円に入らずに通り過ぎる場合は、矩形に触れずに角をかすめただけなので衝突しない
+     *
+     * @param x 移動開始時の円の中心(X座標、固定小数点数)
+     * @param y 移動開始時の円の中心(Y座標、固定小数点数)
+     * @param dx 移動量(X方向、固定小数点数)
+     * @param dy 移動量(Y方向、固定小数点数)
+     * @param r 円の半径
+     * @param cornerX 矩形の角(X座標、固定小数点数)
+     * @param cornerY 矩形の角(Y座標、固定小数点数)
+     * @param item 矩形の表示要素(衝突情報に格納する)
+     * @param out 衝突情報の格納先
+     *
+     * @return true  移動中に衝突する
+     * @return false 衝突しない
+     */
+    private static boolean sweepCorner(int x, int y, int dx, int dy, int r,
+                                       int cornerX, int cornerY, Item item, Contact out) {
+        final int ox = x - cornerX;
+        final int oy = y - cornerY;
+        final int radius = Fixed.fromInt(r);
+        // 2次方程式 a*t^2 + 2*b*t + c = 0 の係数(固定小数点数)
+        final long a = dot(dx, dy, dx, dy);
+        final long b = dot(ox, oy, dx, dy);
+        final long c = dot(ox, oy, ox, oy) - dot(radius, 0, radius, 0);
+        if(b >= 0 || a == 0) {
+            // 角から離れる向きに移動しているか、移動量が小さすぎて求められない
+            return false;
+        }
+        final long disc = b * b - a * c;
+        if(disc < 0) {
+            return false;
+        }
+        final long t = Math.max(((-b - Fixed.sqrt(disc)) << Fixed.SHIFT) / a, 0);
+        if(t > Fixed.ONE) {
+            return false;
+        }
+        final int hx = ox + Fixed.mul(dx, (int)t);
+        final int hy = oy + Fixed.mul(dy, (int)t);
+        final int d = Fixed.sqrt((long)hx * hx + (long)hy * hy);
+        if(d == 0) {
+            return false;
+        }
+        out.set(item, (int)t, Fixed.div(hx, d), Fixed.div(hy, d), 0);
+        return true;
+    }
+
+    /**
+     * 移動量に対する割合(時刻)を求める
+     *
+     * @param distance 距離(固定小数点数)
+     * @param delta 移動量(固定小数点数、0以外)
+     * @return 時刻(固定小数点数)
+     */
+    private static long divTime(int distance, int delta) {
+        return ((long)distance << Fixed.SHIFT) / delta;
+    }
+
+    /**
+     * 2つのベクトルの内積を求める
+     *
+     * @param ax ベクトルaのX成分(固定小数点数)
+     * @param ay ベクトルaのY成分(固定小数点数)
+     * @param bx ベクトルbのX成分(固定小数点数)
+     * @param by ベクトルbのY成分(固定小数点数)
+     * @return 内積(固定小数点数)
+     */
+    private static long dot(int ax, int ay, int bx, int by) {
+        return ((long)ax * bx + (long)ay * by) >> Fixed.SHIFT;
+    }
+
+    /**
+     * 値を範囲内に収める
+     *
+     * @param v 値
+     * @param min 下限
+     * @param max 上限
+     * @return 収めた値
+     */
+    private static int clamp(int v, int min, int max) {
+        if(v < min) {
+            return min;
+        }
+        if(v > max) {
+            return max;
+        }
+        return v;
+    }
+}
@@ -0,0 +1,64 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 衝突の情報を表すクラス
+ * 当たり判定の結果を格納する
+ * 時刻、法線、深さは固定小数点数(16.16形式)で表し、端末によらず同じ結果になるようにする
+ * 毎フレーム生成しないように使い回すこと
+ */
+public class Contact {
+    /**
+     * 衝突した相手の表示要素
+     */
+    public Item item;
+
+    /**
+     * 衝突した時刻
+     * 移動の開始を0、終了をFixed#ONEとした割合で表す(固定小数点数)
+     */
+    public int time;
+
+    /**
+     * 衝突面の法線(X方向)
+     * 法線は長さFixed#ONEの固定小数点数で、相手の表示要素からボールへ向かう向き
+     * 辺に衝突した場合は-Fixed#ONE, 0, Fixed#ONEのいずれか、角に衝突した場合は角からボールの中心へ向かう向きになる
+     */
+    public int normalX;
+
+    /**
+     * 衝突面の法線(Y方向)
+     */
+    public int normalY;
+
+    /**
+     * めり込んでいる深さ(固定小数点数)
+     * 衝突した時点で重なっていない場合は0
+     */
+    public int depth;
+
+    /**
+     * 衝突の情報を設定する
+     *
+     * @param item 衝突した相手の表示要素
+     * @param time 衝突した時刻
+     * @param normalX 衝突面の法線(X方向)
+     * @param normalY 衝突面の法線(Y方向)
+     * @param depth めり込んでいる深さ
+     */
+    public void set(Item item, int time, int normalX, int normalY, int depth) {
+        this.item = item;
+        this.time = time;
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.depth = depth;
+    }
+
+    /**
+     * 衝突の情報を複写する
+     *
+     * @param other 複写元
+     */
+    public void set(Contact other) {
+        set(other.item, other.time, other.normalX, other.normalY, other.depth);
+    }
+}
@@ -0,0 +1,323 @@
+package jp.co.webfrontier.breakout;
+
+import java.util.Arrays;
+
+/**
+ * ゲームフィールドに出ている表示要素を管理するクラス
+ * 表示要素は隙間なく配列に詰めて格納し、削除するときは末尾の要素と入れ替える
+ * 各表示要素には世代番号付きのハンドルを割り当てるため、削除済みの表示要素を再び削除しても無視される
+ * 更新処理と描画処理の両方から同じインスタンスを参照する
+ *
+ * @param <T> 表示要素の型
+ */
+public class EntityRegistry<T extends Item> {
+    /**
+     * ハンドルのうちスロット番号に使うビット数
+     */
+    private static final int SLOT_BITS = 16;
+
+    /**
+     * スロット番号を取り出すマスク
+     */
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+    /**
+     * 世代番号を取り出すマスク(ハンドルが負にならないようにする)
+     */
+    private static final int GENERATION_MASK = 0x7FFF;
+
+    /**
+     * 無効なハンドル
+     */
+    public static final int INVALID_HANDLE = -1;
+
+    /**
+     * 配列の初期の大きさ
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 表示要素(先頭からsize個に隙間なく格納する)
+     */
+    private Item[] dense = new Item[INITIAL_CAPACITY];
+
+    /**
+     * 表示要素ごとのスロット番号
+     */
+    private int[] denseToSlot = new int[INITIAL_CAPACITY];
+
+    /**
+     * スロットごとの表示要素の格納位置
+     */
+    private int[] slotToDense = new int[INITIAL_CAPACITY];
+
+    /**
+     * スロットごとの世代番号
+     * 表示要素を削除するたびに進める
+     */
+    private int[] generations = new int[INITIAL_CAPACITY];
+
+    /**
+     * スロットごとの削除予約の有無
+     */
+    private boolean[] dead = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * 空いているスロット
+     */
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+
+    /**
+     * 空いているスロットの数
+     */
+    private int freeCount = 0;
+
+    /**
+     * 使用したことのあるスロットの数
+     */
+    private int slotCount = 0;
+
+    /**
+     * 削除予約されたスロット
+     */
+    private int[] deadSlots = new int[INITIAL_CAPACITY];
+
+    /**
+     * 削除予約されたスロットの数
+     */
+    private int deadCount = 0;
+
+    /**
+     * 表示要素の数
+     */
+    private int size = 0;
+
+    /**
+     * 表示要素を追加する
+     *
+     * @param item 表示要素
+     * @return 割り当てたハンドル
+     */
+    public int add(T item) {
+        int slot;
+        if(freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = slotCount++;
+            if(slot > SLOT_MASK) {
+                throw new IllegalStateException("too many entities");
+            }
+            ensureSlotCapacity(slotCount);
+        }
+        ensureDenseCapacity(size + 1);
+
+        dense[size] = item;
+        denseToSlot[size] = slot;
+        slotToDense[slot] = size;
+        dead[slot] = false;
+        size++;
+
+        item.handle = (generations[slot] << SLOT_BITS) | slot;
+        return item.handle;
+    }
+
+    /**
+     * ハンドルが指す表示要素がまだ登録されているか
+     *
+     * @param handle ハンドル
+     * @return true  登録されている
+     * @return false 削除済み
+     */
+    public boolean isAlive(int handle) {
+        if(handle < 0) {
+            return false;
+        }
+        final int slot = handle & SLOT_MASK;
+        return slot < slotCount
+                && generations[slot] == (handle >>> SLOT_BITS)
+                && slotToDense[slot] >= 0;
+    }
+
+    /**
+     * 表示要素をすぐに削除する
+     * 末尾の表示要素を削除した位置へ移すため、表示要素の順番は保たれない
+     * 削除予約済みの場合は予約も取り消す(スロットが再利用されても、flushで別の表示要素を削除しない)
+     *
+     * @param item 表示要素
+     * @return true  削除した
+     * @return false 登録されていない(削除済み)
+     */
+    public boolean remove(T item) {
+        final int handle = item.handle;
+        if(!isAlive(handle) || dense[slotToDense[handle & SLOT_MASK]] != item) {
+            return false;
+        }
+        final int slot = handle & SLOT_MASK;
+        if(dead[slot]) {
+            cancelRemoveLater(slot);
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * スロットの削除予約を取り消す
+     * 削除予約されたスロットの並びから取り除く(並びの順番は保たれない)
+     *
+     * @param slot スロット番号
+     */
+    private void cancelRemoveLater(int slot) {
+        for(int i = 0; i < deadCount; i++) {
+            if(deadSlots[i] == slot) {
+                deadSlots[i] = deadSlots[--deadCount];
+                break;
+            }
+        }
+        dead[slot] = false;
+    }
+
+    /**
+     * 表示要素の削除を予約する
+     * 表示要素を順番に処理している途中でも安全に呼び出せる
+     * 同じ表示要素を何度予約しても1回だけ削除される
+     *
+     * @param item 表示要素
+     * @return true  予約した
+     * @return false 予約済みか、登録されていない
+     */
+    public boolean removeLater(T item) {
+        final int handle = item.handle;
+        if(!isAlive(handle)) {
+            return false;
+        }
+        final int slot = handle & SLOT_MASK;
+        if(dead[slot] || dense[slotToDense[slot]] != item) {
+            return false;
+        }
+        dead[slot] = true;
+        if(deadCount == deadSlots.length) {
+            deadSlots = Arrays.copyOf(deadSlots, deadCount * 2);
+        }
+        deadSlots[deadCount++] = slot;
+        return true;
+    }
+
+    /**
+     * 削除予約された表示要素を削除する
+     *
+     * @param pool 削除した表示要素を戻すプール(戻さない場合はnull)
+     * @return 削除した数
+     */
+    @SuppressWarnings("unchecked")
+    public int flush(ItemPool<T> pool) {
+        final int n = deadCount;
+        for(int i = 0; i < n; i++) {
+            final int slot = deadSlots[i];
+            final T item = (T)dense[slotToDense[slot]];
+            removeSlot(slot);
+            if(pool != null) {
+                pool.release(item);
+            }
+        }
+        deadCount = 0;
+        return n;
+    }
+
+    /**
+     * 全ての表示要素を削除する
+     *
+     * @param pool 削除した表示要素を戻すプール(戻さない場合はnull)
+     */
+    @SuppressWarnings("unchecked")
+    public void clear(ItemPool<T> pool) {
+        while(size > 0) {
+            final T item = (T)dense[size - 1];
+            removeSlot(denseToSlot[size - 1]);
+            if(pool != null) {
+                pool.release(item);
+            }
+        }
+        deadCount = 0;
+    }
+
+    /**
+     * 表示要素の数を取得する
+     *
+     * @return 表示要素の数
+     */
+    public int size() { return size; }
+
+    /**
+     * 表示要素が1つもないか
+     *
+     * @return true 表示要素がない
+     */
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * 格納位置を指定して表示要素を取得する
+     * 0からsize()-1までの格納位置で全ての表示要素を順番に取り出せる
+     *
+     * @param index 格納位置
+     * @return 表示要素
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T)dense[index];
+    }
+
+    /**
+     * スロットの表示要素を削除し、末尾の表示要素をその位置へ移す
+     *
+     * @param slot スロット番号
+     */
+    private void removeSlot(int slot) {
+        final int index = slotToDense[slot];
+        final int last = size - 1;
+        final Item item = dense[index];
+
+        if(index != last) {
+            dense[index] = dense[last];
+            denseToSlot[index] = denseToSlot[last];
+            slotToDense[denseToSlot[index]] = index;
+        }
+        dense[last] = null;
+        size--;
+
+        slotToDense[slot] = -1;
+        dead[slot] = false;
+        generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+        freeSlots[freeCount++] = slot;
+        item.handle = INVALID_HANDLE;
+    }
+
+    /**
+     * 表示要素の配列の大きさを確保する
+     *
+     * @param capacity 必要な大きさ
+     */
+    private void ensureDenseCapacity(int capacity) {
+        if(capacity <= dense.length) {
+            return;
+        }
+        final int n = Math.max(capacity, dense.length * 2);
+        dense = Arrays.copyOf(dense, n);
+        denseToSlot = Arrays.copyOf(denseToSlot, n);
+    }
+
+    /**
+     * スロットの配列の大きさを確保する
+     *
+     * @param capacity 必要な大きさ
+     */
+    private void ensureSlotCapacity(int capacity) {
+        if(capacity <= slotToDense.length) {
+            return;
+        }
+        final int n = Math.max(capacity, slotToDense.length * 2);
+        slotToDense = Arrays.copyOf(slotToDense, n);
+        generations = Arrays.copyOf(generations, n);
+        dead = Arrays.copyOf(dead, n);
+        freeSlots = Arrays.copyOf(freeSlots, n);
+    }
+}
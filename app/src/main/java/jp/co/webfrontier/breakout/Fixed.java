@@ -0,0 +1,138 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 固定小数点数(16.16形式)の計算を行うクラス
+ * 整数の上位16ビットを整数部、下位16ビットを小数部として扱う
+ * 整数演算だけで計算するため、端末によらず同じ計算結果になる
+ */
+public final class Fixed {
+    /**
+     * 小数部のビット数
+     */
+    public static final int SHIFT = 16;
+
+    /**
+     * 1を表す値
+     */
+    public static final int ONE = 1 << SHIFT;
+
+    /**
+     * 0.5を表す値
+     */
+    public static final int HALF = ONE >> 1;
+
+    /**
+     * インスタンスは生成しない
+     */
+    private Fixed() {}
+
+    /**
+     * 整数を固定小数点数に変換する
+     *
+     * @param i 整数
+     * @return 固定小数点数
+     */
+    public static int fromInt(int i) {
+        return i << SHIFT;
+    }
+
+    /**
+     * 固定小数点数を整数に変換する(四捨五入)
+     *
+     * @param f 固定小数点数
+     * @return 整数
+     */
+    public static int toInt(int f) {
+        return (f + HALF) >> SHIFT;
+    }
+
+    /**
+     * 固定小数点数を超えない最大の整数に変換する(切り捨て)
+     *
+     * @param f 固定小数点数
+     * @return 整数
+     */
+    public static int floor(int f) {
+        return f >> SHIFT;
+    }
+
+    /**
+     * 固定小数点数以上の最小の整数に変換する(切り上げ)
+     *
+     * @param f 固定小数点数
+     * @return 整数
+     */
+    public static int ceil(int f) {
+        return (f + ONE - 1) >> SHIFT;
+    }
+
+    /**
+     * 浮動小数点数を固定小数点数に変換する
+     * 定数の初期化など、ゲームの進行に影響しない箇所でのみ使うこと
+     *
+     * @param f 浮動小数点数
+     * @return 固定小数点数
+     */
+    public static int fromFloat(float f) {
+        return Math.round(f * ONE);
+    }
+
+    /**
+     * 固定小数点数を浮動小数点数に変換する
+     *
+     * @param f 固定小数点数
+     * @return 浮動小数点数
+     */
+    public static float toFloat(int f) {
+        return (float)f / ONE;
+    }
+
+    /**
+     * 固定小数点数どうしの掛け算を行う
+     *
+     * @param a 固定小数点数
+     * @param b 固定小数点数
+     * @return a * b
+     */
+    public static int mul(int a, int b) {
+        return (int)(((long)a * b) >> SHIFT);
+    }
+
+    /**
+     * 固定小数点数どうしの割り算を行う
+     *
+     * @param a 固定小数点数
+     * @param b 固定小数点数(0以外)
+     * @return a / b
+     */
+    public static int div(int a, int b) {
+        return (int)(((long)a << SHIFT) / b);
+    }
+
+    /**
+     * 平方根を求める
+     * 固定小数点数どうしを桁を戻さずに掛けた値(longで求めた2乗や2乗の和)を渡すと、平方根が固定小数点数で得られる
+     * 整数演算だけで求め、小数部の端数は切り捨てる
+     *
+     * @param square 固定小数点数どうしの積(0以上)
+     * @return 平方根(固定小数点数)
+     */
+    public static int sqrt(long square) {
+        long rest = square;
+        long root = 0;
+        long bit = 1L << 62;
+        while(bit > rest) {
+            bit >>= 2;
+        }
+        while(bit != 0) {
+            if(rest >= root + bit) {
+                rest -= root + bit;
+                root = (root >> 1) + bit;
+            } else {
+                root >>= 1;
+            }
+            bit >>= 2;
+        }
+        return (int)root;
+    }
+}
@@ -0,0 +1,79 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 固定時間刻みでゲームを進めるための時間管理クラス
+ * 描画の間隔がばらついても、ゲームの更新は常に一定の時間刻みで行う
+ * 前回からの経過時間を貯めておき、時間刻み分たまるごとに1回更新する
+ * 余った時間は描画時の補間に使う
+ */
+public class FixedTimestep {
+    /**
+     * 1秒あたりの更新回数
+     */
+    public static final int TICKS_PER_SECOND = 60;
+
+    /**
+     * 1回の更新で進める時間(ナノ秒)
+     */
+    public static final long TICK_NANOS = 1000000000L / TICKS_PER_SECOND;
+
+    /**
+     * 1回の描画で行う更新回数の上限
+     * 処理が大きく遅れたときに追いつこうとして更新を繰り返し、さらに遅れることを防ぐ
+     */
+    public static final int MAX_STEPS_PER_FRAME = 5;
+
+    /**
+     * 前回の時刻(ナノ秒) 未計測の場合は負の値
+     */
+    private long lastNanos = -1;
+
+    /**
+     * まだ更新に使っていない経過時間(ナノ秒)
+     */
+    private long accumulator = 0;
+
+    /**
+     * 現在時刻までに行うべき更新回数を求める
+     * 時刻は単調増加するクロック(System#nanoTime)の値を渡すこと
+     *
+     * @param nowNanos 現在時刻(ナノ秒)
+     * @return 更新回数
+     */
+    public int advance(long nowNanos) {
+        if(lastNanos < 0) {
+            lastNanos = nowNanos;
+            return 0;
+        }
+
+        accumulator += nowNanos - lastNanos;
+        lastNanos = nowNanos;
+
+        int steps = (int)Math.min(accumulator / TICK_NANOS, MAX_STEPS_PER_FRAME);
+        accumulator -= steps * TICK_NANOS;
+        if(steps == MAX_STEPS_PER_FRAME && accumulator >= TICK_NANOS) {
+            // 追いつけない分は捨てる(ゲームが一時的に遅くなる)
+            accumulator = 0;
+        }
+        return steps;
+    }
+
+    /**
+     * 描画時の補間係数を取得する
+     * 直前の更新から次の更新までの間のどの位置にいるかを0以上1未満で表す
+     *
+     * @return 補間係数
+     */
+    public float getAlpha() {
+        return (float)accumulator / TICK_NANOS;
+    }
+
+    /**
+     * 計測をやり直す
+     * 長い間更新を止めていた場合に、止めていた時間分の更新が行われないようにする
+     */
+    public void reset() {
+        lastNanos = -1;
+        accumulator = 0;
+    }
+}
@@ -0,0 +1,250 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 1フレームの処理時間に応じて、省いてもよい処理を段階的に省くクラス
+ * 処理時間が予定時間に近づいたら決めた順番(Level)で1段階ずつ処理を省き、余裕ができたら逆の順番で戻す
+ * ゲームの更新は固定の時間刻みのまま省かないため、処理が重くなっても入力への反応の速さは変わらない
+ */
+public class FrameGovernor {
+    /**
+     * デバッグログ用タグ
+     */
+    private static final String TAG = "FrameGovernor";
+
+    /**
+     * 処理を省く段階
+     * 定義した順番に省く(後の段階ほど見た目への影響が大きい)
+     */
+    public enum Level {
+        /**
+         * 何も省かない
+         */
+        FULL("省略なし"),
+        /**
+         * アンチエイリアスを省く
+         */
+        NO_ANTI_ALIAS("アンチエイリアスなし"),
+        /**
+         * 装飾(角丸、画像を拡大するときの補間)を省く
+         */
+        NO_EFFECTS("装飾なし"),
+        /**
+         * ステータス領域の表示を更新する頻度を下げる
+         */
+        THROTTLED_HUD("ステータス更新間引き"),
+        /**
+         * ゲームフィールドを描画する解像度を下げる
+         */
+        REDUCED_RESOLUTION("解像度低下");
+
+        /**
+         * 段階名
+         */
+        private final String name;
+
+        /**
+         * コンストラクタ
+         *
+         * @param name 段階名
+         */
+        private Level(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * 段階名を取得する
+         *
+         * @return 段階名
+         */
+        public String getName() { return name; }
+    }
+
+    /**
+     * 解像度の倍率の下限
+     */
+    public static final float MIN_SCALE = 0.5f;
+
+    /**
+     * 解像度の倍率の上限(画面の解像度のまま)
+     */
+    public static final float MAX_SCALE = 1.0f;
+
+    /**
+     * 解像度を1段階で下げる倍率
+     */
+    private static final float SCALE_STEP = 0.125f;
+
+    /**
+     * 解像度を下げる段階の数
+     */
+    private static final int RESOLUTION_STEPS =
+            Math.round((MAX_SCALE - MIN_SCALE) / SCALE_STEP);
+
+    /**
+     * 最も多く処理を省いたときの段数
+     * 解像度を下げる前の段階と、解像度を下げる段階を合わせた数
+     */
+    private static final int MAX_STEP = Level.REDUCED_RESOLUTION.ordinal() - 1 + RESOLUTION_STEPS;
+
+    /**
+     * ステータス領域の表示を間引くときの更新の間隔(ナノ秒)
+     */
+    public static final long THROTTLED_HUD_INTERVAL_NANOS = 250000000L;
+
+    /**
+     * 処理を省く処理時間(予定時間に対する割合)
+     */
+    private static final float SHED_THRESHOLD = 0.9f;
+
+    /**
+     * 省いた処理を戻す処理時間(予定時間に対する割合)
+     */
+    private static final float RESTORE_THRESHOLD = 0.6f;
+
+    /**
+     * 処理時間の平均を求めるときの新しい値の重み
+     */
+    private static final float SMOOTHING = 0.1f;
+
+    /**
+     * 段階を変えてから次に変えるまでに待つフレーム数
+     * 段階を変えた直後の処理時間で判断して、段階が行き来しないようにする
+     */
+    private static final int SETTLE_FRAMES = 30;
+
+    /**
+     * 処理を省くかどうか
+     */
+    private volatile boolean enabled = true;
+
+    /**
+     * 1フレームの予定時間(ナノ秒)
+     */
+    private long budgetNanos = FixedTimestep.TICK_NANOS;
+
+    /**
+     * 現在の段数(0: 何も省かない、MAX_STEP: 最も多く省く)
+     */
+    private int step = 0;
+
+    /**
+     * 処理時間の平均(ナノ秒) 未計測の場合は負の値
+     */
+    private float averageNanos = -1;
+
+    /**
+     * 段階を変えてから経過したフレーム数
+     */
+    private int framesSinceChange = 0;
+
+    /**
+     * 処理を省くかどうかを設定する
+     * 省かない場合は全ての処理を行う
+     *
+     * @param enabled true 省く
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if(!enabled) {
+            step = 0;
+            averageNanos = -1;
+        }
+    }
+
+    /**
+     * 処理を省くかどうか
+     *
+     * @return true 省く
+     */
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * 1フレームの予定時間を設定する
+     *
+     * @param budgetNanos 予定時間(ナノ秒)
+     */
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+        averageNanos = -1;
+    }
+
+    /**
+     * 1フレームの処理時間を通知する
+     * 処理時間の平均に応じて、処理を1段階省くか1段階戻す
+     *
+     * @param workNanos 1フレームの更新と描画にかかった時間(ナノ秒)
+     * @return true 段階を変えた
+     */
+    public boolean onFrameMeasured(long workNanos) {
+        if(!enabled) {
+            return false;
+        }
+        if(averageNanos < 0) {
+            averageNanos = workNanos;
+        } else {
+            averageNanos += (workNanos - averageNanos) * SMOOTHING;
+        }
+        if(++framesSinceChange < SETTLE_FRAMES) {
+            return false;
+        }
+
+        int next = step;
+        if(averageNanos > budgetNanos * SHED_THRESHOLD) {
+            next = Math.min(MAX_STEP, step + 1);
+        } else if(averageNanos < budgetNanos * RESTORE_THRESHOLD) {
+            next = Math.max(0, step - 1);
+        }
+        if(next == step) {
+            return false;
+        }
+        step = next;
+        framesSinceChange = 0;
+        GameLog.d(TAG, "処理を省く段階を変えたよ: " + getLevel().getName() + "(解像度: " + getResolutionScale() + ")");
+        return true;
+    }
+
+    /**
+     * 現在の段階を取得する
+     *
+     * @return 段階
+     */
+    public Level getLevel() {
+        return Level.values()[Math.min(step, Level.REDUCED_RESOLUTION.ordinal())];
+    }
+
+    /**
+     * アンチエイリアスで描画するかどうか
+     *
+     * @return true 描画する
+     */
+    public boolean isAntiAliasEnabled() { return step < Level.NO_ANTI_ALIAS.ordinal(); }
+
+    /**
+     * 装飾を描画するかどうか
+     *
+     * @return true 描画する
+     */
+    public boolean isEffectsEnabled() { return step < Level.NO_EFFECTS.ordinal(); }
+
+    /**
+     * ステータス領域の表示を更新する間隔を取得する
+     *
+     * @return 更新の間隔(ナノ秒) 0の場合は値が変わるたびに更新する
+     */
+    public long getHudIntervalNanos() {
+        return step < Level.THROTTLED_HUD.ordinal() ? 0 : THROTTLED_HUD_INTERVAL_NANOS;
+    }
+
+    /**
+     * ゲームフィールドを描画する解像度の倍率を取得する
+     *
+     * @return 倍率(MIN_SCALE以上MAX_SCALE以下)
+     */
+    public float getResolutionScale() {
+        final int reduced = step - (Level.REDUCED_RESOLUTION.ordinal() - 1);
+        if(reduced <= 0) {
+            return MAX_SCALE;
+        }
+        return MAX_SCALE - reduced * SCALE_STEP;
+    }
+}
@@ -0,0 +1,242 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 描画の頻度を決めるクラス
+ * ディスプレイが対応するリフレッシュレートと電力プロファイルから描画の頻度を選ぶ
+ * ディスプレイのリフレッシュレートより低い頻度で描画する場合は、垂直同期を間引いて描画する
+ * ゲームの更新はFixedTimestepで固定の時間刻みで行うため、描画の頻度を変えてもゲームの速さは変わらない
+ */
+public class FramePacer {
+    /**
+     * デバッグログ用タグ
+     */
+    private static final String TAG = "FramePacer";
+
+    /**
+     * 電力プロファイル
+     */
+    public enum PowerProfile {
+        /**
+         * ディスプレイが対応する最も高い頻度で描画する
+         */
+        PERFORMANCE("高性能", 0f),
+        /**
+         * 60Hzまでの頻度で描画する
+         */
+        BALANCED("標準", 60f),
+        /**
+         * 30Hzまでの頻度で描画する
+         */
+        BATTERY_SAVER("省電力", 30f);
+
+        /**
+         * プロファイル名
+         */
+        private final String name;
+
+        /**
+         * 描画の頻度の上限(Hz) 0の場合は上限なし
+         */
+        private final float maxRate;
+
+        /**
+         * コンストラクタ
+         *
+         * @param name プロファイル名
+         * @param maxRate 描画の頻度の上限(Hz)
+         */
+        private PowerProfile(final String name, final float maxRate) {
+            this.name = name;
+            this.maxRate = maxRate;
+        }
+
+        /**
+         * プロファイル名を取得する
+         *
+         * @return プロファイル名
+         */
+        public String getName() { return name; }
+
+        /**
+         * 描画の頻度の上限を取得する
+         *
+         * @return 描画の頻度の上限(Hz) 0の場合は上限なし
+         */
+        public float getMaxRate() { return maxRate; }
+    }
+
+    /**
+     * ディスプレイの情報が取得できないときのリフレッシュレート(Hz)
+     */
+    public static final float DEFAULT_DISPLAY_RATE = 60f;
+
+    /**
+     * リフレッシュレートを比べるときの誤差(Hz)
+     * ディスプレイが報告するリフレッシュレートは59.94Hzのように端数を含むことがある
+     */
+    private static final float RATE_TOLERANCE = 1f;
+
+    /**
+     * 1秒(ナノ秒)
+     */
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    /**
+     * ディスプレイが対応するリフレッシュレート(Hz)
+     */
+    private float[] supportedRates = { DEFAULT_DISPLAY_RATE };
+
+    /**
+     * ディスプレイの現在のリフレッシュレート(Hz)
+     */
+    private float displayRate = DEFAULT_DISPLAY_RATE;
+
+    /**
+     * 電力プロファイル
+     */
+    private PowerProfile profile = PowerProfile.BALANCED;
+
+    /**
+     * ディスプレイに要求するリフレッシュレート(Hz)
+     */
+    private float preferredDisplayRate = DEFAULT_DISPLAY_RATE;
+
+    /**
+     * 何回の垂直同期ごとに1回描画するか
+     */
+    private int divisor = 1;
+
+    /**
+     * 描画の間隔(ナノ秒)
+     */
+    private long intervalNanos = NANOS_PER_SECOND / (long)DEFAULT_DISPLAY_RATE;
+
+    /**
+     * 前回描画したフレームの開始時刻(ナノ秒) 未描画の場合は負の値
+     */
+    private long lastFrameNanos = -1;
+
+    /**
+     * ディスプレイが対応するリフレッシュレートを設定する
+     *
+     * @param rates 対応するリフレッシュレート(Hz)
+     * @param current 現在のリフレッシュレート(Hz)
+     */
+    public synchronized void setDisplayRates(float[] rates, float current) {
+        if(rates != null && rates.length > 0) {
+            supportedRates = rates.clone();
+        }
+        if(current > 0) {
+            displayRate = current;
+        }
+        choose();
+    }
+
+    /**
+     * ディスプレイの現在のリフレッシュレートが変わったときに呼び出す
+     * 要求したリフレッシュレートへの切り替えはシステムが後から行うため、切り替わったら通知すること
+     *
+     * @param current 現在のリフレッシュレート(Hz)
+     */
+    public synchronized void onDisplayRateChanged(float current) {
+        if(current <= 0 || Math.abs(current - displayRate) < RATE_TOLERANCE / 2) {
+            return;
+        }
+        displayRate = current;
+        choose();
+    }
+
+    /**
+     * 電力プロファイルを設定する
+     *
+     * @param profile 電力プロファイル
+     */
+    public synchronized void setProfile(PowerProfile profile) {
+        if(this.profile == profile) {
+            return;
+        }
+        this.profile = profile;
+        choose();
+    }
+
+    /**
+     * 電力プロファイルを取得する
+     *
+     * @return 電力プロファイル
+     */
+    public synchronized PowerProfile getProfile() { return profile; }
+
+    /**
+     * ディスプレイに要求するリフレッシュレートを取得する
+     * 対応するリフレッシュレートのうち、電力プロファイルの上限以下で最も高いもの
+     *
+     * @return リフレッシュレート(Hz)
+     */
+    public synchronized float getPreferredDisplayRate() { return preferredDisplayRate; }
+
+    /**
+     * 描画の頻度を取得する
+     *
+     * @return 描画の頻度(Hz)
+     */
+    public synchronized float getTargetRate() { return displayRate / divisor; }
+
+    /**
+     * 描画の間隔を取得する
+     *
+     * @return 描画の間隔(ナノ秒)
+     */
+    public synchronized long getIntervalNanos() { return intervalNanos; }
+
+    /**
+     * このフレームで描画するかどうかを判定する
+     * 垂直同期ごとに呼び出す
+     * 垂直同期の時刻はわずかにばらつくため、半フレーム分の余裕を持たせて判定する
+     *
+     * @param frameTimeNanos フレームの開始時刻(ナノ秒)
+     * @return true 描画する
+     */
+    public synchronized boolean shouldRender(long frameTimeNanos) {
+        if(divisor > 1 && lastFrameNanos >= 0) {
+            final long vsyncNanos = (long)(NANOS_PER_SECOND / displayRate);
+            if(frameTimeNanos - lastFrameNanos < intervalNanos - vsyncNanos / 2) {
+                return false;
+            }
+        }
+        lastFrameNanos = frameTimeNanos;
+        return true;
+    }
+
+    /**
+     * 描画の間隔の計測をやり直す
+     * 描画を休止した後に呼び出す
+     */
+    public synchronized void reset() {
+        lastFrameNanos = -1;
+    }
+
+    /**
+     * 対応するリフレッシュレートと電力プロファイルから描画の頻度を選ぶ
+     */
+    private void choose() {
+        final float maxRate = profile.getMaxRate() > 0 ? profile.getMaxRate() : Float.MAX_VALUE;
+
+        // 上限以下で最も高いリフレッシュレートを選ぶ(なければ最も低いリフレッシュレート)
+        float best = -1;
+        float lowest = Float.MAX_VALUE;
+        for(float rate : supportedRates) {
+            if(rate <= maxRate + RATE_TOLERANCE && rate > best) {
+                best = rate;
+            }
+            lowest = Math.min(lowest, rate);
+        }
+        preferredDisplayRate = best > 0 ? best : lowest;
+
+        // ディスプレイが上限より高いリフレッシュレートのままであれば、上限を超えないように垂直同期を間引く
+        divisor = Math.max(1, (int)Math.ceil(displayRate / maxRate - 0.05f));
+        intervalNanos = (long)(NANOS_PER_SECOND * divisor / displayRate);
+        GameLog.d(TAG, "描画の頻度を選んだよ: " + profile.getName()
+                + ", ディスプレイ: " + displayRate + "Hz(要求: " + preferredDisplayRate + "Hz)"
+                + ", 描画: " + getTargetRate() + "Hz");
+    }
+}
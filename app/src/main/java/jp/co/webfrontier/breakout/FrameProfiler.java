@@ -0,0 +1,630 @@
+package jp.co.webfrontier.breakout;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Build;
+import android.os.Debug;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 1フレームあたりの処理時間を計測するクラス
+ * 更新処理のフェーズごとの時間、更新と描画の時間、フレームの間隔を集計してヒストグラムにする
+ * フレームの間隔が予定より大きく遅れたフレームはカクつき(ジャンク)として数える
+ * ガベージコレクションの回数とメモリ確保の回数、表示要素のプールを再利用できた回数も記録する
+ * 集計結果はステータス領域に重ねて表示でき、ゲーム終了時にファイルへ書き出せる
+ * 無効にしている間は時刻の取得も行わない
+ */
+public class FrameProfiler implements BreakoutPhaseListener {
+    /**
+     * デバッグログ用タグ
+     */
+    private static final String TAG = "FrameProfiler";
+
+    /**
+     * ヒストグラムの各区間の上限(ミリ秒)
+     * 最後の区間は上限なし
+     */
+    private static final int[] BUCKET_LIMITS_MS = { 2, 4, 8, 12, 17, 25, 33, 50 };
+
+    /**
+     * 表示を更新する間隔(フレーム数)
+     * 毎フレーム文字列を組み立てないよう、一定間隔で更新する
+     */
+    private static final int OVERLAY_REFRESH_FRAMES = 30;
+
+    /**
+     * 重ねて表示する文字の大きさ
+     */
+    private static final float OVERLAY_TEXT_SIZE = 28f;
+
+    /**
+     * 1ミリ秒(ナノ秒)
+     */
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /**
+     * 計測できるプールの最大数
+     */
+    private static final int MAX_POOLS = 4;
+
+    /**
+     * 計測中かどうか
+     */
+    private volatile boolean enabled = false;
+
+    /**
+     * カクつきとみなすフレーム間隔(1フレームの予定時間の1.5倍、ナノ秒)
+     */
+    private long jankNanos = FixedTimestep.TICK_NANOS * 3 / 2;
+
+    /**
+     * フェーズごとの処理時間の合計(ナノ秒)
+     */
+    private final long[] phaseTotal = new long[Breakout.Phase.values().length];
+
+    /**
+     * フェーズごとの処理時間の最大値(ナノ秒)
+     */
+    private final long[] phaseMax = new long[Breakout.Phase.values().length];
+
+    /**
+     * フェーズごとの計測回数
+     */
+    private final int[] phaseCount = new int[Breakout.Phase.values().length];
+
+    /**
+     * 更新処理の時間のヒストグラム
+     */
+    private final int[] updateHistogram = new int[BUCKET_LIMITS_MS.length + 1];
+
+    /**
+     * 描画処理の時間のヒストグラム
+     */
+    private final int[] drawHistogram = new int[BUCKET_LIMITS_MS.length + 1];
+
+    /**
+     * フレーム間隔のヒストグラム
+     */
+    private final int[] intervalHistogram = new int[BUCKET_LIMITS_MS.length + 1];
+
+    /**
+     * 更新処理の時間の合計と最大値(ナノ秒)
+     */
+    private long updateTotal = 0, updateMax = 0;
+
+    /**
+     * 描画処理の時間の合計と最大値(ナノ秒)
+     */
+    private long drawTotal = 0, drawMax = 0;
+
+    /**
+     * フレーム間隔の合計(ナノ秒)
+     */
+    private long intervalTotal = 0;
+
+    /**
+     * 計測したフレーム数
+     */
+    private int frames = 0;
+
+    /**
+     * カクついたフレーム数
+     */
+    private int jankFrames = 0;
+
+    /**
+     * 前回のフレームの開始時刻(ナノ秒) 未計測の場合は負の値
+     */
+    private long lastFrameNanos = -1;
+
+    /**
+     * 計測開始時のガベージコレクションの回数
+     */
+    private long gcCountAtStart = 0;
+
+    /**
+     * 計測開始時のメモリ確保の回数
+     */
+    private long allocCountAtStart = 0;
+
+    /**
+     * 計測するプールの名前
+     */
+    private final String[] poolNames = new String[MAX_POOLS];
+
+    /**
+     * 計測するプール
+     */
+    private final ItemPool<?>[] pools = new ItemPool<?>[MAX_POOLS];
+
+    /**
+     * 計測開始時にプールを再利用できた回数
+     */
+    private final int[] poolHitsAtStart = new int[MAX_POOLS];
+
+    /**
+     * 計測開始時にプールが空で新たに生成した回数
+     */
+    private final int[] poolMissesAtStart = new int[MAX_POOLS];
+
+    /**
+     * 計測するプールの数
+     */
+    private int poolCount = 0;
+
+    /**
+     * 重ねて表示するかどうか
+     */
+    private boolean overlayVisible = false;
+
+    /**
+     * 重ねて表示する文字のペインター
+     */
+    private final Paint overlayPainter = new Paint();
+
+    /**
+     * 重ねて表示する1行目(フレーム間隔、更新と描画の時間)
+     */
+    private final LineBuffer line1 = new LineBuffer(96);
+
+    /**
+     * 重ねて表示する2行目(カクつき、ガベージコレクション、メモリ確保、プールが空だった回数)
+     */
+    private final LineBuffer line2 = new LineBuffer(96);
+
+    /**
+     * コンストラクタ
+     */
+    public FrameProfiler() {
+        overlayPainter.setColor(Color.DKGRAY);
+        overlayPainter.setAntiAlias(true);
+        overlayPainter.setTextSize(OVERLAY_TEXT_SIZE);
+    }
+
+    /**
+     * 計測を開始、停止する
+     * 開始したときは集計結果をクリアする
+     *
+     * @param enabled true 開始する
+     */
+    @SuppressWarnings("deprecation")
+    public void setEnabled(boolean enabled) {
+        if(this.enabled == enabled) {
+            return;
+        }
+        if(enabled) {
+            reset();
+            Debug.startAllocCounting();
+            allocCountAtStart = Debug.getGlobalAllocCount();
+        } else {
+            Debug.stopAllocCounting();
+        }
+        this.enabled = enabled;
+        overlayVisible = enabled;
+    }
+
+    /**
+     * 再利用できた回数と新たに生成した回数を計測するプールを追加する
+     * 計測中にプールが空になる(新たに生成する)回数が増え続ける場合は、プールが温まっていない
+     *
+     * @param name プールの名前
+     * @param pool プール
+     */
+    public void watchPool(String name, ItemPool<?> pool) {
+        if(poolCount >= MAX_POOLS) {
+            Log.w(TAG, "これ以上プールを計測できないよ: " + name);
+            return;
+        }
+        poolNames[poolCount] = name;
+        pools[poolCount] = pool;
+        poolHitsAtStart[poolCount] = pool.getHitCount();
+        poolMissesAtStart[poolCount] = pool.getMissCount();
+        poolCount++;
+    }
+
+    /**
+     * 計測中かどうか
+     *
+     * @return true 計測中
+     */
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * 1フレームの予定時間を設定する
+     * 描画の頻度が変わったときに呼び出す
+     *
+     * @param budgetNanos 1フレームの予定時間(ナノ秒)
+     */
+    public void setFrameBudgetNanos(long budgetNanos) {
+        jankNanos = budgetNanos * 3 / 2;
+    }
+
+    /**
+     * 集計結果をクリアする
+     */
+    @SuppressWarnings("deprecation")
+    public void reset() {
+        for(int i = 0; i < phaseTotal.length; i++) {
+            phaseTotal[i] = 0;
+            phaseMax[i] = 0;
+            phaseCount[i] = 0;
+        }
+        for(int i = 0; i < updateHistogram.length; i++) {
+            updateHistogram[i] = 0;
+            drawHistogram[i] = 0;
+            intervalHistogram[i] = 0;
+        }
+        updateTotal = updateMax = 0;
+        drawTotal = drawMax = 0;
+        intervalTotal = 0;
+        frames = 0;
+        jankFrames = 0;
+        lastFrameNanos = -1;
+        gcCountAtStart = getGcCount();
+        allocCountAtStart = Debug.getGlobalAllocCount();
+        for(int i = 0; i < poolCount; i++) {
+            poolHitsAtStart[i] = pools[i].getHitCount();
+            poolMissesAtStart[i] = pools[i].getMissCount();
+        }
+        line1.clear();
+        line2.clear();
+    }
+
+    /**
+     * フェーズの処理が終わったときにゲームから呼ばれる
+     *
+     * @param phase 終わったフェーズ
+     * @param elapsedNanos フェーズの処理にかかった時間(ナノ秒)
+     */
+    @Override
+    public void onPhaseFinished(Breakout.Phase phase, long elapsedNanos) {
+        final int i = phase.ordinal();
+        phaseTotal[i] += elapsedNanos;
+        phaseCount[i]++;
+        if(elapsedNanos > phaseMax[i]) {
+            phaseMax[i] = elapsedNanos;
+        }
+    }
+
+    /**
+     * フレームの開始を記録する
+     * 前回のフレームからの間隔を集計し、予定より大きく遅れていればカクつきとして数える
+     *
+     * @param frameNanos フレームの開始時刻(ナノ秒)
+     */
+    public void onFrameStarted(long frameNanos) {
+        if(lastFrameNanos >= 0) {
+            final long interval = frameNanos - lastFrameNanos;
+            intervalTotal += interval;
+            intervalHistogram[bucketOf(interval)]++;
+            if(interval > jankNanos) {
+                jankFrames++;
+            }
+            frames++;
+            if(overlayVisible && frames % OVERLAY_REFRESH_FRAMES == 0) {
+                updateOverlay();
+            }
+        }
+        lastFrameNanos = frameNanos;
+    }
+
+    /**
+     * フレームの間隔の計測をやり直す
+     * ゲームループを休止した後は、休止していた時間をフレーム間隔に含めないよう呼び出す
+     */
+    public void restartInterval() {
+        lastFrameNanos = -1;
+    }
+
+    /**
+     * 1フレーム分の更新処理の時間を記録する
+     *
+     * @param elapsedNanos 更新処理にかかった時間(ナノ秒)
+     */
+    public void onUpdateFinished(long elapsedNanos) {
+        updateTotal += elapsedNanos;
+        updateHistogram[bucketOf(elapsedNanos)]++;
+        if(elapsedNanos > updateMax) {
+            updateMax = elapsedNanos;
+        }
+    }
+
+    /**
+     * 1フレーム分の描画処理の時間を記録する
+     *
+     * @param elapsedNanos 描画処理にかかった時間(ナノ秒)
+     */
+    public void onDrawFinished(long elapsedNanos) {
+        drawTotal += elapsedNanos;
+        drawHistogram[bucketOf(elapsedNanos)]++;
+        if(elapsedNanos > drawMax) {
+            drawMax = elapsedNanos;
+        }
+    }
+
+    /**
+     * 集計結果をステータス領域に重ねて表示する
+     *
+     * @param canvas 描画キャンバス
+     * @param x 表示領域の左端(X座標)
+     * @param bottom 表示領域の下端(Y座標)
+     */
+    public void drawOverlay(Canvas canvas, int x, int bottom) {
+        if(!overlayVisible) {
+            return;
+        }
+        final float lineHeight = OVERLAY_TEXT_SIZE * 1.2f;
+        canvas.drawText(line1.chars, 0, line1.length, x + 8, bottom - lineHeight - 8, overlayPainter);
+        canvas.drawText(line2.chars, 0, line2.length, x + 8, bottom - 8, overlayPainter);
+    }
+
+    /**
+     * 重ねて表示する文字列を更新する
+     */
+    @SuppressWarnings("deprecation")
+    private void updateOverlay() {
+        line1.clear();
+        line1.append("frame ").appendMillis(intervalTotal / frames)
+             .append("ms  update ").appendMillis(updateTotal / Math.max(1, frames))
+             .append("ms  draw ").appendMillis(drawTotal / Math.max(1, frames))
+             .append("ms");
+        line2.clear();
+        line2.append("jank ").append(jankFrames).append('/').append(frames)
+             .append("  gc ").append(getGcCount() - gcCountAtStart)
+             .append("  alloc ").append(Debug.getGlobalAllocCount() - allocCountAtStart);
+        if(poolCount > 0) {
+            line2.append("  miss");
+            for(int i = 0; i < poolCount; i++) {
+                line2.append(' ').append(poolNames[i]).append(' ').append(pools[i].getMissCount() - poolMissesAtStart[i]);
+            }
+        }
+    }
+
+    /**
+     * 集計結果をファイルへ書き出す
+     * 書き出しは別スレッドで行い、ゲームの更新と描画を止めない
+     *
+     * @param dir 書き出し先のディレクトリ
+     * @param title 集計結果の見出し(ゲームオーバー、ゲームクリアなど)
+     */
+    public void dump(final File dir, String title) {
+        if(dir == null) {
+            return;
+        }
+        final String report = buildReport(title);
+        final String name = "profile-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date()) + ".txt";
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final File file = new File(dir, name);
+                Writer writer = null;
+                try {
+                    writer = new FileWriter(file);
+                    writer.write(report);
+                    Log.i(TAG, "計測結果を書き出したよ: " + file.getAbsolutePath());
+                } catch(IOException e) {
+                    Log.w(TAG, "計測結果を書き出せなかったよ", e);
+                } finally {
+                    if(writer != null) {
+                        try {
+                            writer.close();
+                        } catch(IOException e) {
+                            // 閉じられなくても何もできない
+                        }
+                    }
+                }
+            }
+        }, TAG).start();
+    }
+
+    /**
+     * 集計結果を文字列にする
+     *
+     * @param title 集計結果の見出し
+     * @return 集計結果
+     */
+    @SuppressWarnings("deprecation")
+    public String buildReport(String title) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(title).append('\n');
+        sb.append("frames: ").append(frames).append('\n');
+        sb.append("jank frames (> ").append(jankNanos / 1000).append("us): ").append(jankFrames).append('\n');
+        sb.append("gc count: ").append(getGcCount() - gcCountAtStart).append('\n');
+        sb.append("alloc count: ").append(Debug.getGlobalAllocCount() - allocCountAtStart).append('\n');
+        sb.append("heap used: ").append((Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024).append("KB\n");
+        sb.append('\n');
+
+        sb.append("## phases (avg us / max us / count)\n");
+        for(Breakout.Phase phase : Breakout.Phase.values()) {
+            final int i = phase.ordinal();
+            final long avg = (phaseCount[i] > 0) ? phaseTotal[i] / phaseCount[i] : 0;
+            sb.append(phase.name()).append(": ").append(avg / 1000).append(" / ")
+              .append(phaseMax[i] / 1000).append(" / ").append(phaseCount[i]).append('\n');
+        }
+        sb.append('\n');
+
+        final int n = Math.max(1, frames);
+        sb.append("update: avg ").append(updateTotal / n / 1000).append("us, max ").append(updateMax / 1000).append("us\n");
+        sb.append("draw: avg ").append(drawTotal / n / 1000).append("us, max ").append(drawMax / 1000).append("us\n");
+        sb.append('\n');
+
+        sb.append("## pools (hit / miss / free)\n");
+        for(int i = 0; i < poolCount; i++) {
+            sb.append(poolNames[i]).append(": ").append(pools[i].getHitCount() - poolHitsAtStart[i])
+              .append(" / ").append(pools[i].getMissCount() - poolMissesAtStart[i])
+              .append(" / ").append(pools[i].getFreeCount()).append('\n');
+        }
+        sb.append('\n');
+
+        appendHistogram(sb, "frame interval", intervalHistogram);
+        appendHistogram(sb, "update", updateHistogram);
+        appendHistogram(sb, "draw", drawHistogram);
+        return sb.toString();
+    }
+
+    /**
+     * ヒストグラムを文字列に追加する
+     *
+     * @param sb 追加先
+     * @param name ヒストグラムの名前
+     * @param histogram ヒストグラム
+     */
+    private static void appendHistogram(StringBuilder sb, String name, int[] histogram) {
+        sb.append("## ").append(name).append(" histogram (ms)\n");
+        for(int i = 0; i < histogram.length; i++) {
+            if(i < BUCKET_LIMITS_MS.length) {
+                sb.append("<").append(BUCKET_LIMITS_MS[i]);
+            } else {
+                sb.append(">=").append(BUCKET_LIMITS_MS[BUCKET_LIMITS_MS.length - 1]);
+            }
+            sb.append(": ").append(histogram[i]).append('\n');
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * 時間がヒストグラムのどの区間に入るかを求める
+     *
+     * @param nanos 時間(ナノ秒)
+     * @return 区間の番号
+     */
+    private static int bucketOf(long nanos) {
+        for(int i = 0; i < BUCKET_LIMITS_MS.length; i++) {
+            if(nanos < BUCKET_LIMITS_MS[i] * NANOS_PER_MILLI) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS_MS.length;
+    }
+
+    /**
+     * ガベージコレクションの回数を取得する
+     * API 23以降はランタイムの統計情報から、それより前はメモリ確保の計測機能から取得する
+     *
+     * @return ガベージコレクションの回数
+     */
+    @SuppressWarnings("deprecation")
+    private static long getGcCount() {
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            final String count = Debug.getRuntimeStat("art.gc.gc-count");
+            if(count != null) {
+                try {
+                    return Long.parseLong(count);
+                } catch(NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return Debug.getGlobalGcInvocationCount();
+    }
+
+    /**
+     * 表示用の文字バッファ
+     * 文字列を生成せずに数値を書き込む
+     */
+    private static class LineBuffer {
+        /**
+         * 文字
+         */
+        final char[] chars;
+
+        /**
+         * 文字数
+         */
+        int length = 0;
+
+        /**
+         * 数値の書き込み用の作業領域
+         */
+        private final char[] digits = new char[20];
+
+        /**
+         * コンストラクタ
+         *
+         * @param capacity 最大文字数
+         */
+        LineBuffer(int capacity) {
+            chars = new char[capacity];
+        }
+
+        /**
+         * 文字を消す
+         */
+        void clear() {
+            length = 0;
+        }
+
+        /**
+         * 文字列を追加する
+         *
+         * @param s 文字列
+         * @return このバッファ
+         */
+        LineBuffer append(String s) {
+            final int n = Math.min(s.length(), chars.length - length);
+            s.getChars(0, n, chars, length);
+            length += n;
+            return this;
+        }
+
+        /**
+         * 文字を追加する
+         *
+         * @param c 文字
+         * @return このバッファ
+         */
+        LineBuffer append(char c) {
+            if(length < chars.length) {
+                chars[length++] = c;
+            }
+            return this;
+        }
+
+        /**
+         * 整数を追加する
+         *
+         * @param value 整数
+         * @return このバッファ
+         */
+        LineBuffer append(long value) {
+            if(value < 0) {
+                append('-');
+                value = -value;
+            }
+            int pos = digits.length;
+            do {
+                digits[--pos] = (char)('0' + (value % 10));
+                value /= 10;
+            } while(value != 0 && pos > 0);
+            while(pos < digits.length) {
+                append(digits[pos++]);
+            }
+            return this;
+        }
+
+        /**
+         * ナノ秒の時間をミリ秒(小数点以下2桁)で追加する
+         *
+         * @param nanos 時間(ナノ秒)
+         * @return このバッファ
+         */
+        LineBuffer appendMillis(long nanos) {
+            final long hundredths = nanos / (NANOS_PER_MILLI / 100);
+            append(hundredths / 100).append('.');
+            final long frac = hundredths % 100;
+            if(frac < 10) {
+                append('0');
+            }
+            return append(frac);
+        }
+    }
+}
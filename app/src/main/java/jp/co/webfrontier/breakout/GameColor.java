@@ -0,0 +1,58 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 表示要素の色の定数
+ * ゲームの処理がAndroidのクラスに依存しないよう、android.graphics.Colorの代わりに使う
+ * 値はandroid.graphics.Colorの同じ名前の定数と同じARGB形式の整数
+ */
+public final class GameColor {
+    /**
+     * 黒
+     */
+    public static final int BLACK = 0xFF000000;
+
+    /**
+     * 灰色
+     */
+    public static final int GRAY = 0xFF888888;
+
+    /**
+     * 白
+     */
+    public static final int WHITE = 0xFFFFFFFF;
+
+    /**
+     * 赤
+     */
+    public static final int RED = 0xFFFF0000;
+
+    /**
+     * 緑
+     */
+    public static final int GREEN = 0xFF00FF00;
+
+    /**
+     * 青
+     */
+    public static final int BLUE = 0xFF0000FF;
+
+    /**
+     * 黄
+     */
+    public static final int YELLOW = 0xFFFFFF00;
+
+    /**
+     * シアン
+     */
+    public static final int CYAN = 0xFF00FFFF;
+
+    /**
+     * マゼンタ
+     */
+    public static final int MAGENTA = 0xFFFF00FF;
+
+    /**
+     * インスタンスは生成しない
+     */
+    private GameColor() {}
+}
@@ -0,0 +1,59 @@
+package jp.co.webfrontier.breakout;
+
+import android.util.Log;
+
+/**
+ * ゲームの処理からデバッグログを出力するクラス
+ * 端末ではandroid.util.Logへ出力する
+ * 端末がない環境(JVM上の単体テストなど)ではandroid.util.Logが使えないため、標準出力へ出力する
+ * ゲームの処理はandroid.util.Logを直接使わず、このクラスを通して出力すること
+ */
+public final class GameLog {
+    /**
+     * android.util.Logへ出力できるか
+     * 一度出力できなかったら、以降は標準出力へ出力する
+     */
+    private static volatile boolean androidLog = true;
+
+    /**
+     * インスタンスは生成しない
+     */
+    private GameLog() {}
+
+    /**
+     * デバッグ用のログを出力する
+     *
+     * @param tag タグ
+     * @param msg メッセージ
+     */
+    public static void d(String tag, String msg) {
+        if(androidLog) {
+            try {
+                Log.d(tag, msg);
+                return;
+            } catch(RuntimeException | LinkageError e) {
+                // JVM上ではクラスがないか、モックされていないメソッドとして例外になる
+                androidLog = false;
+            }
+        }
+        System.out.println("D/" + tag + ": " + msg);
+    }
+
+    /**
+     * 情報のログを出力する
+     *
+     * @param tag タグ
+     * @param msg メッセージ
+     */
+    public static void i(String tag, String msg) {
+        if(androidLog) {
+            try {
+                Log.i(tag, msg);
+                return;
+            } catch(RuntimeException | LinkageError e) {
+                androidLog = false;
+            }
+        }
+        System.out.println("I/" + tag + ": " + msg);
+    }
+}
@@ -0,0 +1,263 @@
+package jp.co.webfrontier.breakout;
+
+import android.content.res.Resources;
+import android.view.View;
+import android.widget.TextView;
+
+/**
+ * ステータス領域(残りボール数、残りブロック数、経過時間、得点)の表示を管理するクラス
+ * 表示する値が変わったときだけTextViewを更新する
+ * TextViewの参照と表示用の文字バッファは使い回し、表示の更新でオブジェクトを生成しない
+ */
+public class Hud {
+    /**
+     * 残りボール数の表示
+     */
+    private final Field remainingBalls;
+
+    /**
+     * 残りブロック数の表示
+     */
+    private final Field remainingBricks;
+
+    /**
+     * 経過時間の表示
+     */
+    private final Field elapsed;
+
+    /**
+     * 得点の表示
+     */
+    private final Field score;
+
+    /**
+     * 表示を要求された残りボール数
+     * ゲームを更新するスレッドで書き込み、UIスレッドで読み込む
+     */
+    private volatile int requestedBalls;
+
+    /**
+     * 表示を要求された残りブロック数
+     */
+    private volatile int requestedBricks;
+
+    /**
+     * 表示を要求された経過時間(秒)
+     */
+    private volatile long requestedSeconds;
+
+    /**
+     * 表示を要求された得点
+     */
+    private volatile long requestedScore;
+
+    /**
+     * コンストラクタ
+     *
+     * @param resources リソース(見出しの文字列を取得する)
+     */
+    public Hud(Resources resources) {
+        remainingBalls = new Field(R.id.remaining_balls, resources.getText(R.string.remaining_ball_count));
+        remainingBricks = new Field(R.id.remaining_bricks, resources.getText(R.string.remaining_brick_count));
+        /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
+         * 時間表示用のUI部品(Chronometer)を配置する
+         * ゲーム内時間を管理する
+         * 開始/停止/一時停止/再開を行う
+         */
+        elapsed = new Field(R.id.elapsed_time, resources.getText(R.string.elapsed_time), true);
+        /** A-05. ゲームの得点を表示する
+         * 得点表示用のUI部品(TextView)を配置する
+         * ブロックの耐久度ごとに破壊したときに得られる得点を決める
+         * 得点を加算していき表示する
+         */
+        score = new Field(R.id.score, resources.getText(R.string.score_label));
+    }
+
+    /**
+     * 表示する値を要求する
+     * 前回要求した値から変わっていなければ何もしない
+     *
+     * @param balls 残りボール数
+     * @param bricks 残りブロック数
+     * @param seconds 経過時間(秒)
+     * @param score 得点
+     * @return true  値が変わったため、UIスレッドでapplyメソッドを呼び出す必要がある
+     * @return false 値が変わっていない
+     */
+    public boolean request(int balls, int bricks, long seconds, long score) {
+        if(balls == requestedBalls && bricks == requestedBricks && seconds == requestedSeconds
+                && score == requestedScore && remainingBalls.isShown()) {
+            return false;
+        }
+        requestedBalls = balls;
+        requestedBricks = bricks;
+        requestedSeconds = seconds;
+        requestedScore = score;
+        return true;
+    }
+
+    /**
+     * 要求された値をTextViewに反映する
+     * 表示中の値と同じ項目は更新しない
+     * UIスレッドから呼び出すこと
+     *
+     * @param root TextViewを含むルートビュー
+     */
+    public void apply(View root) {
+        remainingBalls.show(root, requestedBalls);
+        remainingBricks.show(root, requestedBricks);
+        elapsed.show(root, requestedSeconds);
+        score.show(root, requestedScore);
+    }
+
+    /**
+     * ステータス領域の1項目の表示
+     * 「見出し＋数値」の形式で表示する
+     * 時間の項目は秒数を「分:秒」の形式で表示する
+     */
+    private static class Field {
+        /**
+         * long型の数値の最大桁数(符号を含む)
+         */
+        private static final int MAX_DIGITS = 20;
+
+        /**
+         * 表示先のTextViewのID
+         */
+        private final int id;
+
+        /**
+         * 表示先のTextView
+         * 初めて表示するときに取得して使い回す
+         */
+        private TextView view = null;
+
+        /**
+         * 表示用の文字バッファ
+         * 先頭に見出しを格納しておき、その後ろに数値を書き込む
+         */
+        private final char[] buffer;
+
+        /**
+         * 見出しの文字数
+         */
+        private final int labelLength;
+
+        /**
+         * 時間の項目かどうか
+         */
+        private final boolean clock;
+
+        /**
+         * 表示中の値
+         */
+        private long shownValue = 0;
+
+        /**
+         * 一度でも表示したか
+         */
+        private boolean shown = false;
+
+        /**
+         * コンストラクタ
+         *
+         * @param id 表示先のTextViewのID
+         * @param label 見出し
+         */
+        Field(int id, CharSequence label) {
+            this(id, label, false);
+        }
+
+        /**
+         * コンストラクタ
+         *
+         * @param id 表示先のTextViewのID
+         * @param label 見出し
+         * @param clock 時間の項目かどうか
+         */
+        Field(int id, CharSequence label, boolean clock) {
+            this.id = id;
+            this.clock = clock;
+            labelLength = label.length();
+            buffer = new char[labelLength + MAX_DIGITS];
+            for(int i = 0; i < labelLength; i++) {
+                buffer[i] = label.charAt(i);
+            }
+        }
+
+        /**
+         * 一度でも表示したか
+         *
+         * @return true 表示済み
+         */
+        boolean isShown() { return shown; }
+
+        /**
+         * 値を表示する
+         * 表示中の値と同じ場合は何もしない
+         *
+         * @param root TextViewを含むルートビュー
+         * @param value 表示する値
+         */
+        void show(View root, long value) {
+            if(shown && value == shownValue) {
+                return;
+            }
+            if(view == null) {
+                view = (TextView)root.findViewById(id);
+                if(view == null) {
+                    return;
+                }
+            }
+            view.setText(buffer, 0, clock ? formatClock(value) : format(value));
+            shownValue = value;
+            shown = true;
+        }
+
+        /**
+         * 見出しの後ろに数値を書き込む
+         *
+         * @param value 数値
+         * @return 見出しを含めた文字数
+         */
+        private int format(long value) {
+            // 下の桁から順にバッファの末尾へ書き込み、最後に見出しの直後へ詰める
+            int pos = buffer.length;
+            final boolean negative = value < 0;
+            do {
+                final int digit = (int)(value % 10);
+                buffer[--pos] = (char)('0' + (negative ? -digit : digit));
+                value /= 10;
+            } while(value != 0);
+            if(negative) {
+                buffer[--pos] = '-';
+            }
+            final int digits = buffer.length - pos;
+            System.arraycopy(buffer, pos, buffer, labelLength, digits);
+            return labelLength + digits;
+        }
+
+        /**
+         * 見出しの後ろに秒数を「分:秒」の形式で書き込む
+         * 分は2桁以上、秒は2桁で書き込む
+         *
+         * @param seconds 秒数
+         * @return 見出しを含めた文字数
+         */
+        private int formatClock(long seconds) {
+            final long minutes = seconds / 60;
+            final int sec = (int)(seconds % 60);
+            int length = format(minutes);
+            if(minutes < 10) {
+                // 分を2桁にそろえる
+                System.arraycopy(buffer, labelLength, buffer, labelLength + 1, length - labelLength);
+                buffer[labelLength] = '0';
+                length++;
+            }
+            buffer[length++] = ':';
+            buffer[length++] = (char)('0' + sec / 10);
+            buffer[length++] = (char)('0' + sec % 10);
+            return length;
+        }
+    }
+}
@@ -1,11 +1,5 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Point;
-import android.graphics.Rect;
-
 /**
  * ゲームの表示要素の抽象クラス
  * 新しい表示要素を作成する場合はこのクラスを継承すること
@@ -15,7 +9,7 @@ public abstract class Item {
     /**
      * 表示要素のデフォルト色
      */
-    private static final int DEFAULT_COLOR = Color.WHITE;
+    private static final int DEFAULT_COLOR = GameColor.WHITE;
 
     /**
      * 表示要素の更新を行う
@@ -27,12 +21,13 @@ public abstract class Item {
     /**
      * 表示要素の描画を行う
      * 継承先のクラスでは表示要素に応じた描画処理を実装すること
+     * 描画は描画先(Renderer)を通して行い、android.graphics.Canvasには直接描画しない
      *
-     * @param canvas 描画するキャンバス
+     * @param renderer 描画先
      * @param x 描画を開始する座標(X座標)
      * @param y 描画を開始する座標(Y座標)
      */
-    public void draw(Canvas canvas, int x, int y) {}
+    public void draw(Renderer renderer, int x, int y) {}
 
     /**
      * 衝突判定に使用する領域を取得する
@@ -40,14 +35,14 @@ public abstract class Item {
      *
      * @return 衝突判定領域
      */
-    public Rect getRect() { return rect; }
+    public Bounds getRect() { return rect; }
 
     /**
      * 衝突判定に使用する領域の中心座標を取得する
      *
      * @return 中心座標
      */
-    public Point getCenter() { return center; }
+    public Position getCenter() { return center; }
 
     /**
      * 表示要素の色を取得する(getter)
@@ -65,7 +60,6 @@ public abstract class Item {
      */
     public void setColor(final int color) {
         this.color = color;
-        painter.setColor(color);
     }
 
     /**
@@ -77,24 +71,95 @@ public abstract class Item {
      * @return false 衝突していない
      */
     public boolean isCollided(Item target) {
-        final Rect r = target.getRect();
+        final Bounds r = target.getRect();
         return rect.intersects(r.left, r.top, r.right, r.bottom);
     }
 
+    /**
+     * 更新前の位置を覚えておく
+     * 描画時に前回の位置と現在の位置の間を補間するために使う
+     */
+    public void savePosition() {
+        prevRect.set(rect);
+    }
+
+    /**
+     * 更新前の領域を取得する
+     *
+     * @return 前回の更新前の領域
+     */
+    public Bounds getPrevRect() { return prevRect; }
+
+    /**
+     * 他の表示要素の描画に必要な状態をコピーする
+     * 描画用のスナップショット(RenderSnapshot)に表示要素の写しを作るときに使う
+     * 継承先のクラスで描画に使う状態を追加した場合は、オーバーライドしてコピーすること
+     *
+     * @param src コピー元の表示要素
+     */
+    public void copyFrom(Item src) {
+        rect.set(src.rect);
+        prevRect.set(src.prevRect);
+        center.set(src.center.x, src.center.y);
+        color = src.color;
+    }
+
+    /**
+     * 補間した描画位置までのずれ(X方向)を取得する
+     * 前回の位置を覚えていない場合は補間しない
+     *
+     * @param alpha 補間係数(0: 前回の位置, 1: 現在の位置)
+     * @return 現在の位置からのずれ
+     */
+    public int getInterpolationX(float alpha) {
+        if(prevRect.isEmpty()) {
+            return 0;
+        }
+        return Math.round((rect.left - prevRect.left) * (alpha - 1));
+    }
+
+    /**
+     * 補間した描画位置までのずれ(Y方向)を取得する
+     * 前回の位置を覚えていない場合は補間しない
+     *
+     * @param alpha 補間係数(0: 前回の位置, 1: 現在の位置)
+     * @return 現在の位置からのずれ
+     */
+    public int getInterpolationY(float alpha) {
+        if(prevRect.isEmpty()) {
+            return 0;
+        }
+        return Math.round((rect.top - prevRect.top) * (alpha - 1));
+    }
+
     /**
      * 表示要素の領域
      */
-    protected Rect rect = new Rect();
+    protected Bounds rect = new Bounds();
 
     /**
-     * 表示要素の中心座標
+     * 前回の更新前の表示要素の領域
+     * 描画時の補間に使う
      */
-    protected Point center = new Point();
+    protected Bounds prevRect = new Bounds();
 
     /**
-     * ペインター
+     * 表示要素の中心座標
      */
-    protected Paint painter = new Paint();
+    protected Position center = new Position();
 
     protected int color = DEFAULT_COLOR;
+
+    /**
+     * EntityRegistryに登録されているときのハンドル
+     * 登録されていないときはEntityRegistry#INVALID_HANDLE
+     */
+    int handle = EntityRegistry.INVALID_HANDLE;
+
+    /**
+     * EntityRegistryに登録されているときのハンドルを取得する
+     *
+     * @return ハンドル
+     */
+    public int getHandle() { return handle; }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package jp.co.webfrontier.breakout;
+
+import java.util.ArrayList;
+
+/**
+ * 表示要素を使い回すためのプールの基底クラス
+ * ゲーム中に表示要素を生成、破棄し続けるとガベージコレクションでゲームが止まることがあるため、
+ * 使い終わった表示要素をプールへ戻し、次に必要になったときに再利用する
+ * 継承先のクラスでは表示要素の生成処理を実装すること
+ *
+ * @param <T> 表示要素の型
+ */
+public abstract class ItemPool<T extends Item> {
+    /**
+     * 再利用できる表示要素
+     */
+    private final ArrayList<T> free = new ArrayList<>();
+
+    /**
+     * プールにあった表示要素を再利用した回数
+     */
+    private int hitCount = 0;
+
+    /**
+     * プールが空で新たに生成した回数
+     */
+    private int missCount = 0;
+
+    /**
+     * 表示要素を取り出す
+     * プールが空の場合は新たに生成する
+     * 取り出した表示要素は、使う前に状態を初期化すること
+     *
+     * @return 表示要素
+     */
+    public T obtain() {
+        final int n = free.size();
+        if(n > 0) {
+            hitCount++;
+            return free.remove(n - 1);
+        }
+        missCount++;
+        return create();
+    }
+
+    /**
+     * 使い終わった表示要素をプールへ戻す
+     *
+     * @param item 表示要素
+     */
+    public void release(T item) {
+        free.add(item);
+    }
+
+    /**
+     * 表示要素を新たに生成する
+     *
+     * @return 生成した表示要素
+     */
+    protected abstract T create();
+
+    /**
+     * プールにある表示要素の数を取得する
+     *
+     * @return 表示要素の数
+     */
+    public int getFreeCount() { return free.size(); }
+
+    /**
+     * 再利用した回数を取得する
+     *
+     * @return 再利用した回数
+     */
+    public int getHitCount() { return hitCount; }
+
+    /**
+     * 新たに生成した回数を取得する
+     *
+     * @return 生成した回数
+     */
+    public int getMissCount() { return missCount; }
+}
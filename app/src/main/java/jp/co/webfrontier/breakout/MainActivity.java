@@ -1,28 +1,39 @@
 package jp.co.webfrontier.breakout;
 
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.graphics.Point;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
+import android.hardware.display.DisplayManager;
+import android.os.BatteryManager;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.PowerManager;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
+import android.view.Display;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.WindowManager;
 import android.widget.Button;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * ブロック崩しアプリのメインアクティビティ
  * クリックイベントをハンドルするためにOnClickListenerインターフェースを実装します
  */
-public class MainActivity extends AppCompatActivity implements View.OnClickListener, SensorEventListener, BlueNinjaListener {
+public class MainActivity extends AppCompatActivity implements View.OnClickListener, SensorEventListener, BlueNinjaListener, DisplayManager.DisplayListener, PerformanceProfileListener {
 
     /**
      * デバッグログ用タグ
@@ -44,6 +55,39 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
      */
     private BlueNinjaController blueNinjaController = new BlueNinjaController(this);
 
+    /**
+     * ディスプレイ管理
+     * リフレッシュレートが切り替わったことを受け取る
+     */
+    private DisplayManager displayManager;
+
+    /**
+     * 性能プロファイルの選択
+     * 端末の温度と電池の状態から、描画、センサー、BLEの頻度と描画する解像度を選ぶ
+     */
+    private final PerformanceGovernor performanceGovernor = new PerformanceGovernor();
+
+    /**
+     * 電池の状態と省電力モードの変化を受け取るレシーバー
+     */
+    private final BroadcastReceiver powerStateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            updatePerformanceProfile(intent);
+        }
+    };
+
+    /**
+     * 前回受け取った電池の状態
+     * 省電力モードが変わったときは電池の状態が届かないため、前回の状態を使う
+     */
+    private Intent lastBatteryStatus = null;
+
+    /**
+     * 加速度センサー
+     */
+    private Sensor accelerometer = null;
+
     /**
      * Activityのライフタイム管理
      */
@@ -61,8 +105,18 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         Log.d(TAG, "アクティビティが生成されたよ");
 
         sensorManager = (SensorManager)getSystemService(SENSOR_SERVICE);
+        displayManager = (DisplayManager)getSystemService(Context.DISPLAY_SERVICE);
 
         blueNinjaController.init();
+        performanceGovernor.setListener(this);
+
+        // 最高の性能より、長時間遊び続けても落ちない性能を優先する
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            final PowerManager pm = (PowerManager)getSystemService(Context.POWER_SERVICE);
+            if(pm.isSustainedPerformanceModeSupported()) {
+                getWindow().setSustainedPerformanceMode(true);
+            }
+        }
 
         /**
          * B-05．スタートボタンを作成する
@@ -73,6 +127,14 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
          */
         Button btn = (Button)findViewById(R.id.start_btn);
         btn.setOnClickListener(this);
+        // スタートボタンの長押しで処理時間の計測を開始、停止する
+        btn.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                breakoutView.setProfilerEnabled(!breakoutView.isProfilerEnabled());
+                return true;
+            }
+        });
         /**
          * B-14．BLEデバイスと接続してパッド操作を行う
          * AndroidStudioのデザイン画面からボタンウィジェットを追加する
@@ -118,14 +180,17 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
 
         // 効果音リソースの解放
         SoundController.release();
-        
+
         /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
          * 時間表示用のUI部品(Chronometer)を配置する
          * ゲーム内時間を管理する
          * 開始/停止/一時停止/再開を行う
          */
-        // ゲームの経過時間を表示するためのカウンタを一時停止
-        breakoutView.pauseElapsedTimeCounter();
+        // 前面にない間はゲームの更新と描画を止める(ゲーム内時間も止まる)
+        breakoutView.pauseLoop();
+
+        displayManager.unregisterDisplayListener(this);
+        unregisterReceiver(powerStateReceiver);
     }
 
     /**
@@ -137,20 +202,29 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
 
         Log.d(TAG, "アクティビティが再開したよ");
 
-        /** A-03. ゲーム開始からの経過時間(ゲーム内時間)を表示する
-         * 時間表示用のUI部品(Chronometer)を配置する
-         * ゲーム内時間を管理する
-         * 開始/停止/一時停止/再開を行う
-         */
-        // ゲームの経過時間を表示するためのカウンタの再開
-        breakoutView.resumeElapsedTimeCounter();
-
         final List<Sensor> sensors = sensorManager.getSensorList(Sensor.TYPE_ACCELEROMETER);
-        if(sensors.size() > 0) {
-            final Sensor s = sensors.get(0);
-            sensorManager.registerListener(this, s, SensorManager.SENSOR_DELAY_UI);
+        accelerometer = sensors.size() > 0 ? sensors.get(0) : null;
+
+        // 端末の温度と電池の状態から性能プロファイルを選ぶ
+        // 電池の状態は登録したときに最新の状態が届く
+        final IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        final Intent battery = registerReceiver(powerStateReceiver, filter);
+        if(battery != null) {
+            lastBatteryStatus = battery;
+        }
+        // 切り替わった場合はonProfileChangedメソッドで反映されるため、切り替わらなかった場合だけ反映する
+        if(!updatePerformanceProfile(null)) {
+            applyPerformanceProfile(performanceGovernor.getProfile());
         }
 
+        // ディスプレイが対応するリフレッシュレートと性能プロファイルから描画の頻度を選ぶ
+        setupDisplayRate();
+        displayManager.registerDisplayListener(this, null);
+
+        // ゲームの更新と描画を再開する
+        breakoutView.resumeLoop();
+
         // 効果音制御の初期化
         SoundController.initialize(this);
     }
@@ -236,6 +310,7 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         switch(event.getAction()) {
             case MotionEvent.ACTION_DOWN: // 押下された場合
                 Log.d(TAG, "発生したアクションはACTION_DOWNだよ");
+                breakoutView.onTouchDown(event.getX(), event.getY());
                 break;
             case MotionEvent.ACTION_UP: // 指を持ち上げた場合
                 Log.d(TAG, "発生したアクションはACTION_UPだよ");
@@ -246,6 +321,7 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
                 break;
             case MotionEvent.ACTION_CANCEL: // UP+DOWNの同時発生(＝キャンセル)の場合
                 Log.d(TAG, "発生したアクションはACTION_CANCELだよ");
+                breakoutView.onTouchCancel();
                 break;
             case MotionEvent.ACTION_OUTSIDE: // ターゲットとするUIの範囲外で発生した場合
                 Log.d(TAG, "発生したアクションはACTION_OUTSIDEだよ");
@@ -337,4 +413,166 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
             Log.d(TAG, "BlueNinjaからのデータが不正です");
         }
     }
+
+    /**
+     * 端末の状態から性能プロファイルを選び直す
+     * 切り替わった場合はonProfileChangedメソッドが呼ばれる
+     *
+     * @param intent 受け取った電池の状態または省電力モードの変化(ない場合はnull)
+     * @return true プロファイルが切り替わった
+     */
+    private boolean updatePerformanceProfile(Intent intent) {
+        if(intent != null && Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+            lastBatteryStatus = intent;
+        }
+        final PowerManager pm = (PowerManager)getSystemService(Context.POWER_SERVICE);
+        int percent = -1;
+        boolean charging = false;
+        int temperature = PerformanceGovernor.UNKNOWN_TEMPERATURE;
+        if(lastBatteryStatus != null) {
+            final int level = lastBatteryStatus.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+            final int scale = lastBatteryStatus.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+            if(level >= 0 && scale > 0) {
+                percent = level * 100 / scale;
+            }
+            charging = lastBatteryStatus.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+            temperature = lastBatteryStatus.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, PerformanceGovernor.UNKNOWN_TEMPERATURE);
+        }
+        return performanceGovernor.update(pm.isPowerSaveMode(), percent, charging, temperature);
+    }
+
+    /**
+     * 性能プロファイルが切り替わったときに呼ばれる
+     * PerformanceProfileListenerインターフェースの実装
+     *
+     * @param from 切り替わる前のプロファイル
+     * @param to 切り替わった後のプロファイル
+     * @param reason 切り替えた理由
+     */
+    @Override
+    public void onProfileChanged(PerformanceGovernor.Profile from, PerformanceGovernor.Profile to, String reason) {
+        applyPerformanceProfile(to);
+    }
+
+    /**
+     * 性能プロファイルを描画、センサー、BLEに反映する
+     *
+     * @param profile 性能プロファイル
+     */
+    private void applyPerformanceProfile(PerformanceGovernor.Profile profile) {
+        Log.d(TAG, "性能プロファイルを反映するよ: " + profile.getName()
+                + "(描画: " + profile.getFrameProfile().getName()
+                + ", 解像度の上限: " + profile.getMaxRenderScale() + ")");
+        setPowerProfile(profile.getFrameProfile());
+        breakoutView.setMaxRenderScale(profile.getMaxRenderScale());
+        blueNinjaController.setPowerSettings(profile.getScanMode(), profile.getConnectionPriority());
+
+        // センサーの頻度を変えるには登録し直す
+        if(accelerometer != null) {
+            sensorManager.unregisterListener(this);
+            sensorManager.registerListener(this, accelerometer, profile.getSensorDelay());
+        }
+    }
+
+    /**
+     * 現在の性能プロファイルを取得する
+     *
+     * @return 性能プロファイル
+     */
+    public PerformanceGovernor.Profile getPerformanceProfile() {
+        return performanceGovernor.getProfile();
+    }
+
+    /**
+     * 描画の頻度の電力プロファイルを設定する
+     * ディスプレイに要求するリフレッシュレートも選び直す
+     *
+     * @param profile 電力プロファイル
+     */
+    public void setPowerProfile(FramePacer.PowerProfile profile) {
+        breakoutView.setPowerProfile(profile);
+        requestDisplayRate();
+    }
+
+    /**
+     * ディスプレイが対応するリフレッシュレートをビューへ通知し、描画に使うリフレッシュレートを要求する
+     */
+    @SuppressWarnings("deprecation")
+    private void setupDisplayRate() {
+        final Display display = getWindowManager().getDefaultDisplay();
+        float[] rates;
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            // 解像度が同じ表示モードのリフレッシュレートだけを候補にする
+            final Display.Mode current = display.getMode();
+            final Display.Mode[] modes = display.getSupportedModes();
+            rates = new float[modes.length];
+            int n = 0;
+            for(Display.Mode mode : modes) {
+                if(mode.getPhysicalWidth() == current.getPhysicalWidth()
+                        && mode.getPhysicalHeight() == current.getPhysicalHeight()) {
+                    rates[n++] = mode.getRefreshRate();
+                }
+            }
+            rates = Arrays.copyOf(rates, n);
+        } else {
+            rates = display.getSupportedRefreshRates();
+        }
+        breakoutView.setDisplayRates(rates, display.getRefreshRate());
+        requestDisplayRate();
+    }
+
+    /**
+     * 描画に使うリフレッシュレートをディスプレイに要求する
+     * 実際に切り替わるとonDisplayChangedメソッドが呼ばれる
+     */
+    private void requestDisplayRate() {
+        final float preferred = breakoutView.getPreferredDisplayRate();
+        final WindowManager.LayoutParams lp = getWindow().getAttributes();
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            final Display display = getWindowManager().getDefaultDisplay();
+            final Display.Mode current = display.getMode();
+            for(Display.Mode mode : display.getSupportedModes()) {
+                if(mode.getPhysicalWidth() == current.getPhysicalWidth()
+                        && mode.getPhysicalHeight() == current.getPhysicalHeight()
+                        && Math.abs(mode.getRefreshRate() - preferred) < 0.5f) {
+                    lp.preferredDisplayModeId = mode.getModeId();
+                    break;
+                }
+            }
+        } else {
+            lp.preferredRefreshRate = preferred;
+        }
+        getWindow().setAttributes(lp);
+        Log.d(TAG, "リフレッシュレートを要求したよ: " + preferred + "Hz");
+    }
+
+    /**
+     * ディスプレイが追加されたときに呼ばれる
+     *
+     * @param displayId ディスプレイID
+     */
+    @Override
+    public void onDisplayAdded(int displayId) {}
+
+    /**
+     * ディスプレイが取り外されたときに呼ばれる
+     *
+     * @param displayId ディスプレイID
+     */
+    @Override
+    public void onDisplayRemoved(int displayId) {}
+
+    /**
+     * ディスプレイの状態が変わったときに呼ばれる
+     * リフレッシュレートが切り替わっていれば描画の頻度を選び直す
+     *
+     * @param displayId ディスプレイID
+     */
+    @Override
+    public void onDisplayChanged(int displayId) {
+        final Display display = getWindowManager().getDefaultDisplay();
+        if(display.getDisplayId() == displayId) {
+            breakoutView.onDisplayRateChanged(display.getRefreshRate());
+        }
+    }
 }
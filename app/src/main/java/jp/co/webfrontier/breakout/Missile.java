@@ -1,8 +1,5 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Canvas;
-import android.graphics.Color;
-
 /** A-07. ボーナスアイテム（ミサイル）の取得
  * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
  * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
@@ -21,10 +18,19 @@ public class Missile extends Item {
      * アイテムの高さ
      */
     public static int HEIGHT = 20;
+    /**
+     * 速さ（上向きに進む量）
+     */
+    public static final int SPEED = 5;
+    /**
+     * 速度（X方向）
+     * 広がるように撃つ場合は左右にも進む
+     */
+    private int xSpeed = 0;
     /**
      * 速度（Y方向）
      */
-    private int ySpeed = -5;
+    private int ySpeed = -SPEED;
 
     /**
      * コンストラクタ
@@ -39,8 +45,32 @@ public class Missile extends Item {
      * @param y アイテムy位置
      */
     public Missile(int x, int y) {
-        color = Color.WHITE;
-        painter.setColor(color);
+        reset(x, y);
+    }
+
+    /**
+     * ミサイルを初期状態に戻す
+     * プールから取り出したミサイルを再利用するときに呼び出す
+     *
+     * @param x アイテムx位置
+     * @param y アイテムy位置
+     */
+    public void reset(int x, int y) {
+        reset(x, y, 0);
+    }
+
+    /**
+     * ミサイルを初期状態に戻し、左右に進む速度を設定する
+     *
+     * @param x アイテムx位置
+     * @param y アイテムy位置
+     * @param xSpeed 速度（X方向）
+     */
+    public void reset(int x, int y, int xSpeed) {
+        this.xSpeed = xSpeed;
+        ySpeed = -SPEED;
+        color = GameColor.WHITE;
+        prevRect.setEmpty();
         center.x = x;
         center.y = y - HEIGHT / 2;
         this.rect.set(center.x - WIDTH / 2, center.y - HEIGHT / 2, center.x + WIDTH / 2, center.y + HEIGHT / 2);
@@ -54,19 +84,20 @@ public class Missile extends Item {
      */
     @Override
     public void update() {
-        this.rect.set(rect.left, rect.top + ySpeed, rect.right, rect.bottom + ySpeed);
+        rect.offset(xSpeed, ySpeed);
+        center.offset(xSpeed, ySpeed);
     }
 
     /**
      * アイテムの描画を行う
      * Item#drawメソッドをオーバーライドして、ブロック独自の描画処理を実装する
      *
-     * @param canvas 描画するキャンバス
+     * @param renderer 描画先
      * @param x 描画を開始する座標(X座標)
      * @param y 描画を開始する座標(Y座標)
      */
     @Override
-    public void draw(Canvas canvas, int x, int y) {
-        canvas.drawRect(x + rect.left, y + rect.top, x + rect.right, y + rect.bottom, painter);
+    public void draw(Renderer renderer, int x, int y) {
+        renderer.fillRect(x + rect.left, y + rect.top, x + rect.right, y + rect.bottom, color);
     }
 }
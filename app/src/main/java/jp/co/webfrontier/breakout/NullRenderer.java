@@ -0,0 +1,26 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 何も描画しない描画先
+ * 描画を除いたゲームの処理時間を計測するときなどに使う
+ */
+public class NullRenderer implements Renderer {
+
+    /**
+     * 何もしない
+     */
+    @Override
+    public void fillRect(float left, float top, float right, float bottom, int color) {}
+
+    /**
+     * 何もしない
+     */
+    @Override
+    public void fillRoundRect(float left, float top, float right, float bottom, float rx, float ry, int color) {}
+
+    /**
+     * 何もしない
+     */
+    @Override
+    public void fillCircle(float cx, float cy, float radius, int color) {}
+}
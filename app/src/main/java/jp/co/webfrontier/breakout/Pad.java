@@ -1,15 +1,5 @@
 package jp.co.webfrontier.breakout;
 
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Point;
-import android.graphics.Rect;
-import android.view.View;
-
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * 操作パッドを表すクラス
  * 表示要素なのでItemクラスを継承する
@@ -26,17 +16,16 @@ public class Pad extends Item {
      * タップでミサイルを発射しブロックを破壊できる
      */
     /**
-     * ボーナス種別を格納するリスト
+     * ボーナスの効果が切れるまでの残り(更新回数、ボーナス種別の順番で引く)
+     * 0の場合は効果がない
      */
-    private List<Bonus.Type> bonusTypeList = new ArrayList<>();
+    private final int[] bonusRemainingTicks = new int[Bonus.Type.values().length];
 
     /**
      * コンストラクタ
      */
     public Pad() {
-        // ペインターへ色設定
-        color = Color.YELLOW;
-        painter.setColor(color);
+        color = GameColor.YELLOW;
     }
 
     /**
@@ -53,7 +42,7 @@ public class Pad extends Item {
         center.y = cy;
     }
 
-    public void setRect(Rect newRect) {
+    public void setRect(Bounds newRect) {
         rect.set(newRect);
         center.x = rect.left + rect.width()/2;
         center.y = rect.top + rect.height()/2;
@@ -80,23 +69,28 @@ public class Pad extends Item {
      * Item#updateメソッドをオーバーライドして、パッド独自の更新処理を実装する
      * 速度など状況に応じて次のフレームで表示するパッドの状態(位置、色、大きさなど)に更新する
      * この処理ではボールとの反射は考慮しない
+     * 1回の更新ごとにボーナスの効果の残りを減らす
      */
     @Override
     public void update() {
-
+        for(int i = 0; i < bonusRemainingTicks.length; i++) {
+            if(bonusRemainingTicks[i] > 0) {
+                bonusRemainingTicks[i]--;
+            }
+        }
     }
 
     /**
      * パッドの描画処理を行う
      * Item#drawメソッドをオーバーライドして、パッド独自の描画処理を実装する
      *
-     * @param canvas 描画するキャンバス
+     * @param renderer 描画先
      * @param x 描画を開始する座標(X座標)
      * @param y 描画を開始する座標(Y座標)
      */
     @Override
-    public void draw(Canvas canvas, int x, int y) {
-        canvas.drawRect(x + rect.left, y + rect.top, x + rect.right, y + rect.bottom, painter);
+    public void draw(Renderer renderer, int x, int y) {
+        renderer.fillRect(x + rect.left, y + rect.top, x + rect.right, y + rect.bottom, color);
     }
 
     /** A-07. ボーナスアイテム（ミサイル）の取得
@@ -106,10 +100,31 @@ public class Pad extends Item {
      */
     /** ボーナスアイテム（ミサイル）取得
      * ボーナスアイテム取得によるパワーアップ
+     * 効果はボーナス種別ごとに決めた時間だけ続く(効果中に取得した場合は残りを元に戻す)
      * @param type ボーナス種別
      */
     public void powerUp(Bonus.Type type) {
-        bonusTypeList.add(type);
+        bonusRemainingTicks[type.ordinal()] = type.getDurationTicks();
+    }
+
+    /**
+     * 全てのボーナスの効果をなくす
+     * 新しくゲームを始めるときに呼び出す
+     */
+    public void clearBonus() {
+        for(int i = 0; i < bonusRemainingTicks.length; i++) {
+            bonusRemainingTicks[i] = 0;
+        }
+    }
+
+    /**
+     * ボーナスの効果が切れるまでの残りを取得する
+     *
+     * @param type ボーナス種別
+     * @return 残り(更新回数) 効果がない場合は0
+     */
+    public int getBonusRemainingTicks(Bonus.Type type) {
+        return bonusRemainingTicks[type.ordinal()];
     }
 
     /**
@@ -118,6 +133,6 @@ public class Pad extends Item {
      * @retval false ミサイル無効
      */
     public boolean launchMissile() {
-        return bonusTypeList.contains(Bonus.Type.MISSILE);
+        return bonusRemainingTicks[Bonus.Type.MISSILE.ordinal()] > 0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,284 @@
+package jp.co.webfrontier.breakout;
+
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.le.ScanSettings;
+import android.hardware.SensorManager;
+
+/**
+ * 端末の温度と電池の状態から性能プロファイルを選ぶクラス
+ * 性能プロファイルは描画の頻度、センサーの頻度、BLEの通信の頻度、描画する解像度の上限の組み合わせ
+ * 長時間遊び続けても処理が間に合わなくならないよう、最高の性能より持続できる性能を優先して選ぶ
+ * (端末が熱くなってから性能を落とすのではなく、温まり始めた段階で発熱を抑える)
+ * 温度は一度上がるとすぐには下がらないため、元のプロファイルに戻すときは閾値より下がるまで待つ
+ */
+public class PerformanceGovernor {
+    /**
+     * デバッグログ用タグ
+     */
+    private static final String TAG = "PerformanceGovernor";
+
+    /**
+     * 性能プロファイル
+     * 定義した順番に負荷が低くなる(複数の条件に当てはまる場合は負荷が低い方を選ぶ)
+     */
+    public enum Profile {
+        /**
+         * 通常
+         * 端末が冷えていて電池にも余裕があるので、ディスプレイが対応する最も高い頻度で描画する
+         * (60Hzまでのディスプレイでは持続と同じ頻度になる)
+         */
+        NORMAL("通常", FramePacer.PowerProfile.PERFORMANCE, SensorManager.SENSOR_DELAY_UI,
+                ScanSettings.SCAN_MODE_BALANCED, BluetoothGatt.CONNECTION_PRIORITY_BALANCED, 1.0f),
+        /**
+         * 持続
+         * 端末が温まり始めたか電池が減ってきたので、描画を60Hzまでにして解像度も下げ、発熱を抑える
+         */
+        SUSTAINED("持続", FramePacer.PowerProfile.BALANCED, SensorManager.SENSOR_DELAY_UI,
+                ScanSettings.SCAN_MODE_BALANCED, BluetoothGatt.CONNECTION_PRIORITY_BALANCED, 0.75f),
+        /**
+         * 省電力
+         * 省電力モードか電池の残りが少ないので、描画とセンサーと通信の頻度を下げる
+         */
+        SAVER("省電力", FramePacer.PowerProfile.BATTERY_SAVER, SensorManager.SENSOR_DELAY_NORMAL,
+                ScanSettings.SCAN_MODE_LOW_POWER, BluetoothGatt.CONNECTION_PRIORITY_LOW_POWER, 0.75f),
+        /**
+         * 高温
+         * 端末が熱いので、全ての頻度と解像度を最も低くする
+         */
+        THROTTLED("高温", FramePacer.PowerProfile.BATTERY_SAVER, SensorManager.SENSOR_DELAY_NORMAL,
+                ScanSettings.SCAN_MODE_LOW_POWER, BluetoothGatt.CONNECTION_PRIORITY_LOW_POWER, FrameGovernor.MIN_SCALE);
+
+        /**
+         * プロファイル名
+         */
+        private final String name;
+
+        /**
+         * 描画の頻度の電力プロファイル
+         */
+        private final FramePacer.PowerProfile frameProfile;
+
+        /**
+         * センサーの頻度(SensorManager.SENSOR_DELAY_*)
+         */
+        private final int sensorDelay;
+
+        /**
+         * BLE機器を検索する頻度(ScanSettings.SCAN_MODE_*)
+         */
+        private final int scanMode;
+
+        /**
+         * BLE機器との通信の優先度(BluetoothGatt.CONNECTION_PRIORITY_*)
+         */
+        private final int connectionPriority;
+
+        /**
+         * 描画する解像度の倍率の上限
+         */
+        private final float maxRenderScale;
+
+        /**
+         * コンストラクタ
+         *
+         * @param name プロファイル名
+         * @param frameProfile 描画の頻度の電力プロファイル
+         * @param sensorDelay センサーの頻度
+         * @param scanMode BLE機器を検索する頻度
+         * @param connectionPriority BLE機器との通信の優先度
+         * @param maxRenderScale 描画する解像度の倍率の上限
+         */
+        private Profile(final String name, final FramePacer.PowerProfile frameProfile, final int sensorDelay,
+                        final int scanMode, final int connectionPriority, final float maxRenderScale) {
+            this.name = name;
+            this.frameProfile = frameProfile;
+            this.sensorDelay = sensorDelay;
+            this.scanMode = scanMode;
+            this.connectionPriority = connectionPriority;
+            this.maxRenderScale = maxRenderScale;
+        }
+
+        /**
+         * プロファイル名を取得する
+         *
+         * @return プロファイル名
+         */
+        public String getName() { return name; }
+
+        /**
+         * 描画の頻度の電力プロファイルを取得する
+         *
+         * @return 電力プロファイル
+         */
+        public FramePacer.PowerProfile getFrameProfile() { return frameProfile; }
+
+        /**
+         * センサーの頻度を取得する
+         *
+         * @return SensorManager.SENSOR_DELAY_*
+         */
+        public int getSensorDelay() { return sensorDelay; }
+
+        /**
+         * BLE機器を検索する頻度を取得する
+         *
+         * @return ScanSettings.SCAN_MODE_*
+         */
+        public int getScanMode() { return scanMode; }
+
+        /**
+         * BLE機器との通信の優先度を取得する
+         *
+         * @return BluetoothGatt.CONNECTION_PRIORITY_*
+         */
+        public int getConnectionPriority() { return connectionPriority; }
+
+        /**
+         * 描画する解像度の倍率の上限を取得する
+         *
+         * @return 倍率の上限
+         */
+        public float getMaxRenderScale() { return maxRenderScale; }
+    }
+
+    /**
+     * 温度が分からないことを表す値
+     */
+    public static final int UNKNOWN_TEMPERATURE = Integer.MIN_VALUE;
+
+    /**
+     * 温まり始めたとみなす温度(0.1℃単位)
+     */
+    private static final int WARM_TEMPERATURE = 400;
+
+    /**
+     * 熱いとみなす温度(0.1℃単位)
+     */
+    private static final int HOT_TEMPERATURE = 450;
+
+    /**
+     * 温度の閾値から元に戻すときに下がるのを待つ幅(0.1℃単位)
+     */
+    private static final int TEMPERATURE_HYSTERESIS = 20;
+
+    /**
+     * 電池が減ってきたとみなす残量(%)
+     */
+    private static final int LOW_BATTERY = 30;
+
+    /**
+     * 電池の残りが少ないとみなす残量(%)
+     */
+    private static final int CRITICAL_BATTERY = 15;
+
+    /**
+     * 現在の性能プロファイル
+     */
+    private Profile profile = Profile.NORMAL;
+
+    /**
+     * 温度から選んだプロファイル
+     * 元に戻すときの閾値を決めるために覚えておく
+     */
+    private Profile thermalProfile = Profile.NORMAL;
+
+    /**
+     * プロファイルの切り替えの通知先
+     */
+    private PerformanceProfileListener listener = null;
+
+    /**
+     * プロファイルの切り替えの通知先を設定する
+     *
+     * @param listener 通知先(通知しない場合はnull)
+     */
+    public void setListener(PerformanceProfileListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 端末の状態からプロファイルを選び直す
+     * 電池の状態や省電力モードが変わったときに呼び出す
+     *
+     * @param powerSave 省電力モードかどうか
+     * @param batteryPercent 電池の残量(%) 分からない場合は負の値
+     * @param charging 充電中かどうか
+     * @param temperature 電池の温度(0.1℃単位) 分からない場合はUNKNOWN_TEMPERATURE
+     * @return true プロファイルが切り替わった
+     */
+    public boolean update(boolean powerSave, int batteryPercent, boolean charging, int temperature) {
+        thermalProfile = chooseThermal(temperature);
+        Profile next = thermalProfile;
+        String reason = "温度: " + formatTemperature(temperature);
+
+        Profile power = Profile.NORMAL;
+        if(powerSave) {
+            power = Profile.SAVER;
+            reason += ", 省電力モード";
+        } else if(!charging && batteryPercent >= 0) {
+            if(batteryPercent <= CRITICAL_BATTERY) {
+                power = Profile.SAVER;
+            } else if(batteryPercent <= LOW_BATTERY) {
+                power = Profile.SUSTAINED;
+            }
+            reason += ", 電池: " + batteryPercent + "%";
+        }
+        if(power.ordinal() > next.ordinal()) {
+            next = power;
+        }
+
+        if(next == profile) {
+            return false;
+        }
+        final Profile from = profile;
+        profile = next;
+        GameLog.d(TAG, "性能プロファイルを切り替えたよ: " + from.getName() + " -> " + next.getName() + "(" + reason + ")");
+        if(listener != null) {
+            listener.onProfileChanged(from, next, reason);
+        }
+        return true;
+    }
+
+    /**
+     * 温度からプロファイルを選ぶ
+     * 前回より低いプロファイルに戻すときは、閾値より一定の幅だけ下がるまで待つ
+     *
+     * @param temperature 電池の温度(0.1℃単位)
+     * @return プロファイル
+     */
+    private Profile chooseThermal(int temperature) {
+        if(temperature == UNKNOWN_TEMPERATURE) {
+            return Profile.NORMAL;
+        }
+        final int hot = thermalProfile == Profile.THROTTLED ? HOT_TEMPERATURE - TEMPERATURE_HYSTERESIS : HOT_TEMPERATURE;
+        final int warm = thermalProfile.ordinal() >= Profile.SUSTAINED.ordinal()
+                ? WARM_TEMPERATURE - TEMPERATURE_HYSTERESIS : WARM_TEMPERATURE;
+        if(temperature >= hot) {
+            return Profile.THROTTLED;
+        }
+        if(temperature >= warm) {
+            return Profile.SUSTAINED;
+        }
+        return Profile.NORMAL;
+    }
+
+    /**
+     * 温度を表示用の文字列にする
+     *
+     * @param temperature 電池の温度(0.1℃単位)
+     * @return 表示用の文字列
+     */
+    private static String formatTemperature(int temperature) {
+        if(temperature == UNKNOWN_TEMPERATURE) {
+            return "不明";
+        }
+        return (temperature / 10f) + "℃";
+    }
+
+    /**
+     * 現在のプロファイルを取得する
+     *
+     * @return プロファイル
+     */
+    public Profile getProfile() { return profile; }
+}
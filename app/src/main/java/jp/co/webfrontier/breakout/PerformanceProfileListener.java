@@ -0,0 +1,17 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 性能プロファイルの切り替えを受け取るためのインターフェース
+ */
+
+public interface PerformanceProfileListener {
+
+    /**
+     * 性能プロファイルが切り替わったときの通知
+     *
+     * @param from 切り替わる前のプロファイル
+     * @param to 切り替わった後のプロファイル
+     * @param reason 切り替えた理由
+     */
+    public void onProfileChanged(PerformanceGovernor.Profile from, PerformanceGovernor.Profile to, String reason);
+}
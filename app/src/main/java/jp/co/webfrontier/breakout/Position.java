@@ -0,0 +1,77 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * ゲームの処理で使う座標を表すクラス
+ * ゲームの処理がAndroidのクラスに依存しないよう、android.graphics.Pointの代わりに使う
+ */
+public class Position {
+    /**
+     * X座標
+     */
+    public int x;
+
+    /**
+     * Y座標
+     */
+    public int y;
+
+    /**
+     * コンストラクタ
+     * 原点を表す座標を作る
+     */
+    public Position() {}
+
+    /**
+     * コンストラクタ
+     *
+     * @param x X座標
+     * @param y Y座標
+     */
+    public Position(int x, int y) {
+        set(x, y);
+    }
+
+    /**
+     * 座標を設定する
+     *
+     * @param x X座標
+     * @param y Y座標
+     */
+    public void set(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * 座標を移動する
+     *
+     * @param dx 移動量(X方向)
+     * @param dy 移動量(Y方向)
+     */
+    public void offset(int dx, int dy) {
+        x += dx;
+        y += dy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) {
+            return true;
+        }
+        if(!(o instanceof Position)) {
+            return false;
+        }
+        final Position p = (Position)o;
+        return x == p.x && y == p.y;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
+
+    @Override
+    public String toString() {
+        return "Position(" + x + ", " + y + ")";
+    }
+}
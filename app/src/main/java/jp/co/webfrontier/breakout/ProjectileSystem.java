@@ -0,0 +1,364 @@
+package jp.co.webfrontier.breakout;
+
+import java.util.ArrayList;
+
+/** A-07. ボーナスアイテム（ミサイル）の取得
+ * ボーナスブロックを破壊するとボーナスアイテムが降ってくる
+ * ボーナスアイテムとしてブロックを破壊できるミサイルを作成する
+ * タップでミサイルを発射しブロックを破壊できる
+ */
+/**
+ * ゲームフィールドに出ているミサイルをまとめて管理するクラス
+ * ミサイルの発射、移動、ブロックとの当たり判定、ゲームフィールドから出たミサイルの削除を行う
+ * 数百発のミサイルが同時に出ていても処理が間に合うよう、以下のようにしている
+ * ・ミサイルはプールから取り出して使い回し、発射のたびに生成しない
+ * ・ブロックとの当たり判定は、ミサイルと重なるセルのブロックだけを調べる
+ * ・ゲームフィールドのどの端から出たミサイルも、出た更新のうちに削除する
+ * 発射の間隔(連射の速さ)と、1回に撃つミサイルの並べ方(Pattern)は変更できる
+ */
+public class ProjectileSystem {
+    /**
+     * 1回の発射で撃つミサイルの並べ方
+     */
+    public enum Pattern {
+        /**
+         * 1発をまっすぐ撃つ
+         */
+        SINGLE("単発", 1, 0, 0),
+        /**
+         * 2発を横に並べてまっすぐ撃つ
+         */
+        TWIN("2連装", 2, 24, 0),
+        /**
+         * 3発を扇状に広げて撃つ
+         */
+        FAN("3方向", 3, 0, 2),
+        /**
+         * 5発を扇状に広げて撃つ
+         */
+        WIDE_FAN("5方向", 5, 0, 2);
+
+        /**
+         * 並べ方の名前
+         */
+        private final String name;
+
+        /**
+         * 1回に撃つミサイルの数
+         */
+        private final int count;
+
+        /**
+         * 隣り合うミサイルの発射位置の間隔(X方向)
+         */
+        private final int spacing;
+
+        /**
+         * 隣り合うミサイルの速度の差(X方向)
+         */
+        private final int spread;
+
+        /**
+         * コンストラクタ
+         *
+         * @param name 並べ方の名前
+         * @param count 1回に撃つミサイルの数
+         * @param spacing 隣り合うミサイルの発射位置の間隔(X方向、偶数)
+         * @param spread 隣り合うミサイルの速度の差(X方向、偶数)
+         */
+        private Pattern(final String name, final int count, final int spacing, final int spread) {
+            this.name = name;
+            this.count = count;
+            this.spacing = spacing;
+            this.spread = spread;
+        }
+
+        /**
+         * 並べ方の名前を取得する
+         *
+         * @return 並べ方の名前
+         */
+        public String getName() { return name; }
+
+        /**
+         * 1回に撃つミサイルの数を取得する
+         *
+         * @return ミサイルの数
+         */
+        public int getCount() { return count; }
+    }
+
+    /**
+     * 1秒間に発射する回数の初期値
+     */
+    public static final int DEFAULT_FIRE_RATE = 6;
+
+    /**
+     * ゲームフィールドに出ているミサイル
+     * ブロックに当たったミサイルとゲームフィールドから出たミサイルは削除予約しておき、flushでまとめて削除する
+     */
+    private final EntityRegistry<Missile> missiles = new EntityRegistry<>();
+
+    /**
+     * ミサイルのプール
+     */
+    private final ItemPool<Missile> pool = new ItemPool<Missile>() {
+        @Override
+        protected Missile create() {
+            return new Missile();
+        }
+    };
+
+    /**
+     * 当たり判定で見つけたミサイルとブロックの衝突(ミサイル側)
+     * contactBricksと同じインデックスで対になる
+     */
+    private final ArrayList<Missile> contacts = new ArrayList<>();
+
+    /**
+     * 当たり判定で見つけたミサイルとブロックの衝突(ブロック側)
+     */
+    private final ArrayList<Brick> contactBricks = new ArrayList<>();
+
+    /**
+     * ミサイルと重なるセルの範囲
+     */
+    private final Bounds cellRange = new Bounds();
+
+    /**
+     * 1回に撃つミサイルの並べ方
+     */
+    private Pattern pattern = Pattern.SINGLE;
+
+    /**
+     * 発射の間隔(更新回数)
+     */
+    private int fireIntervalTicks = FixedTimestep.TICKS_PER_SECOND / DEFAULT_FIRE_RATE;
+
+    /**
+     * 次に発射できるまでの残り(更新回数)
+     */
+    private int cooldownTicks = 0;
+
+    /**
+     * 発射ボタン(ゲームフィールド)を押し続けているか
+     * 押している間は発射の間隔ごとに撃ち続ける
+     */
+    private boolean triggerHeld = false;
+
+    /**
+     * まだ発射していない押下があるか
+     * 更新の間に押して離された場合でも1回は撃つ
+     */
+    private boolean triggerPulled = false;
+
+    /**
+     * 1回に撃つミサイルの並べ方を設定する
+     *
+     * @param pattern 並べ方
+     */
+    public void setPattern(Pattern pattern) { this.pattern = pattern; }
+
+    /**
+     * 1回に撃つミサイルの並べ方を取得する
+     *
+     * @return 並べ方
+     */
+    public Pattern getPattern() { return pattern; }
+
+    /**
+     * 連射の速さを設定する
+     * 発射は更新ごとに行うため、1秒間の更新回数より速くはできない
+     *
+     * @param shotsPerSecond 1秒間に発射する回数(1以上TICKS_PER_SECOND以下に収める)
+     */
+    public void setFireRate(int shotsPerSecond) {
+        final int rate = Math.max(1, Math.min(FixedTimestep.TICKS_PER_SECOND, shotsPerSecond));
+        fireIntervalTicks = FixedTimestep.TICKS_PER_SECOND / rate;
+    }
+
+    /**
+     * 発射の間隔を取得する
+     *
+     * @return 発射の間隔(更新回数)
+     */
+    public int getFireIntervalTicks() { return fireIntervalTicks; }
+
+    /**
+     * 発射ボタンを押す
+     */
+    public void pullTrigger() {
+        triggerHeld = true;
+        triggerPulled = true;
+    }
+
+    /**
+     * 発射ボタンを離す
+     */
+    public void releaseTrigger() {
+        triggerHeld = false;
+    }
+
+    /**
+     * 発射ボタンが押されていて、前回の発射から発射の間隔が経っていれば発射する
+     * 1回の更新につき1回呼び出す
+     *
+     * @param x 発射位置(X座標)
+     * @param y 発射位置(Y座標)
+     * @param armed ミサイルを撃てるか(ボーナスアイテムを取得済みか)
+     * @return 撃ったミサイルの数
+     */
+    public int fire(int x, int y, boolean armed) {
+        if(cooldownTicks > 0) {
+            cooldownTicks--;
+        }
+        if(!armed) {
+            triggerPulled = false;
+            return 0;
+        }
+        if(!(triggerHeld || triggerPulled) || cooldownTicks > 0) {
+            return 0;
+        }
+        triggerPulled = false;
+        cooldownTicks = fireIntervalTicks;
+        return spawn(x, y, pattern);
+    }
+
+    /**
+     * 発射の間隔に関係なく、指定した並べ方でミサイルを撃つ
+     * 弾幕の負荷試験からも呼び出す
+     *
+     * @param x 発射位置(X座標)
+     * @param y 発射位置(Y座標)
+     * @param pattern 並べ方
+     * @return 撃ったミサイルの数
+     */
+    int spawn(int x, int y, Pattern pattern) {
+        for(int i = 0; i < pattern.count; i++) {
+            // 中央からのずれ(-(count-1)...count-1 を2刻み)
+            final int k = 2 * i - (pattern.count - 1);
+            final Missile missile = pool.obtain();
+            missile.reset(x + k * pattern.spacing / 2, y, k * pattern.spread / 2);
+            missiles.add(missile);
+        }
+        return pattern.count;
+    }
+
+    /**
+     * ミサイルを移動させる
+     * 描画時に補間できるよう、移動前の位置を覚えておく
+     */
+    public void integrate() {
+        for(int i = 0; i < missiles.size(); i++) {
+            final Missile missile = missiles.get(i);
+            missile.savePosition();
+            missile.update();
+        }
+    }
+
+    /**
+     * ミサイルとブロックの当たり判定を行う
+     * ミサイルと重なるセルの壊れていないブロックだけを調べ、衝突した組み合わせを記録する
+     * ブロックの格子の外にいるミサイルはセルの範囲を求める時点で除かれる
+     *
+     * @param bricks ブロックの格子
+     */
+    public void detect(BrickGrid bricks) {
+        contacts.clear();
+        contactBricks.clear();
+
+        for(int i = 0; i < missiles.size(); i++) {
+            final Missile missile = missiles.get(i);
+            // ミサイルと重なるセルのブロックとの当たり判定
+            if(!bricks.getCellRange(missile.getRect(), cellRange)) {
+                continue;
+            }
+            for(int row = cellRange.top; row <= cellRange.bottom; row++) {
+                for(int col = cellRange.left; col <= cellRange.right; col++) {
+                    if(!bricks.isLive(row, col)) {
+                        continue;
+                    }
+                    final Brick brick = bricks.get(row, col);
+                    if(missile.isCollided(brick)) {
+                        contacts.add(missile);
+                        contactBricks.add(brick);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 当たり判定で記録した衝突について、ブロックを破壊しミサイルの削除を予約する
+     * 同じ更新で複数のミサイルが同じブロックに当たった場合、破壊するのは1回だけ
+     */
+    public void resolve() {
+        for(int i = 0; i < contacts.size(); i++) {
+            final Brick brick = contactBricks.get(i);
+            if(brick.isUnBroken()) {
+                brick.crash();
+            }
+            // 同じミサイルが複数のブロックに当たっていても削除は1回だけ行われる
+            missiles.removeLater(contacts.get(i));
+        }
+    }
+
+    /**
+     * ゲームフィールドの外に出たミサイルの削除を予約する
+     * 広げて撃ったミサイルは左右の端からも出ていく
+     *
+     * @param field ゲームフィールドの領域
+     */
+    public void cull(Bounds field) {
+        for(int i = 0; i < missiles.size(); i++) {
+            final Missile missile = missiles.get(i);
+            final Bounds r = missile.getRect();
+            if(!Bounds.intersects(r, field)) {
+                missiles.removeLater(missile);
+            }
+        }
+    }
+
+    /**
+     * 削除予約したミサイルを削除し、プールへ戻す
+     */
+    public void flush() {
+        missiles.flush(pool);
+    }
+
+    /**
+     * 全てのミサイルを削除し、発射ボタンの状態を初期化する
+     */
+    public void clear() {
+        missiles.clear(pool);
+        contacts.clear();
+        contactBricks.clear();
+        cooldownTicks = 0;
+        triggerHeld = false;
+        triggerPulled = false;
+    }
+
+    /**
+     * ゲームフィールドに出ているミサイルを取得する
+     * 描画キューに設定して、スナップショットへ写し取るために使う
+     *
+     * @return ゲームフィールドに出ているミサイル
+     */
+    public EntityRegistry<Missile> getProjectiles() { return missiles; }
+
+    /**
+     * ゲームフィールドに出ているミサイルの数を取得する
+     *
+     * @return ミサイルの数
+     */
+    public int size() { return missiles.size(); }
+
+    /**
+     * ミサイルのプールを取得する
+     * 再利用できた回数と新たに生成した回数を計測結果に含めるために使う
+     *
+     * @return ミサイルのプール
+     */
+    ItemPool<Missile> getPool() { return pool; }
+
+}
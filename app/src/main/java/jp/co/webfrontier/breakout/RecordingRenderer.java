@@ -0,0 +1,168 @@
+package jp.co.webfrontier.breakout;
+
+import java.util.Arrays;
+
+/**
+ * 描画命令を記録する描画先
+ * 実際には描画せず、描画命令の種類と引数を配列に記録する
+ * 1フレームあたりの描画命令の数を数えたり、描画内容を検証したりするときに使う
+ */
+public class RecordingRenderer implements Renderer {
+    /**
+     * 描画命令の種類
+     */
+    public enum Command {
+        /**
+         * 矩形
+         */
+        RECT,
+        /**
+         * 角丸矩形
+         */
+        ROUND_RECT,
+        /**
+         * 円
+         */
+        CIRCLE
+    }
+
+    /**
+     * 1つの描画命令で記録する引数の数
+     * 矩形は左端、上端、右端、下端、角丸矩形はさらに角の丸みの半径、円は中心座標と半径を記録する
+     */
+    private static final int ARGS_PER_COMMAND = 6;
+
+    /**
+     * 記録できる描画命令の数の初期値
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * 描画命令の種類
+     */
+    private Command[] commands = new Command[INITIAL_CAPACITY];
+
+    /**
+     * 描画命令の色
+     */
+    private int[] colors = new int[INITIAL_CAPACITY];
+
+    /**
+     * 描画命令の引数
+     */
+    private float[] args = new float[INITIAL_CAPACITY * ARGS_PER_COMMAND];
+
+    /**
+     * 記録した描画命令の数
+     */
+    private int count = 0;
+
+    /**
+     * 描画命令の種類ごとの数
+     */
+    private final int[] countByCommand = new int[Command.values().length];
+
+    /**
+     * 記録を消す
+     * 配列は使い回す
+     */
+    public void clear() {
+        count = 0;
+        Arrays.fill(countByCommand, 0);
+    }
+
+    /**
+     * 記録した描画命令の数を取得する
+     *
+     * @return 描画命令の数
+     */
+    public int getCount() { return count; }
+
+    /**
+     * 記録した描画命令のうち、指定した種類の数を取得する
+     *
+     * @param command 描画命令の種類
+     * @return 描画命令の数
+     */
+    public int getCount(Command command) { return countByCommand[command.ordinal()]; }
+
+    /**
+     * 記録した描画命令の種類を取得する
+     *
+     * @param index 描画命令の番号(記録した順)
+     * @return 描画命令の種類
+     */
+    public Command getCommand(int index) { return commands[index]; }
+
+    /**
+     * 記録した描画命令の色を取得する
+     *
+     * @param index 描画命令の番号(記録した順)
+     * @return 色
+     */
+    public int getColor(int index) { return colors[index]; }
+
+    /**
+     * 記録した描画命令の引数を取得する
+     *
+     * @param index 描画命令の番号(記録した順)
+     * @param arg 引数の番号
+     * @return 引数の値
+     */
+    public float getArg(int index, int arg) { return args[index * ARGS_PER_COMMAND + arg]; }
+
+    /**
+     * 塗りつぶした矩形の描画命令を記録する
+     */
+    @Override
+    public void fillRect(float left, float top, float right, float bottom, int color) {
+        record(Command.RECT, color, left, top, right, bottom, 0, 0);
+    }
+
+    /**
+     * 塗りつぶした角丸矩形の描画命令を記録する
+     */
+    @Override
+    public void fillRoundRect(float left, float top, float right, float bottom, float rx, float ry, int color) {
+        record(Command.ROUND_RECT, color, left, top, right, bottom, rx, ry);
+    }
+
+    /**
+     * 塗りつぶした円の描画命令を記録する
+     */
+    @Override
+    public void fillCircle(float cx, float cy, float radius, int color) {
+        record(Command.CIRCLE, color, cx, cy, radius, 0, 0, 0);
+    }
+
+    /**
+     * 描画命令を記録する
+     *
+     * @param command 描画命令の種類
+     * @param color 色
+     * @param a0 引数1
+     * @param a1 引数2
+     * @param a2 引数3
+     * @param a3 引数4
+     * @param a4 引数5
+     * @param a5 引数6
+     */
+    private void record(Command command, int color, float a0, float a1, float a2, float a3, float a4, float a5) {
+        if(count == commands.length) {
+            commands = Arrays.copyOf(commands, count * 2);
+            colors = Arrays.copyOf(colors, count * 2);
+            args = Arrays.copyOf(args, count * 2 * ARGS_PER_COMMAND);
+        }
+        commands[count] = command;
+        colors[count] = color;
+        final int base = count * ARGS_PER_COMMAND;
+        args[base] = a0;
+        args[base + 1] = a1;
+        args[base + 2] = a2;
+        args[base + 3] = a3;
+        args[base + 4] = a4;
+        args[base + 5] = a5;
+        count++;
+        countByCommand[command.ordinal()]++;
+    }
+}
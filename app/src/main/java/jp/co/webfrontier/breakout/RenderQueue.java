@@ -0,0 +1,260 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * ゲームフィールドの表示要素を描画する順番を管理するクラス
+ * 表示要素は種類ごとのレイヤーに分けて持ち、レイヤーの順番(Layer)で描画する
+ * 1つのレイヤーには同じ種類の表示要素しか入らないため、描画処理の呼び出し先が種類ごとに決まる
+ * 更新処理はpublishでレイヤーの表示要素をスナップショットに写し取って公開し、
+ * 描画処理は公開された最新のスナップショットだけを描画する(ゲームの表示要素は直接参照しない)
+ * Androidのクラスに依存しないため、端末がない環境でもゲームの更新と描画を動かせる
+ */
+public class RenderQueue {
+    /**
+     * レイヤー
+     * 定義した順番に描画する(後のレイヤーほど手前に表示される)
+     */
+    public enum Layer {
+        /**
+         * ブロック
+         */
+        BRICKS("ブロック"),
+        /**
+         * ボーナスアイテム
+         */
+        PICKUPS("アイテム"),
+        /**
+         * ミサイル
+         */
+        PROJECTILES("ミサイル"),
+        /**
+         * ボール
+         */
+        BALLS("ボール"),
+        /**
+         * パッド
+         */
+        PAD("パッド");
+
+        /**
+         * レイヤー名
+         */
+        private final String name;
+
+        /**
+         * コンストラクタ
+         *
+         * @param name レイヤー名
+         */
+        private Layer(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * レイヤー名を取得する
+         *
+         * @return レイヤー名
+         */
+        String getName() { return name; }
+    }
+
+    /**
+     * 描画要素の輪郭をアンチエイリアスで描く分だけ、描き直す領域を広げる幅
+     */
+    private static final int BOUNDS_MARGIN = 2;
+
+    /**
+     * ブロックのレイヤー
+     */
+    private BrickGrid bricks = null;
+
+    /**
+     * ボーナスアイテムのレイヤー
+     */
+    private EntityRegistry<Bonus> pickups = null;
+
+    /**
+     * ミサイルのレイヤー
+     */
+    private EntityRegistry<Missile> projectiles = null;
+
+    /**
+     * ボールのレイヤー
+     */
+    private EntityRegistry<Ball> balls = null;
+
+    /**
+     * パッドのレイヤー
+     */
+    private Pad pad = null;
+
+    /**
+     * 更新処理から描画処理へスナップショットを受け渡すバッファ
+     */
+    private final SnapshotBuffer snapshots = new SnapshotBuffer();
+
+    /**
+     * ブロックのレイヤーを設定する
+     *
+     * @param bricks ブロックの格子
+     */
+    public void setBricks(BrickGrid bricks) { this.bricks = bricks; }
+
+    /**
+     * ボーナスアイテムのレイヤーを設定する
+     * 公開するたびにゲームフィールドに出ているアイテムを写し取るため、アイテムの追加や削除を描画側で行う必要はない
+     *
+     * @param pickups ゲームフィールドに出ているアイテム
+     */
+    public void setPickups(EntityRegistry<Bonus> pickups) { this.pickups = pickups; }
+
+    /**
+     * ミサイルのレイヤーを設定する
+     *
+     * @param projectiles ゲームフィールドに出ているミサイル
+     */
+    public void setProjectiles(EntityRegistry<Missile> projectiles) { this.projectiles = projectiles; }
+
+    /**
+     * ボールのレイヤーを設定する
+     *
+     * @param balls ゲームフィールドに出ているボール
+     */
+    public void setBalls(EntityRegistry<Ball> balls) { this.balls = balls; }
+
+    /**
+     * パッドのレイヤーを設定する
+     *
+     * @param pad パッド
+     */
+    public void setPad(Pad pad) { this.pad = pad; }
+
+    /**
+     * 全てのレイヤーを空にする
+     */
+    public void clear() {
+        bricks = null;
+        pickups = null;
+        projectiles = null;
+        balls = null;
+        pad = null;
+    }
+
+    /**
+     * レイヤーの表示要素をスナップショットに写し取って公開する
+     * 更新処理を行うスレッドから、ゲームの状態が描画できる状態のときに呼び出す
+     * 公開したスナップショットは、描画処理が次にスナップショットを取得したときから描画される
+     */
+    public void publish() {
+        snapshots.getWriteSnapshot().capture(bricks, pickups, projectiles, balls, pad);
+        snapshots.publish();
+    }
+
+    /**
+     * 描画する最新のスナップショットを取得する
+     * 描画処理を行うスレッドから呼び出す
+     *
+     * @return 最新のスナップショット
+     */
+    public RenderSnapshot acquire() {
+        return snapshots.acquire();
+    }
+
+    /**
+     * 最新のスナップショットの全てのレイヤーを順番に描画する
+     * ブロックの画像はキャッシュせず、ブロックを1つずつ描画先へ描画する
+     * 端末がない環境で描画の回数を数えたり、描画を除いた処理時間を計測したりするときに使う
+     *
+     * @param renderer 描画先
+     * @param x 描画を開始する座標(X座標)
+     * @param y 描画を開始する座標(Y座標)
+     * @param alpha 補間係数
+     */
+    public void drawUncached(Renderer renderer, int x, int y, float alpha) {
+        final RenderSnapshot snapshot = snapshots.acquire();
+        if(snapshot.hasBricks()) {
+            final int n = snapshot.getBrickRowCount() * snapshot.getBrickColCount();
+            for(int i = 0; i < n; i++) {
+                final Brick brick = snapshot.getBrick(i);
+                if(brick != null) {
+                    brick.draw(renderer, x, y);
+                }
+            }
+        }
+        drawItems(snapshot, renderer, x, y, alpha);
+    }
+
+    /**
+     * ブロック以外のレイヤーを順番に描画する
+     * ブロックを画像にキャッシュして描画する場合(BrickLayer)は、ブロックを描画してから呼び出す
+     *
+     * @param snapshot 描画するスナップショット
+     * @param renderer 描画先
+     * @param x 描画を開始する座標(X座標)
+     * @param y 描画を開始する座標(Y座標)
+     * @param alpha 補間係数
+     */
+    public static void drawItems(RenderSnapshot snapshot, Renderer renderer, int x, int y, float alpha) {
+        final RenderSnapshot.Layer<Bonus> pickups = snapshot.getPickups();
+        for(int i = 0; i < pickups.size(); i++) {
+            final Bonus bonus = pickups.get(i);
+            bonus.draw(renderer, x + bonus.getInterpolationX(alpha), y + bonus.getInterpolationY(alpha));
+        }
+        final RenderSnapshot.Layer<Missile> projectiles = snapshot.getProjectiles();
+        for(int i = 0; i < projectiles.size(); i++) {
+            final Missile missile = projectiles.get(i);
+            missile.draw(renderer, x + missile.getInterpolationX(alpha), y + missile.getInterpolationY(alpha));
+        }
+        final RenderSnapshot.Layer<Ball> balls = snapshot.getBalls();
+        for(int i = 0; i < balls.size(); i++) {
+            final Ball ball = balls.get(i);
+            ball.draw(renderer, x + ball.getInterpolationX(alpha), y + ball.getInterpolationY(alpha));
+        }
+        final Pad pad = snapshot.getPad();
+        if(pad != null) {
+            pad.draw(renderer, x + pad.getInterpolationX(alpha), y + pad.getInterpolationY(alpha));
+        }
+    }
+
+    /**
+     * 最新のスナップショットのブロック以外の表示要素を囲む領域を求める
+     * 表示要素は前回の位置と今回の位置の間に補間して描くため、両方の位置を含める
+     * 描画処理を行うスレッドから呼び出す
+     *
+     * @param out 求めた領域の格納先(ゲームフィールドの座標系)
+     */
+    public void collectBounds(Bounds out) {
+        out.setEmpty();
+        final RenderSnapshot snapshot = snapshots.acquire();
+        final RenderSnapshot.Layer<Bonus> pickups = snapshot.getPickups();
+        for(int i = 0; i < pickups.size(); i++) {
+            union(out, pickups.get(i));
+        }
+        final RenderSnapshot.Layer<Missile> projectiles = snapshot.getProjectiles();
+        for(int i = 0; i < projectiles.size(); i++) {
+            union(out, projectiles.get(i));
+        }
+        final RenderSnapshot.Layer<Ball> balls = snapshot.getBalls();
+        for(int i = 0; i < balls.size(); i++) {
+            union(out, balls.get(i));
+        }
+        final Pad pad = snapshot.getPad();
+        if(pad != null) {
+            union(out, pad);
+        }
+    }
+
+    /**
+     * 表示要素の前回の位置と今回の位置を領域に加える
+     *
+     * @param out 領域
+     * @param item 表示要素
+     */
+    private static void union(Bounds out, Item item) {
+        final Bounds r = item.getRect();
+        out.union(r.left - BOUNDS_MARGIN, r.top - BOUNDS_MARGIN, r.right + BOUNDS_MARGIN, r.bottom + BOUNDS_MARGIN);
+        final Bounds p = item.getPrevRect();
+        if(!p.isEmpty()) {
+            out.union(p.left - BOUNDS_MARGIN, p.top - BOUNDS_MARGIN, p.right + BOUNDS_MARGIN, p.bottom + BOUNDS_MARGIN);
+        }
+    }
+}
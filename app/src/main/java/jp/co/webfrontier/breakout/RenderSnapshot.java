@@ -0,0 +1,315 @@
+package jp.co.webfrontier.breakout;
+
+import java.util.ArrayList;
+
+/**
+ * ある時点のゲームフィールドの見た目を写し取ったスナップショット
+ * 更新処理は表示要素の描画に必要な状態(位置、色、壊れているかどうか)を写しへコピーして公開し、
+ * 描画処理は公開された写しだけを参照して描画する
+ * 公開した後は描画処理が参照し終わるまで書き換えないため、更新処理と描画処理の間でロックは不要になる
+ * 写しの表示要素は使い回し、公開のたびに生成することはない
+ */
+public class RenderSnapshot {
+    /**
+     * 表示要素の写しを種類ごとに持つレイヤー
+     * 写しの生成処理は継承先で実装すること
+     *
+     * @param <T> 表示要素の型
+     */
+    public static abstract class Layer<T extends Item> {
+        /**
+         * 表示要素の写し(先頭からsize個が有効)
+         */
+        private final ArrayList<T> items = new ArrayList<>();
+
+        /**
+         * 有効な写しの数
+         */
+        private int size = 0;
+
+        /**
+         * ゲームフィールドに出ている表示要素を写し取る
+         *
+         * @param src ゲームフィールドに出ている表示要素(nullの場合は空にする)
+         */
+        void capture(EntityRegistry<T> src) {
+            size = 0;
+            if(src == null) {
+                return;
+            }
+            for(int i = 0; i < src.size(); i++) {
+                if(size == items.size()) {
+                    items.add(create());
+                }
+                items.get(size++).copyFrom(src.get(i));
+            }
+        }
+
+        /**
+         * 写しの数を取得する
+         *
+         * @return 写しの数
+         */
+        public int size() { return size; }
+
+        /**
+         * 写しを取得する
+         *
+         * @param index 0以上size()未満のインデックス
+         * @return 表示要素の写し
+         */
+        public T get(int index) { return items.get(index); }
+
+        /**
+         * 表示要素の写しを新たに生成する
+         *
+         * @return 生成した写し
+         */
+        protected abstract T create();
+    }
+
+    /**
+     * ブロックの写し
+     * 描画にしか使わないため、得点は持たない
+     */
+    private static final class BrickImage extends Brick {
+        @Override
+        public int getPoint() { return 0; }
+    }
+
+    /**
+     * ブロックの格子を持っているか
+     */
+    private boolean hasBricks = false;
+
+    /**
+     * ブロックの格子の行数
+     */
+    private int brickRows = 0;
+
+    /**
+     * ブロックの格子の列数
+     */
+    private int brickCols = 0;
+
+    /**
+     * ブロックの格子の左上の座標(X座標)
+     */
+    private int brickOriginX = 0;
+
+    /**
+     * ブロックの格子の左上の座標(Y座標)
+     */
+    private int brickOriginY = 0;
+
+    /**
+     * ブロックの格子の1セルの幅
+     */
+    private int brickCellWidth = 0;
+
+    /**
+     * ブロックの格子の1セルの高さ
+     */
+    private int brickCellHeight = 0;
+
+    /**
+     * ブロックの写し(セル番号で引く)
+     */
+    private BrickImage[] bricks = new BrickImage[0];
+
+    /**
+     * セルにブロックがあるか(セル番号で引く)
+     */
+    private boolean[] brickPresent = new boolean[0];
+
+    /**
+     * ボーナスアイテムの写し
+     */
+    private final Layer<Bonus> pickups = new Layer<Bonus>() {
+        @Override
+        protected Bonus create() { return new Bonus(); }
+    };
+
+    /**
+     * ミサイルの写し
+     */
+    private final Layer<Missile> projectiles = new Layer<Missile>() {
+        @Override
+        protected Missile create() { return new Missile(); }
+    };
+
+    /**
+     * ボールの写し
+     */
+    private final Layer<Ball> balls = new Layer<Ball>() {
+        @Override
+        protected Ball create() { return new Ball(0, 0); }
+    };
+
+    /**
+     * パッドの写し
+     */
+    private final Pad pad = new Pad();
+
+    /**
+     * パッドを持っているか
+     */
+    private boolean hasPad = false;
+
+    /**
+     * ゲームフィールドの表示要素を写し取る
+     * 更新処理を行うスレッドから呼び出す
+     *
+     * @param grid ブロックの格子
+     * @param pickups ボーナスアイテム
+     * @param projectiles ミサイル
+     * @param balls ボール
+     * @param pad パッド
+     */
+    void capture(BrickGrid grid, EntityRegistry<Bonus> pickups, EntityRegistry<Missile> projectiles,
+                 EntityRegistry<Ball> balls, Pad pad) {
+        captureBricks(grid);
+        this.pickups.capture(pickups);
+        this.projectiles.capture(projectiles);
+        this.balls.capture(balls);
+        hasPad = pad != null;
+        if(hasPad) {
+            this.pad.copyFrom(pad);
+        }
+    }
+
+    /**
+     * ブロックの格子を写し取る
+     *
+     * @param grid ブロックの格子(nullの場合は空にする)
+     */
+    private void captureBricks(BrickGrid grid) {
+        hasBricks = grid != null;
+        if(!hasBricks) {
+            return;
+        }
+        brickRows = grid.getRowCount();
+        brickCols = grid.getColCount();
+        brickOriginX = grid.getOriginX();
+        brickOriginY = grid.getOriginY();
+        brickCellWidth = grid.getCellWidth();
+        brickCellHeight = grid.getCellHeight();
+
+        final int n = brickRows * brickCols;
+        if(bricks.length < n) {
+            bricks = new BrickImage[n];
+            brickPresent = new boolean[n];
+            for(int i = 0; i < n; i++) {
+                bricks[i] = new BrickImage();
+            }
+        }
+        for(int i = 0; i < n; i++) {
+            final Brick brick = grid.get(i);
+            brickPresent[i] = brick != null;
+            if(brick != null) {
+                bricks[i].copyFrom(brick);
+            }
+        }
+    }
+
+    /**
+     * ブロックの格子を持っているか
+     *
+     * @return true 持っている
+     */
+    public boolean hasBricks() { return hasBricks; }
+
+    /**
+     * ブロックの格子の行数を取得する
+     *
+     * @return 行数
+     */
+    public int getBrickRowCount() { return brickRows; }
+
+    /**
+     * ブロックの格子の列数を取得する
+     *
+     * @return 列数
+     */
+    public int getBrickColCount() { return brickCols; }
+
+    /**
+     * ブロックの格子の左上の座標(X座標)を取得する
+     *
+     * @return X座標
+     */
+    public int getBrickOriginX() { return brickOriginX; }
+
+    /**
+     * ブロックの格子の左上の座標(Y座標)を取得する
+     *
+     * @return Y座標
+     */
+    public int getBrickOriginY() { return brickOriginY; }
+
+    /**
+     * ブロックの格子の1セルの幅を取得する
+     *
+     * @return 1セルの幅
+     */
+    public int getBrickCellWidth() { return brickCellWidth; }
+
+    /**
+     * ブロックの格子の1セルの高さを取得する
+     *
+     * @return 1セルの高さ
+     */
+    public int getBrickCellHeight() { return brickCellHeight; }
+
+    /**
+     * ブロックの格子の右端の座標を取得する
+     *
+     * @return 右端の座標(X座標)
+     */
+    public int getBrickRight() { return brickOriginX + brickCols * brickCellWidth; }
+
+    /**
+     * ブロックの格子の下端の座標を取得する
+     *
+     * @return 下端の座標(Y座標)
+     */
+    public int getBrickBottom() { return brickOriginY + brickRows * brickCellHeight; }
+
+    /**
+     * セル番号からブロックの写しを取得する
+     *
+     * @param cellIndex セル番号(行 * 列数 + 列)
+     * @return ブロックの写し(セルにブロックがない場合はnull)
+     */
+    public Brick getBrick(int cellIndex) {
+        return brickPresent[cellIndex] ? bricks[cellIndex] : null;
+    }
+
+    /**
+     * ボーナスアイテムの写しを取得する
+     *
+     * @return ボーナスアイテムの写し
+     */
+    public Layer<Bonus> getPickups() { return pickups; }
+
+    /**
+     * ミサイルの写しを取得する
+     *
+     * @return ミサイルの写し
+     */
+    public Layer<Missile> getProjectiles() { return projectiles; }
+
+    /**
+     * ボールの写しを取得する
+     *
+     * @return ボールの写し
+     */
+    public Layer<Ball> getBalls() { return balls; }
+
+    /**
+     * パッドの写しを取得する
+     *
+     * @return パッドの写し(パッドがない場合はnull)
+     */
+    public Pad getPad() { return hasPad ? pad : null; }
+}
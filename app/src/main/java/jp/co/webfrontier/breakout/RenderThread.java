@@ -0,0 +1,180 @@
+package jp.co.webfrontier.breakout;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.SurfaceHolder;
+
+/**
+ * ゲームの更新と描画を行う専用スレッド
+ * ディスプレイの垂直同期(Choreographer)に合わせてBreakoutView#renderFrameメソッドを呼び出す
+ * UIスレッドではタッチやセンサー、BLEのイベント処理だけを行えばよくなる
+ */
+public class RenderThread extends HandlerThread implements Choreographer.FrameCallback {
+    /**
+     * デバッグログ用タグ
+     */
+    private static final String TAG = "RenderThread";
+
+    /**
+     * 描画先のビュー
+     */
+    private final BreakoutView view;
+
+    /**
+     * 描画先のサーフェス
+     */
+    private final SurfaceHolder holder;
+
+    /**
+     * このスレッドのChoreographer
+     * スレッドのルーパーが準備できてから取得する
+     */
+    private Choreographer choreographer;
+
+    /**
+     * 描画中かどうか
+     */
+    private volatile boolean running = false;
+
+    /**
+     * 描画を休止しているかどうか
+     * 描画スレッドからのみ読み書きする
+     */
+    private boolean parked = false;
+
+    /**
+     * このスレッドのルーパーで処理を行うハンドラ
+     * 描画スレッドで生成し、UIスレッドなど他のスレッドから参照するためvolatileにする
+     * 生成前(null)に呼ばれた再開、休止の要求は無視してよい(開始時に最初のフレームを予約するため)
+     */
+    private volatile Handler handler;
+
+    /**
+     * 休止している描画を再開する処理
+     * 毎回生成しないように使い回す
+     */
+    private final Runnable waker = new Runnable() {
+        @Override
+        public void run() {
+            if(!running || !parked) {
+                return;
+            }
+            parked = false;
+            view.onLoopResumed();
+            choreographer.postFrameCallback(RenderThread.this);
+        }
+    };
+
+    /**
+     * 描画を休止する処理
+     */
+    private final Runnable parker = new Runnable() {
+        @Override
+        public void run() {
+            if(!running || parked) {
+                return;
+            }
+            parked = true;
+            choreographer.removeFrameCallback(RenderThread.this);
+        }
+    };
+
+    /**
+     * コンストラクタ
+     *
+     * @param view 描画先のビュー
+     * @param holder 描画先のサーフェス
+     */
+    public RenderThread(BreakoutView view, SurfaceHolder holder) {
+        super(TAG, Process.THREAD_PRIORITY_DISPLAY);
+        this.view = view;
+        this.holder = holder;
+    }
+
+    /**
+     * ルーパーの準備ができたときに呼ばれる
+     * 最初のフレームの描画を予約する
+     */
+    @Override
+    protected void onLooperPrepared() {
+        Log.d(TAG, "描画スレッドを開始したよ");
+        choreographer = Choreographer.getInstance();
+        handler = new Handler(getLooper());
+        running = true;
+        choreographer.postFrameCallback(this);
+    }
+
+    /**
+     * 垂直同期ごとに呼ばれる
+     * 1フレーム分の更新と描画を行い、次のフレームの描画を予約する
+     * 次のフレームで更新するものがなければ、wakeメソッドが呼ばれるまで描画を休止する
+     *
+     * @param frameTimeNanos フレームの開始時刻(ナノ秒)
+     */
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if(!running || parked) {
+            return;
+        }
+        if(view.renderFrame(holder, frameTimeNanos)) {
+            choreographer.postFrameCallback(this);
+        } else {
+            parked = true;
+        }
+    }
+
+    /**
+     * 休止している描画を再開する
+     * どのスレッドから呼び出してもよい
+     * 描画中の場合は何もしない
+     */
+    public void wake() {
+        final Handler h = handler;
+        if(h == null) {
+            return;
+        }
+        h.removeCallbacks(waker);
+        h.post(waker);
+    }
+
+    /**
+     * 描画を休止する
+     * どのスレッドから呼び出してもよい
+     */
+    public void park() {
+        final Handler h = handler;
+        if(h == null) {
+            return;
+        }
+        h.removeCallbacks(waker);
+        h.post(parker);
+    }
+
+    /**
+     * 描画を終了し、スレッドが終わるまで待つ
+     * サーフェスが破棄される前に呼び出すこと
+     */
+    public void quitAndWait() {
+        final Handler handler = new Handler(getLooper());
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                running = false;
+                if(choreographer != null) {
+                    choreographer.removeFrameCallback(RenderThread.this);
+                }
+                quit();
+            }
+        });
+
+        try {
+            join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Log.d(TAG, "描画スレッドを終了したよ");
+    }
+}
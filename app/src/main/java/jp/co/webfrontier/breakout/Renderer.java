@@ -0,0 +1,46 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * 表示要素の描画先を表すインターフェース
+ * 表示要素はandroid.graphics.Canvasに直接描画せず、このインターフェースを通して描画する
+ * 描画先を差し替えることで、端末がなくてもゲームを動かしたり描画の回数を数えたりできる
+ *
+ * 座標はすべて描画先の座標系で指定する
+ * 色はandroid.graphics.Colorと同じARGB形式の整数で指定する
+ */
+public interface Renderer {
+
+    /**
+     * 塗りつぶした矩形を描画する
+     *
+     * @param left 左端
+     * @param top 上端
+     * @param right 右端
+     * @param bottom 下端
+     * @param color 色
+     */
+    public void fillRect(float left, float top, float right, float bottom, int color);
+
+    /**
+     * 塗りつぶした角丸矩形を描画する
+     *
+     * @param left 左端
+     * @param top 上端
+     * @param right 右端
+     * @param bottom 下端
+     * @param rx 角の丸みの半径(X方向)
+     * @param ry 角の丸みの半径(Y方向)
+     * @param color 色
+     */
+    public void fillRoundRect(float left, float top, float right, float bottom, float rx, float ry, int color);
+
+    /**
+     * 塗りつぶした円を描画する
+     *
+     * @param cx 中心座標(X座標)
+     * @param cy 中心座標(Y座標)
+     * @param radius 半径
+     * @param color 色
+     */
+    public void fillCircle(float cx, float cy, float radius, int color);
+}
@@ -0,0 +1,164 @@
+package jp.co.webfrontier.breakout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * ゲームフィールドを描画する解像度を変えるクラス
+ * 解像度の倍率は処理時間に応じてFrameGovernorが決める
+ * 解像度を下げている間は、ゲームフィールドを縮小したオフスクリーンのビットマップへ描画し、
+ * 画面へ拡大して転送する(塗りつぶす画素数が解像度の2乗に比例して減る)
+ * 解像度を下げていない間はビットマップを使わず、画面へ直接描画する
+ */
+public class ResolutionScaler {
+    /**
+     * デバッグログ用タグ
+     */
+    private static final String TAG = "ResolutionScaler";
+
+    /**
+     * 解像度の倍率の下限(FrameGovernorが下げる下限と同じ)
+     */
+    public static final float MIN_SCALE = FrameGovernor.MIN_SCALE;
+
+    /**
+     * 解像度の倍率の上限(画面の解像度のまま)
+     */
+    public static final float MAX_SCALE = FrameGovernor.MAX_SCALE;
+
+    /**
+     * 現在の解像度の倍率
+     */
+    private float scale = MAX_SCALE;
+
+    /**
+     * 要求された解像度の倍率
+     * 上限で抑えている間も覚えておき、上限が上がったら要求された倍率に戻す
+     */
+    private float requestedScale = MAX_SCALE;
+
+    /**
+     * 解像度の倍率の上限
+     * 処理時間に余裕があっても、この倍率より上げない
+     */
+    private float maxScale = MAX_SCALE;
+
+    /**
+     * 縮小して描画するビットマップ
+     * 画面の解像度の大きさで確保し、左上の一部だけを使う
+     */
+    private Bitmap buffer = null;
+
+    /**
+     * ビットマップへ描画するキャンバス
+     */
+    private final Canvas bufferCanvas = new Canvas();
+
+    /**
+     * ビットマップを拡大して転送するペインター
+     */
+    private final Paint blitPainter = new Paint();
+
+    /**
+     * ビットマップの転送元の領域
+     */
+    private final Rect srcRect = new Rect();
+
+    /**
+     * ビットマップの転送先の領域
+     */
+    private final Rect dstRect = new Rect();
+
+    /**
+     * コンストラクタ
+     */
+    public ResolutionScaler() {
+        // 拡大したときにドットが目立たないよう補間する
+        blitPainter.setFilterBitmap(true);
+    }
+
+    /**
+     * 解像度の倍率を設定する
+     * 倍率の上限を超える場合は上限に収める
+     *
+     * @param scale 倍率(MIN_SCALE以上MAX_SCALE以下)
+     */
+    public void setScale(float scale) {
+        requestedScale = scale;
+        this.scale = Math.max(MIN_SCALE, Math.min(maxScale, scale));
+    }
+
+    /**
+     * 解像度の倍率の上限を設定する
+     * 現在の倍率が上限を超えている場合は上限まで下げ、上限が上がった場合は要求された倍率まで戻す
+     *
+     * @param maxScale 倍率の上限(MIN_SCALE以上MAX_SCALE以下)
+     */
+    public void setMaxScale(float maxScale) {
+        this.maxScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, maxScale));
+        scale = Math.max(MIN_SCALE, Math.min(this.maxScale, requestedScale));
+    }
+
+    /**
+     * 現在の解像度の倍率を取得する
+     *
+     * @return 倍率(MIN_SCALE以上MAX_SCALE以下)
+     */
+    public float getScale() { return scale; }
+
+    /**
+     * 解像度を下げて描画しているかどうか
+     *
+     * @return true 縮小したビットマップへ描画している
+     */
+    public boolean isReduced() { return scale < MAX_SCALE; }
+
+    /**
+     * 縮小して描画するキャンバスを用意する
+     * キャンバスの原点はゲームフィールドの左上で、縮小した大きさの領域に描画すること
+     *
+     * @param width ゲームフィールドの幅(画面の解像度)
+     * @param height ゲームフィールドの高さ(画面の解像度)
+     * @return 描画先のキャンバス
+     */
+    public Canvas begin(int width, int height) {
+        if(buffer == null || buffer.getWidth() != width || buffer.getHeight() != height) {
+            release();
+            buffer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            bufferCanvas.setBitmap(buffer);
+        }
+        srcRect.set(0, 0, (int)Math.ceil(width * scale), (int)Math.ceil(height * scale));
+        bufferCanvas.save();
+        bufferCanvas.clipRect(srcRect);
+        return bufferCanvas;
+    }
+
+    /**
+     * 縮小して描画した内容を拡大して転送する
+     *
+     * @param canvas 転送先のキャンバス
+     * @param x 転送先の座標(X座標)
+     * @param y 転送先の座標(Y座標)
+     * @param width ゲームフィールドの幅(画面の解像度)
+     * @param height ゲームフィールドの高さ(画面の解像度)
+     */
+    public void end(Canvas canvas, int x, int y, int width, int height) {
+        bufferCanvas.restore();
+        dstRect.set(x, y, x + width, y + height);
+        canvas.drawBitmap(buffer, srcRect, dstRect, blitPainter);
+    }
+
+    /**
+     * ビットマップを破棄する
+     * サーフェスが破棄されたときに呼び出す
+     */
+    public void release() {
+        if(buffer != null) {
+            bufferCanvas.setBitmap(null);
+            buffer.recycle();
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package jp.co.webfrontier.breakout;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 更新処理から描画処理へスナップショットを受け渡すトリプルバッファ
+ * スナップショットを3つ持ち、更新処理が書き込む1つ、描画処理が読み込む1つ、受け渡し用の1つに分けて使う
+ * 更新処理は書き込み終えたスナップショットを受け渡し用と入れ替え、
+ * 描画処理は新しいスナップショットが受け渡されていれば読み込み用と入れ替える
+ * 入れ替えは1回の不可分操作で行うため、どちらの処理も相手を待つことはない
+ * 描画が間に合わない間に公開されたスナップショットは、より新しいスナップショットで上書きされる
+ */
+public class SnapshotBuffer {
+    /**
+     * 受け渡し用のスナップショットが未読であることを表すビット
+     */
+    private static final int FRESH = 1 << 2;
+
+    /**
+     * 受け渡し用の値からスナップショットの番号を取り出すマスク
+     */
+    private static final int INDEX_MASK = FRESH - 1;
+
+    /**
+     * スナップショット
+     */
+    private final RenderSnapshot[] snapshots = {
+            new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot()
+    };
+
+    /**
+     * 受け渡し用のスナップショットの番号と未読のビット
+     */
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    /**
+     * 更新処理が書き込むスナップショットの番号
+     * 更新処理を行うスレッドだけが参照する
+     */
+    private int writeIndex = 0;
+
+    /**
+     * 描画処理が読み込むスナップショットの番号
+     * 描画処理を行うスレッドだけが参照する
+     */
+    private int readIndex = 2;
+
+    /**
+     * 更新処理が書き込むスナップショットを取得する
+     * 書き込み終えたらpublishを呼び出すこと
+     *
+     * @return 書き込み先のスナップショット
+     */
+    RenderSnapshot getWriteSnapshot() {
+        return snapshots[writeIndex];
+    }
+
+    /**
+     * 書き込み終えたスナップショットを公開する
+     * 前回公開したスナップショットが読み込まれていなければ、そのスナップショットを次の書き込み先にする
+     */
+    void publish() {
+        writeIndex = middle.getAndSet(writeIndex | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * 描画処理が読み込むスナップショットを取得する
+     * 新しいスナップショットが公開されていれば、そのスナップショットに切り替える
+     * 次にacquireを呼び出すまで、取得したスナップショットが書き換えられることはない
+     *
+     * @return 最新のスナップショット
+     */
+    public RenderSnapshot acquire() {
+        if((middle.get() & FRESH) != 0) {
+            readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+        }
+        return snapshots[readIndex];
+    }
+}
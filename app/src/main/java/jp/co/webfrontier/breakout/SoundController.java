@@ -76,15 +76,50 @@ public class SoundController {
         ID_LOST_BALL = sSoundPool.load(sActivity, R.raw.powerdown07, 1);
         ID_CLEAR = sSoundPool.load(sActivity, R.raw.powerup02, 1);
         ID_GAME_OVER = sSoundPool.load(sActivity, R.raw.powerdown03, 1);
+
+        // ゲームの処理から効果音を鳴らすきっかけを受け取る
+        SoundEffect.setListener(EFFECT_LISTENER);
     }
 
     /**
      * リソース解放
      */
     public static void release() {
+        SoundEffect.setListener(null);
         sSoundPool.release();
     }
 
+    /**
+     * ゲームの処理から効果音を鳴らすきっかけを受け取り、対応する音を再生する
+     */
+    private static final SoundEffectListener EFFECT_LISTENER = new SoundEffectListener() {
+        @Override
+        public void onSoundEffect(SoundEffect effect) {
+            switch(effect) {
+                case HIT_BRICK:
+                    playHitBrick();
+                    break;
+                case HIT_HARD_BRICK:
+                    playHitHardBrick();
+                    break;
+                case HIT_PAD:
+                    playHitPad();
+                    break;
+                case LOST_BALL:
+                    playLostBall();
+                    break;
+                case CLEAR:
+                    playClear();
+                    break;
+                case GAME_OVER:
+                    playGameOver();
+                    break;
+                default:
+                    break;
+            }
+        }
+    };
+
     /** A-04. 効果音を鳴らす
      * ゲームの効果音をつける
      * ブロックを破壊したとき, 破壊できないブロックに当たったとき,パッドで反射したとき
@@ -0,0 +1,62 @@
+package jp.co.webfrontier.breakout;
+
+/** A-04. 効果音を鳴らす
+ * ゲームの効果音をつける
+ * ブロックを破壊したとき, 破壊できないブロックに当たったとき,パッドで反射したとき
+ * ボールをロストしたとき, ゲームをクリアしたとき, ゲームオーバーになったとき
+ */
+/**
+ * ゲームの効果音の種類
+ * ゲームの処理は効果音を鳴らすきっかけだけを通知し、再生は通知先(SoundController)が行う
+ * 通知先が設定されていない場合(JVM上の単体テストなど)は何もしない
+ */
+public enum SoundEffect {
+    /**
+     * ブロックを破壊したとき
+     */
+    HIT_BRICK,
+    /**
+     * 破壊できないブロックに当たったとき
+     */
+    HIT_HARD_BRICK,
+    /**
+     * パッドで反射したとき
+     */
+    HIT_PAD,
+    /**
+     * ボールをロストしたとき
+     */
+    LOST_BALL,
+    /**
+     * ゲームをクリアしたとき
+     */
+    CLEAR,
+    /**
+     * ゲームオーバーになったとき
+     */
+    GAME_OVER;
+
+    /**
+     * 効果音の通知先
+     */
+    private static volatile SoundEffectListener listener = null;
+
+    /**
+     * 効果音の通知先を設定する
+     *
+     * @param l 通知先(通知しない場合はnull)
+     */
+    public static void setListener(SoundEffectListener l) {
+        listener = l;
+    }
+
+    /**
+     * 効果音を鳴らす
+     */
+    public void play() {
+        final SoundEffectListener l = listener;
+        if(l != null) {
+            l.onSoundEffect(this);
+        }
+    }
+}
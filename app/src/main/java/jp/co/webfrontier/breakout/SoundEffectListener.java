@@ -0,0 +1,15 @@
+package jp.co.webfrontier.breakout;
+
+/**
+ * ゲームの効果音を鳴らすきっかけを受け取るためのインターフェース
+ */
+
+public interface SoundEffectListener {
+
+    /**
+     * 効果音を鳴らすときの通知
+     *
+     * @param effect 効果音の種類
+     */
+    public void onSoundEffect(SoundEffect effect);
+}
@@ -0,0 +1,181 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 弾幕の負荷試験
+ * ゲームフィールドの幅全体から一定時間ミサイルを撃ち続け、数百発が同時に出ても
+ * 温まった後はプールが空にならない(表示要素を新たに生成しない)ことを確かめる
+ * パッドはボールを追いかけるように自動で動かし、ゲームが終了したらやり直して続ける
+ *
+ * 1回の更新と描画が1フレームの予定時間(FixedTimestep#TICK_NANOS)に収まるかの計測は
+ * 実行する環境の速さで結果が変わり時間もかかるため、通常のテストでは行わない
+ * 計測する場合はシステムプロパティ breakout.benchmark を true にして実行する(gradlew test -Pbenchmark)
+ * 描画はNullRendererへ行い、端末の描画性能を除いたゲームの処理時間を計測する
+ */
+public class BarrageBenchmarkTest {
+    /**
+     * ゲームフィールドの高さ(論理座標)
+     */
+    private static final int FIELD_HEIGHT = 1600;
+
+    /**
+     * 計測する時間(更新回数)
+     */
+    private static final int MEASURED_TICKS = 30 * FixedTimestep.TICKS_PER_SECOND;
+
+    /**
+     * 計測を始める前に空回しする時間(更新回数)
+     * JITコンパイルが済む前の遅いフレームと、プールが温まる前のフレームを計測に含めない
+     */
+    private static final int WARMUP_TICKS = 10 * FixedTimestep.TICKS_PER_SECOND;
+
+    /**
+     * ミサイルを撃つ位置の数
+     * ゲームフィールドの幅を等分した位置から撃つ
+     */
+    private static final int MUZZLES = 8;
+
+    /**
+     * ミサイルを撃つ間隔(更新回数)
+     * 各位置から5方向に撃つため、ゲームフィールド全体に数百発のミサイルが出続ける
+     */
+    private static final int INTERVAL_TICKS = 10;
+
+    /**
+     * 処理時間を計測するかどうかを指定するシステムプロパティ
+     */
+    private static final String BENCHMARK_PROPERTY = "breakout.benchmark";
+
+    /**
+     * 予定時間を超えた(カクついた)フレームの割合の上限(%)
+     */
+    private static final int JANK_PERCENT = 1;
+
+    /**
+     * 同時に出ているミサイルの数の下限
+     * 弾幕として十分な負荷がかかっていることを確かめる
+     */
+    private static final int MIN_PEAK_PROJECTILES = 200;
+
+    /**
+     * ゲームの進行の通知を受け取らない通知先
+     */
+    private static final BreakoutListener NO_LISTENER = new BreakoutListener() {
+        @Override
+        public void onGameStarting() {}
+
+        @Override
+        public void onStateChanged(Breakout.State from, Breakout.State to) {}
+
+        @Override
+        public void onShowStateMessage() {}
+
+        @Override
+        public void onHideStateMessage() {}
+
+        @Override
+        public void onGameFinished(Breakout.State state) {}
+    };
+
+    private final RenderQueue queue = new RenderQueue();
+    private final Breakout game = new Breakout(queue, NO_LISTENER);
+    private final NullRenderer renderer = new NullRenderer();
+
+    /**
+     * 同時に出ていたミサイルの数の最大値
+     */
+    private int peak = 0;
+
+    @Test
+    public void barrage_reusesPooledItemsAfterWarmup() throws Exception {
+        start();
+        final ItemPool<Missile> missiles = game.getProjectiles().getPool();
+        final ItemPool<Ball> balls = game.getBallPool();
+        final ItemPool<Bonus> bonuses = game.getBonusPool();
+        final int missileMisses = missiles.getMissCount();
+        final int ballMisses = balls.getMissCount();
+        final int bonusMisses = bonuses.getMissCount();
+
+        peak = 0;
+        for(int i = 0; i < MEASURED_TICKS; i++) {
+            frame(i);
+        }
+
+        assertTrue("弾幕の負荷が足りない(projectiles: " + peak + ")", peak >= MIN_PEAK_PROJECTILES);
+        assertEquals(missileMisses, missiles.getMissCount());
+        assertEquals(ballMisses, balls.getMissCount());
+        assertEquals(bonusMisses, bonuses.getMissCount());
+        assertTrue(missiles.getHitCount() > 0);
+    }
+
+    @Test
+    public void barrage_keepsFrameBudget() throws Exception {
+        assumeTrue(Boolean.getBoolean(BENCHMARK_PROPERTY));
+        start();
+
+        peak = 0;
+        int jank = 0;
+        long worst = 0;
+        for(int i = 0; i < MEASURED_TICKS; i++) {
+            final long start = System.nanoTime();
+            frame(i);
+            final long elapsed = System.nanoTime() - start;
+            if(elapsed > FixedTimestep.TICK_NANOS) {
+                jank++;
+            }
+            worst = Math.max(worst, elapsed);
+        }
+
+        final String result = "projectiles: " + peak + ", jank: " + jank + "/" + MEASURED_TICKS
+                + ", worst: " + (worst / 1000) + "us";
+        assertTrue("弾幕の負荷が足りない(" + result + ")", peak >= MIN_PEAK_PROJECTILES);
+        assertTrue("フレームの予定時間を超えた(" + result + ")", jank * 100 <= MEASURED_TICKS * JANK_PERCENT);
+    }
+
+    /**
+     * ゲームを開始し、計測を始める前に空回しする
+     */
+    private void start() {
+        game.onGameFieldSizeChanged(new Bounds(0, 0, Breakout.WORLD_WIDTH, FIELD_HEIGHT));
+        game.setState(Breakout.State.RUNNING);
+        for(int i = 0; i < WARMUP_TICKS; i++) {
+            frame(i);
+        }
+    }
+
+    /**
+     * 1フレーム分の弾幕、更新、描画を行う
+     *
+     * @param tick 何回目の更新か
+     */
+    private void frame(int tick) {
+        if(game.getState() != Breakout.State.RUNNING) {
+            // ゲームオーバー、ゲームクリアになったらやり直す
+            game.setState(Breakout.State.READY);
+            game.setState(Breakout.State.RUNNING);
+        }
+
+        // パッドを1つ目のボールの真下へ動かす(ボールの位置は公開済みのスナップショットから取る)
+        final Pad pad = game.getPad();
+        final RenderSnapshot.Layer<Ball> balls = queue.acquire().getBalls();
+        if(balls.size() > 0) {
+            game.movePad(balls.get(0).getCenter().x, pad.getCenter().y);
+        }
+        if(tick % INTERVAL_TICKS == 0) {
+            final Bounds field = game.getGameFieldRect();
+            final int step = field.width() / MUZZLES;
+            for(int i = 0; i < MUZZLES; i++) {
+                game.getProjectiles().spawn(field.left + step / 2 + i * step, pad.getRect().top,
+                        ProjectileSystem.Pattern.WIDE_FAN);
+            }
+        }
+
+        game.update();
+        peak = Math.max(peak, game.getProjectiles().size());
+        queue.drawUncached(renderer, 0, 0, 1.0f);
+    }
+}
@@ -0,0 +1,98 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ブロックの格子(BrickGrid)の単体テスト
+ */
+public class BrickGridTest {
+    private BrickGrid grid;
+    private BrickNormal normal;
+    private BrickUnbroken unbroken;
+
+    @Before
+    public void setUp() throws Exception {
+        grid = new BrickGrid(2, 3);
+        normal = new BrickNormal();
+        unbroken = new BrickUnbroken();
+        grid.set(0, 0, normal);
+        grid.set(0, 1, unbroken);
+        grid.set(1, 2, new BrickNormal());
+        grid.layout(10, 20, 100, 50);
+    }
+
+    @Test
+    public void layout_movesBricksToCells() throws Exception {
+        assertEquals(310, grid.getRight());
+        assertEquals(120, grid.getBottom());
+        assertEquals(new Bounds(10, 20, 110, 70), normal.getRect());
+        assertEquals(new Bounds(110, 20, 210, 70), unbroken.getRect());
+        assertEquals(new Bounds(210, 70, 310, 120), grid.get(1, 2).getRect());
+        assertSame(grid.get(1, 2), grid.get(5));
+    }
+
+    @Test
+    public void remainingCount_countsOnlyBreakable() throws Exception {
+        assertEquals(2, grid.getRemainingCount());
+        assertTrue(grid.isLive(0, 1));
+        assertFalse(grid.isLive(1, 0));
+    }
+
+    @Test
+    public void brokenBrick_notifiesGrid() throws Exception {
+        for(int i = 0; i < 10 && normal.isUnBroken(); i++) {
+            normal.crash();
+        }
+        assertFalse(normal.isUnBroken());
+        assertFalse(grid.isLive(0, 0));
+        assertEquals(1, grid.getRemainingCount());
+
+        // 破壊できないブロックは何度当たっても残る
+        unbroken.crash();
+        assertTrue(grid.isLive(0, 1));
+        assertEquals(1, grid.getRemainingCount());
+    }
+
+    @Test
+    public void set_replacesBrick() throws Exception {
+        grid.set(0, 0, null);
+        assertEquals(1, grid.getRemainingCount());
+        assertFalse(grid.isLive(0, 0));
+        // 外したブロックが破壊されても格子へは通知されない
+        for(int i = 0; i < 10 && normal.isUnBroken(); i++) {
+            normal.crash();
+        }
+        assertEquals(1, grid.getRemainingCount());
+    }
+
+    @Test
+    public void getCellRange_coversOverlappingCells() throws Exception {
+        final Bounds range = new Bounds();
+        assertTrue(grid.getCellRange(new Bounds(100, 60, 220, 80), range));
+        assertEquals(new Bounds(0, 0, 2, 1), range);
+    }
+
+    @Test
+    public void getCellRange_clampsToGrid() throws Exception {
+        final Bounds range = new Bounds();
+        assertTrue(grid.getCellRange(new Bounds(-500, -500, 1000, 1000), range));
+        assertEquals(new Bounds(0, 0, 2, 1), range);
+    }
+
+    @Test
+    public void getCellRange_touchingEdgeIsOutside() throws Exception {
+        final Bounds range = new Bounds();
+        assertFalse(grid.getCellRange(new Bounds(0, 0, 10, 20), range));
+        assertFalse(grid.getCellRange(new Bounds(310, 20, 400, 120), range));
+        assertTrue(grid.getCellRange(new Bounds(0, 0, 11, 21), range));
+        assertEquals(new Bounds(0, 0, 0, 0), range);
+    }
+
+    @Test
+    public void getCellRange_beforeLayout() throws Exception {
+        assertFalse(new BrickGrid(2, 3).getCellRange(new Bounds(0, 0, 100, 100), new Bounds()));
+    }
+}
@@ -0,0 +1,116 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 当たり判定(Collision)の単体テスト
+ */
+public class CollisionTest {
+    /**
+     * 時刻と法線の許容誤差(固定小数点数)
+     */
+    private static final int EPSILON = 4;
+
+    private final Bounds box = new Bounds(100, 100, 200, 150);
+    private final Contact contact = new Contact();
+
+    @Test
+    public void circleRect_separated() throws Exception {
+        assertFalse(Collision.circleRect(Fixed.fromInt(50), Fixed.fromInt(125), 10, box, null, contact));
+    }
+
+    @Test
+    public void circleRect_touchingIsNotOverlap() throws Exception {
+        assertFalse(Collision.circleRect(Fixed.fromInt(90), Fixed.fromInt(125), 10, box, null, contact));
+    }
+
+    @Test
+    public void circleRect_overlapLeftSide() throws Exception {
+        assertTrue(Collision.circleRect(Fixed.fromInt(95), Fixed.fromInt(125), 10, box, null, contact));
+        assertEquals(0, contact.time);
+        assertEquals(-Fixed.ONE, contact.normalX);
+        assertEquals(0, contact.normalY);
+        assertEquals(Fixed.fromInt(5), contact.depth);
+    }
+
+    @Test
+    public void circleRect_cornerUsesDistance() throws Exception {
+        // 外接する正方形では重なるが、角からの距離は半径より長い
+        assertFalse(Collision.circleRect(Fixed.fromInt(92), Fixed.fromInt(92), 10, box, null, contact));
+        // 角からの距離(5, 5)は半径より短い
+        assertTrue(Collision.circleRect(Fixed.fromInt(95), Fixed.fromInt(95), 10, box, null, contact));
+        assertTrue(contact.normalX < 0);
+        assertTrue(contact.normalY < 0);
+    }
+
+    @Test
+    public void circleRect_centerInside() throws Exception {
+        assertTrue(Collision.circleRect(Fixed.fromInt(150), Fixed.fromInt(145), 10, box, null, contact));
+        assertEquals(0, contact.normalX);
+        assertEquals(Fixed.ONE, contact.normalY);
+        assertEquals(Fixed.fromInt(15), contact.depth);
+    }
+
+    @Test
+    public void sweepCircle_hitsFace() throws Exception {
+        // 左から右へ100移動し、70移動したところで左の面に触れる
+        assertTrue(Collision.sweepCircle(Fixed.fromInt(20), Fixed.fromInt(125), Fixed.fromInt(100), 0,
+                10, box, null, contact));
+        assertEquals(Fixed.fromFloat(0.7f), contact.time, EPSILON);
+        assertEquals(-Fixed.ONE, contact.normalX);
+        assertEquals(0, contact.normalY);
+    }
+
+    @Test
+    public void sweepCircle_tunnelingIsDetected() throws Exception {
+        // 1回の移動で矩形を通り抜ける場合も、最初に触れた時刻を求める
+        assertTrue(Collision.sweepCircle(Fixed.fromInt(150), Fixed.fromInt(0), 0, Fixed.fromInt(300),
+                10, box, null, contact));
+        assertEquals(Fixed.fromFloat(0.3f), contact.time, EPSILON);
+        assertEquals(0, contact.normalX);
+        assertEquals(-Fixed.ONE, contact.normalY);
+    }
+
+    @Test
+    public void sweepCircle_miss() throws Exception {
+        assertFalse(Collision.sweepCircle(Fixed.fromInt(20), Fixed.fromInt(20), Fixed.fromInt(100), 0,
+                10, box, null, contact));
+        assertFalse(Collision.sweepCircle(Fixed.fromInt(20), Fixed.fromInt(125), Fixed.fromInt(50), 0,
+                10, box, null, contact));
+        assertFalse(Collision.sweepCircle(Fixed.fromInt(20), Fixed.fromInt(125), 0, 0,
+                10, box, null, contact));
+    }
+
+    @Test
+    public void sweepCircle_corner() throws Exception {
+        // 左上の角に斜めに近づく
+        // 広げた矩形には入るが、角の円との交差で時刻を求め直す
+        assertTrue(Collision.sweepCircle(Fixed.fromInt(80), Fixed.fromInt(80), Fixed.fromInt(20), Fixed.fromInt(20),
+                10, box, null, contact));
+        final float t = Fixed.toFloat(contact.time);
+        // 角(100, 100)からの距離が半径になる時刻 (20 - 20t)√2 = 10
+        assertEquals(1f - 10f / (20f * (float)Math.sqrt(2)), t, 0.001f);
+        assertEquals(-Fixed.fromFloat((float)Math.sqrt(0.5)), contact.normalX, EPSILON * 4);
+        assertEquals(-Fixed.fromFloat((float)Math.sqrt(0.5)), contact.normalY, EPSILON * 4);
+    }
+
+    @Test
+    public void sweepCircle_grazingCornerIsMiss() throws Exception {
+        // 角の近くを通るが角の円には入らない
+        assertFalse(Collision.sweepCircle(Fixed.fromInt(81), Fixed.fromInt(100), Fixed.fromInt(20), -Fixed.fromInt(20),
+                10, box, null, contact));
+    }
+
+    @Test
+    public void sweepCircle_overlappingMovingAway() throws Exception {
+        // 重なった状態から離れる向きに移動する場合は衝突としない
+        assertFalse(Collision.sweepCircle(Fixed.fromInt(95), Fixed.fromInt(125), -Fixed.fromInt(10), 0,
+                10, box, null, contact));
+        // 近づく向きであれば時刻0の衝突
+        assertTrue(Collision.sweepCircle(Fixed.fromInt(95), Fixed.fromInt(125), Fixed.fromInt(10), 0,
+                10, box, null, contact));
+        assertEquals(0, contact.time);
+    }
+}
@@ -0,0 +1,116 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 表示要素の登録簿(EntityRegistry)の単体テスト
+ */
+public class EntityRegistryTest {
+    /**
+     * 削除した表示要素を受け取るプール
+     */
+    private static class CountingPool extends ItemPool<Missile> {
+        private int released = 0;
+
+        @Override
+        protected Missile create() {
+            return new Missile();
+        }
+
+        @Override
+        public void release(Missile item) {
+            released++;
+            super.release(item);
+        }
+    }
+
+    private final EntityRegistry<Missile> registry = new EntityRegistry<>();
+
+    @Test
+    public void add_get_size() throws Exception {
+        final Missile a = new Missile();
+        final Missile b = new Missile();
+        final int ha = registry.add(a);
+        final int hb = registry.add(b);
+        assertEquals(2, registry.size());
+        assertTrue(registry.isAlive(ha));
+        assertTrue(registry.isAlive(hb));
+        assertEquals(ha, a.getHandle());
+        assertSame(a, registry.get(0));
+        assertSame(b, registry.get(1));
+    }
+
+    @Test
+    public void remove_invalidatesHandle() throws Exception {
+        final Missile a = new Missile();
+        final Missile b = new Missile();
+        final int ha = registry.add(a);
+        registry.add(b);
+        assertTrue(registry.remove(a));
+        assertFalse(registry.isAlive(ha));
+        assertEquals(EntityRegistry.INVALID_HANDLE, a.getHandle());
+        assertEquals(1, registry.size());
+        assertSame(b, registry.get(0));
+        assertFalse(registry.remove(a));
+    }
+
+    @Test
+    public void reusedSlot_hasNewGeneration() throws Exception {
+        final Missile a = new Missile();
+        final int ha = registry.add(a);
+        registry.remove(a);
+        final Missile b = new Missile();
+        final int hb = registry.add(b);
+        assertNotEquals(ha, hb);
+        assertFalse(registry.isAlive(ha));
+        assertTrue(registry.isAlive(hb));
+    }
+
+    @Test
+    public void removeLater_removesOnFlushOnce() throws Exception {
+        final CountingPool pool = new CountingPool();
+        final Missile a = new Missile();
+        final Missile b = new Missile();
+        registry.add(a);
+        registry.add(b);
+        assertTrue(registry.removeLater(a));
+        assertFalse(registry.removeLater(a));
+        assertEquals(2, registry.size());
+        assertEquals(1, registry.flush(pool));
+        assertEquals(1, registry.size());
+        assertSame(b, registry.get(0));
+        assertEquals(1, pool.released);
+        assertEquals(0, registry.flush(pool));
+    }
+
+    @Test
+    public void remove_afterRemoveLater_doesNotRemoveReusedSlot() throws Exception {
+        // 削除予約した表示要素をすぐに削除し、空いたスロットを別の表示要素が再利用しても
+        // flushで再利用した表示要素が削除されないこと
+        final Missile a = new Missile();
+        registry.add(a);
+        registry.removeLater(a);
+        assertTrue(registry.remove(a));
+        final Missile b = new Missile();
+        final int hb = registry.add(b);
+        assertEquals(0, registry.flush(null));
+        assertTrue(registry.isAlive(hb));
+        assertEquals(1, registry.size());
+        assertSame(b, registry.get(0));
+    }
+
+    @Test
+    public void clear_releasesAll() throws Exception {
+        final CountingPool pool = new CountingPool();
+        for(int i = 0; i < 40; i++) {
+            registry.add(new Missile());
+        }
+        registry.removeLater(registry.get(3));
+        registry.clear(pool);
+        assertTrue(registry.isEmpty());
+        assertEquals(40, pool.released);
+        assertEquals(0, registry.flush(pool));
+    }
+}
@@ -0,0 +1,60 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 固定小数点数(Fixed)の単体テスト
+ */
+public class FixedTest {
+    @Test
+    public void fromInt_toInt_roundTrip() throws Exception {
+        assertEquals(Fixed.ONE * 3, Fixed.fromInt(3));
+        assertEquals(3, Fixed.toInt(Fixed.fromInt(3)));
+        assertEquals(-3, Fixed.toInt(Fixed.fromInt(-3)));
+    }
+
+    @Test
+    public void toInt_roundsHalfUp() throws Exception {
+        assertEquals(2, Fixed.toInt(Fixed.fromInt(1) + Fixed.HALF));
+        assertEquals(1, Fixed.toInt(Fixed.fromInt(1) + Fixed.HALF - 1));
+    }
+
+    @Test
+    public void floor_ceil() throws Exception {
+        final int f = Fixed.fromInt(2) + 1;
+        assertEquals(2, Fixed.floor(f));
+        assertEquals(3, Fixed.ceil(f));
+        assertEquals(2, Fixed.ceil(Fixed.fromInt(2)));
+        assertEquals(-3, Fixed.floor(-Fixed.fromInt(2) - 1));
+        assertEquals(-2, Fixed.ceil(-Fixed.fromInt(2) - 1));
+    }
+
+    @Test
+    public void mul_div() throws Exception {
+        assertEquals(Fixed.fromInt(6), Fixed.mul(Fixed.fromInt(2), Fixed.fromInt(3)));
+        assertEquals(Fixed.fromInt(3), Fixed.mul(Fixed.fromInt(6), Fixed.HALF));
+        assertEquals(Fixed.HALF, Fixed.div(Fixed.fromInt(1), Fixed.fromInt(2)));
+        assertEquals(-Fixed.fromInt(4), Fixed.div(Fixed.fromInt(8), -Fixed.fromInt(2)));
+    }
+
+    @Test
+    public void sqrt_ofFixedProduct() throws Exception {
+        final int three = Fixed.fromInt(3);
+        final int four = Fixed.fromInt(4);
+        assertEquals(Fixed.fromInt(5), Fixed.sqrt((long)three * three + (long)four * four));
+        assertEquals(0, Fixed.sqrt(0));
+        // sqrt(2) = 1.41421... 端数は切り捨てる
+        final int two = Fixed.fromInt(2);
+        final int root2 = Fixed.sqrt((long)two * Fixed.ONE);
+        assertEquals(1.41421f, Fixed.toFloat(root2), 1f / Fixed.ONE);
+        assertTrue((long)root2 * root2 <= (long)two * Fixed.ONE);
+    }
+
+    @Test
+    public void fromFloat_toFloat() throws Exception {
+        assertEquals(Fixed.HALF, Fixed.fromFloat(0.5f));
+        assertEquals(-0.25f, Fixed.toFloat(Fixed.fromFloat(-0.25f)), 0f);
+    }
+}
@@ -0,0 +1,66 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ゲームの更新の時間管理(FixedTimestep)の単体テスト
+ */
+public class FixedTimestepTest {
+    private final FixedTimestep timestep = new FixedTimestep();
+
+    @Test
+    public void firstAdvance_startsMeasuring() throws Exception {
+        assertEquals(0, timestep.advance(1000L));
+        assertEquals(0f, timestep.getAlpha(), 0f);
+    }
+
+    @Test
+    public void advance_countsElapsedTicks() throws Exception {
+        final long t0 = 5000L;
+        timestep.advance(t0);
+        assertEquals(1, timestep.advance(t0 + FixedTimestep.TICK_NANOS));
+        assertEquals(0, timestep.advance(t0 + FixedTimestep.TICK_NANOS + FixedTimestep.TICK_NANOS / 2));
+        assertEquals(0.5f, timestep.getAlpha(), 0.001f);
+        // 余った時間は次の更新に繰り越す
+        assertEquals(2, timestep.advance(t0 + FixedTimestep.TICK_NANOS * 3));
+        assertEquals(0f, timestep.getAlpha(), 0.001f);
+    }
+
+    @Test
+    public void advance_isIndependentOfFrameRate() throws Exception {
+        // 描画の頻度が違っても、同じ時間が経てば同じ回数だけ更新する
+        final FixedTimestep fast = new FixedTimestep();
+        final FixedTimestep slow = new FixedTimestep();
+        fast.advance(0);
+        slow.advance(0);
+        int fastSteps = 0;
+        int slowSteps = 0;
+        final long second = FixedTimestep.TICK_NANOS * FixedTimestep.TICKS_PER_SECOND;
+        for(int i = 1; i <= 120; i++) {
+            fastSteps += fast.advance(second * i / 120);
+        }
+        for(int i = 1; i <= 30; i++) {
+            slowSteps += slow.advance(second * i / 30);
+        }
+        assertEquals(FixedTimestep.TICKS_PER_SECOND, fastSteps);
+        assertEquals(FixedTimestep.TICKS_PER_SECOND, slowSteps);
+    }
+
+    @Test
+    public void advance_dropsTimeItCannotCatchUp() throws Exception {
+        timestep.advance(0);
+        assertEquals(FixedTimestep.MAX_STEPS_PER_FRAME, timestep.advance(FixedTimestep.TICK_NANOS * 100));
+        assertEquals(0f, timestep.getAlpha(), 0f);
+        assertEquals(1, timestep.advance(FixedTimestep.TICK_NANOS * 101));
+    }
+
+    @Test
+    public void reset_restartsMeasuring() throws Exception {
+        timestep.advance(0);
+        timestep.reset();
+        assertEquals(0, timestep.advance(FixedTimestep.TICK_NANOS * 10));
+        assertEquals(1, timestep.advance(FixedTimestep.TICK_NANOS * 11));
+    }
+}
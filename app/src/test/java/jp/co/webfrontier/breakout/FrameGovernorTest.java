@@ -0,0 +1,139 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 処理を段階的に省く処理(FrameGovernor)の単体テスト
+ * 重いフレームが続くとアンチエイリアス、装飾、ステータス更新、解像度の順に省き、
+ * 軽いフレームが続くと逆の順番で戻すことを確かめる
+ */
+public class FrameGovernorTest {
+    /**
+     * 予定時間を超える処理時間(ナノ秒)
+     */
+    private static final long HEAVY_NANOS = FixedTimestep.TICK_NANOS;
+
+    /**
+     * 予定時間に十分余裕がある処理時間(ナノ秒)
+     */
+    private static final long LIGHT_NANOS = FixedTimestep.TICK_NANOS / 10;
+
+    /**
+     * 1段階変わるまでに待つフレーム数の上限
+     */
+    private static final int MAX_FRAMES_PER_STEP = 60;
+
+    private final FrameGovernor governor = new FrameGovernor();
+
+    @Test
+    public void initial_shedsNothing() throws Exception {
+        assertFull();
+    }
+
+    @Test
+    public void heavyFrames_shedInOrder() throws Exception {
+        assertTrue(stepWith(HEAVY_NANOS));
+        assertEquals(FrameGovernor.Level.NO_ANTI_ALIAS, governor.getLevel());
+        assertFalse(governor.isAntiAliasEnabled());
+        assertTrue(governor.isEffectsEnabled());
+        assertEquals(0, governor.getHudIntervalNanos());
+        assertEquals(FrameGovernor.MAX_SCALE, governor.getResolutionScale(), 0.0f);
+
+        assertTrue(stepWith(HEAVY_NANOS));
+        assertEquals(FrameGovernor.Level.NO_EFFECTS, governor.getLevel());
+        assertFalse(governor.isEffectsEnabled());
+        assertEquals(0, governor.getHudIntervalNanos());
+        assertEquals(FrameGovernor.MAX_SCALE, governor.getResolutionScale(), 0.0f);
+
+        assertTrue(stepWith(HEAVY_NANOS));
+        assertEquals(FrameGovernor.Level.THROTTLED_HUD, governor.getLevel());
+        assertEquals(FrameGovernor.THROTTLED_HUD_INTERVAL_NANOS, governor.getHudIntervalNanos());
+        assertEquals(FrameGovernor.MAX_SCALE, governor.getResolutionScale(), 0.0f);
+
+        // 解像度は下限まで少しずつ下げる
+        float scale = FrameGovernor.MAX_SCALE;
+        while(stepWith(HEAVY_NANOS)) {
+            assertEquals(FrameGovernor.Level.REDUCED_RESOLUTION, governor.getLevel());
+            assertTrue(governor.getResolutionScale() < scale);
+            scale = governor.getResolutionScale();
+        }
+        assertEquals(FrameGovernor.MIN_SCALE, scale, 0.0f);
+        assertFalse(governor.isAntiAliasEnabled());
+        assertFalse(governor.isEffectsEnabled());
+    }
+
+    @Test
+    public void lightFrames_restoreInReverseOrder() throws Exception {
+        while(stepWith(HEAVY_NANOS)) {
+            // 最も多く省くまで重くする
+        }
+
+        // 解像度から先に戻す
+        float scale = governor.getResolutionScale();
+        while(scale < FrameGovernor.MAX_SCALE) {
+            assertTrue(stepWith(LIGHT_NANOS));
+            assertTrue(governor.getResolutionScale() > scale);
+            scale = governor.getResolutionScale();
+        }
+        assertEquals(FrameGovernor.Level.THROTTLED_HUD, governor.getLevel());
+
+        assertTrue(stepWith(LIGHT_NANOS));
+        assertEquals(FrameGovernor.Level.NO_EFFECTS, governor.getLevel());
+        assertEquals(0, governor.getHudIntervalNanos());
+        assertFalse(governor.isEffectsEnabled());
+
+        assertTrue(stepWith(LIGHT_NANOS));
+        assertEquals(FrameGovernor.Level.NO_ANTI_ALIAS, governor.getLevel());
+        assertTrue(governor.isEffectsEnabled());
+        assertFalse(governor.isAntiAliasEnabled());
+
+        assertTrue(stepWith(LIGHT_NANOS));
+        assertFull();
+        assertFalse(stepWith(LIGHT_NANOS));
+    }
+
+    @Test
+    public void steadyFrames_keepLevel() throws Exception {
+        assertTrue(stepWith(HEAVY_NANOS));
+        // 省く処理時間と戻す処理時間の間では段階を変えない
+        assertFalse(stepWith(FixedTimestep.TICK_NANOS * 3 / 4));
+        assertEquals(FrameGovernor.Level.NO_ANTI_ALIAS, governor.getLevel());
+    }
+
+    @Test
+    public void disable_restoresEverything() throws Exception {
+        assertTrue(stepWith(HEAVY_NANOS));
+        assertTrue(stepWith(HEAVY_NANOS));
+        governor.setEnabled(false);
+        assertFull();
+        assertFalse(governor.onFrameMeasured(HEAVY_NANOS));
+    }
+
+    /**
+     * 段階が変わるまで同じ処理時間のフレームを通知する
+     *
+     * @param workNanos 1フレームの処理時間(ナノ秒)
+     * @return true 段階が変わった false 上限のフレーム数まで変わらなかった
+     */
+    private boolean stepWith(long workNanos) {
+        for(int i = 0; i < MAX_FRAMES_PER_STEP; i++) {
+            if(governor.onFrameMeasured(workNanos)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 何も省いていないことを確かめる
+     */
+    private void assertFull() {
+        assertEquals(FrameGovernor.Level.FULL, governor.getLevel());
+        assertTrue(governor.isAntiAliasEnabled());
+        assertTrue(governor.isEffectsEnabled());
+        assertEquals(0, governor.getHudIntervalNanos());
+        assertEquals(FrameGovernor.MAX_SCALE, governor.getResolutionScale(), 0.0f);
+    }
+}
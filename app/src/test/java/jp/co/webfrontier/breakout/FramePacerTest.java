@@ -0,0 +1,76 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 描画の頻度の管理(FramePacer)の単体テスト
+ */
+public class FramePacerTest {
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private final FramePacer pacer = new FramePacer();
+
+    @Test
+    public void default_rendersEveryVsyncAt60Hz() throws Exception {
+        assertEquals(60f, pacer.getTargetRate(), 0.01f);
+        assertEquals(NANOS_PER_SECOND / 60.0, pacer.getIntervalNanos(), 1.0);
+    }
+
+    @Test
+    public void balanced_capsHighRefreshDisplay() throws Exception {
+        pacer.setProfile(FramePacer.PowerProfile.BALANCED);
+        pacer.setDisplayRates(new float[] { 60f, 120f }, 120f);
+        assertEquals(60f, pacer.getPreferredDisplayRate(), 0f);
+        // ディスプレイが120Hzのままなら垂直同期を1回おきに間引く
+        assertEquals(60f, pacer.getTargetRate(), 0.01f);
+
+        // ディスプレイが要求どおり60Hzに切り替わったら間引かない
+        pacer.onDisplayRateChanged(60f);
+        assertEquals(60f, pacer.getTargetRate(), 0.01f);
+        assertEquals(NANOS_PER_SECOND / 60.0, pacer.getIntervalNanos(), 1.0);
+    }
+
+    @Test
+    public void performance_usesHighestRate() throws Exception {
+        pacer.setDisplayRates(new float[] { 60f, 90f, 120f }, 60f);
+        pacer.setProfile(FramePacer.PowerProfile.PERFORMANCE);
+        assertEquals(120f, pacer.getPreferredDisplayRate(), 0f);
+        pacer.onDisplayRateChanged(120f);
+        assertEquals(120f, pacer.getTargetRate(), 0.01f);
+    }
+
+    @Test
+    public void batterySaver_halvesRate() throws Exception {
+        pacer.setProfile(FramePacer.PowerProfile.BATTERY_SAVER);
+        pacer.setDisplayRates(new float[] { 60f }, 59.94f);
+        assertEquals(60f, pacer.getPreferredDisplayRate(), 0f);
+        assertEquals(29.97f, pacer.getTargetRate(), 0.01f);
+    }
+
+    @Test
+    public void shouldRender_skipsVsyncs() throws Exception {
+        pacer.setProfile(FramePacer.PowerProfile.BATTERY_SAVER);
+        final long vsync = NANOS_PER_SECOND / 60;
+        int rendered = 0;
+        for(int i = 0; i < 60; i++) {
+            // 垂直同期の時刻のばらつき
+            final long jitter = (i % 2 == 0) ? 300000L : -300000L;
+            if(pacer.shouldRender(1000L + i * vsync + jitter)) {
+                rendered++;
+            }
+        }
+        assertEquals(30, rendered);
+    }
+
+    @Test
+    public void reset_rendersNextVsync() throws Exception {
+        pacer.setProfile(FramePacer.PowerProfile.BATTERY_SAVER);
+        final long vsync = NANOS_PER_SECOND / 60;
+        assertTrue(pacer.shouldRender(0));
+        assertFalse(pacer.shouldRender(vsync));
+        pacer.reset();
+        assertTrue(pacer.shouldRender(vsync * 2 - 1));
+    }
+}
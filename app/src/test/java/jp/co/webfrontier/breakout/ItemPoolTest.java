@@ -0,0 +1,76 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * 表示要素のプールのテスト
+ * 使い終わった表示要素を戻していれば、温まった後は新たに生成しないことを確かめる
+ */
+public class ItemPoolTest {
+    /**
+     * テスト用の表示要素
+     */
+    private static class Dummy extends Item {}
+
+    private final ItemPool<Dummy> pool = new ItemPool<Dummy>() {
+        @Override
+        protected Dummy create() {
+            return new Dummy();
+        }
+    };
+
+    @Test
+    public void obtain_createsWhenEmpty() throws Exception {
+        assertNotNull(pool.obtain());
+        assertEquals(0, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+    }
+
+    @Test
+    public void obtain_reusesReleasedItem() throws Exception {
+        final Dummy item = pool.obtain();
+        pool.release(item);
+        assertEquals(1, pool.getFreeCount());
+
+        assertSame(item, pool.obtain());
+        assertEquals(1, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+        assertEquals(0, pool.getFreeCount());
+    }
+
+    @Test
+    public void missCount_stopsGrowingAfterWarmup() throws Exception {
+        final ArrayList<Dummy> active = new ArrayList<>();
+        // 温める: 同時に使う数の最大値まで生成する
+        cycle(active, 50);
+        final int misses = pool.getMissCount();
+        assertEquals(50, misses);
+
+        // 同時に使う数が最大値を超えなければ、何度繰り返しても生成しない
+        for(int round = 0; round < 100; round++) {
+            cycle(active, 1 + round % 50);
+        }
+        assertEquals(misses, pool.getMissCount());
+        assertEquals(50, pool.getFreeCount());
+    }
+
+    /**
+     * 指定した数の表示要素を取り出してから、全てプールへ戻す
+     *
+     * @param active 取り出した表示要素の置き場
+     * @param count 取り出す数
+     */
+    private void cycle(ArrayList<Dummy> active, int count) {
+        for(int i = 0; i < count; i++) {
+            active.add(pool.obtain());
+        }
+        for(int i = 0; i < active.size(); i++) {
+            pool.release(active.get(i));
+        }
+        active.clear();
+    }
+}
@@ -0,0 +1,77 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 性能プロファイルの選択(PerformanceGovernor)の単体テスト
+ * 温度は0.1℃単位で渡す
+ */
+public class PerformanceGovernorTest {
+    private final PerformanceGovernor governor = new PerformanceGovernor();
+
+    @Test
+    public void normal_usesFullRefreshRate() throws Exception {
+        assertEquals(PerformanceGovernor.Profile.NORMAL, governor.getProfile());
+        assertEquals(FramePacer.PowerProfile.PERFORMANCE, PerformanceGovernor.Profile.NORMAL.getFrameProfile());
+        assertFalse(governor.update(false, 80, false, PerformanceGovernor.UNKNOWN_TEMPERATURE));
+    }
+
+    @Test
+    public void battery_selectsProfile() throws Exception {
+        assertTrue(governor.update(false, 25, false, 300));
+        assertEquals(PerformanceGovernor.Profile.SUSTAINED, governor.getProfile());
+        assertTrue(governor.update(false, 10, false, 300));
+        assertEquals(PerformanceGovernor.Profile.SAVER, governor.getProfile());
+        // 充電中は電池の残量を見ない
+        assertTrue(governor.update(false, 10, true, 300));
+        assertEquals(PerformanceGovernor.Profile.NORMAL, governor.getProfile());
+    }
+
+    @Test
+    public void powerSave_selectsSaver() throws Exception {
+        assertTrue(governor.update(true, 90, true, 300));
+        assertEquals(PerformanceGovernor.Profile.SAVER, governor.getProfile());
+    }
+
+    @Test
+    public void temperature_hasHysteresis() throws Exception {
+        assertTrue(governor.update(false, 90, true, 460));
+        assertEquals(PerformanceGovernor.Profile.THROTTLED, governor.getProfile());
+        // 下がり始めてもすぐには戻さない
+        assertFalse(governor.update(false, 90, true, 440));
+        assertTrue(governor.update(false, 90, true, 420));
+        assertEquals(PerformanceGovernor.Profile.SUSTAINED, governor.getProfile());
+        assertFalse(governor.update(false, 90, true, 390));
+        assertTrue(governor.update(false, 90, true, 370));
+        assertEquals(PerformanceGovernor.Profile.NORMAL, governor.getProfile());
+    }
+
+    @Test
+    public void heavierOfThermalAndPower_wins() throws Exception {
+        assertTrue(governor.update(true, 90, true, 460));
+        assertEquals(PerformanceGovernor.Profile.THROTTLED, governor.getProfile());
+        assertTrue(governor.update(true, 90, true, 300));
+        assertEquals(PerformanceGovernor.Profile.SAVER, governor.getProfile());
+    }
+
+    @Test
+    public void listener_isNotifiedOnChange() throws Exception {
+        final PerformanceGovernor.Profile[] changed = new PerformanceGovernor.Profile[2];
+        final int[] count = { 0 };
+        governor.setListener(new PerformanceProfileListener() {
+            @Override
+            public void onProfileChanged(PerformanceGovernor.Profile from, PerformanceGovernor.Profile to, String reason) {
+                changed[0] = from;
+                changed[1] = to;
+                count[0]++;
+            }
+        });
+        governor.update(false, 25, false, 300);
+        governor.update(false, 25, false, 300);
+        assertEquals(1, count[0]);
+        assertEquals(PerformanceGovernor.Profile.NORMAL, changed[0]);
+        assertEquals(PerformanceGovernor.Profile.SUSTAINED, changed[1]);
+    }
+}
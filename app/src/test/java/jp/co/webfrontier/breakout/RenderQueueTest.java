@@ -0,0 +1,113 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 描画キュー(RenderQueue)の単体テスト
+ * 描画先には端末がなくても使えるRecordingRenderer、NullRendererを使う
+ */
+public class RenderQueueTest {
+    private final RenderQueue queue = new RenderQueue();
+    private final RecordingRenderer recorder = new RecordingRenderer();
+    private final EntityRegistry<Ball> balls = new EntityRegistry<>();
+    private final EntityRegistry<Missile> projectiles = new EntityRegistry<>();
+    private final Pad pad = new Pad();
+    private BrickGrid bricks;
+
+    @Before
+    public void setUp() throws Exception {
+        bricks = new BrickGrid(1, 2);
+        bricks.set(0, 0, new BrickNormal());
+        bricks.set(0, 1, new BrickUnbroken());
+        bricks.layout(0, 0, 100, 40);
+        balls.add(new Ball(100, 200));
+        projectiles.add(new Missile(50, 300));
+        pad.setRect(new Bounds(400, 500, 600, 520));
+
+        queue.setBricks(bricks);
+        queue.setBalls(balls);
+        queue.setProjectiles(projectiles);
+        queue.setPad(pad);
+    }
+
+    @Test
+    public void nothingIsDrawnBeforePublish() throws Exception {
+        queue.drawUncached(recorder, 0, 0, 1f);
+        assertEquals(0, recorder.getCount());
+    }
+
+    @Test
+    public void drawUncached_drawsLayersInOrder() throws Exception {
+        queue.publish();
+        queue.drawUncached(recorder, 0, 0, 1f);
+
+        // ブロック2つ、ミサイル、ボール、パッドの順
+        assertEquals(5, recorder.getCount());
+        assertEquals(RecordingRenderer.Command.RECT, recorder.getCommand(0));
+        assertEquals(RecordingRenderer.Command.RECT, recorder.getCommand(1));
+        assertEquals(RecordingRenderer.Command.RECT, recorder.getCommand(2));
+        assertEquals(RecordingRenderer.Command.CIRCLE, recorder.getCommand(3));
+        assertEquals(RecordingRenderer.Command.RECT, recorder.getCommand(4));
+        assertEquals(1, recorder.getCount(RecordingRenderer.Command.CIRCLE));
+
+        // ボールは中心に描画する
+        assertEquals(100f, recorder.getArg(3, 0), 0f);
+        assertEquals(200f, recorder.getArg(3, 1), 0f);
+        assertEquals(GameColor.YELLOW, recorder.getColor(4));
+    }
+
+    @Test
+    public void drawUncached_offsetsByOrigin() throws Exception {
+        queue.publish();
+        queue.drawUncached(recorder, 10, 20, 1f);
+        assertEquals(110f, recorder.getArg(3, 0), 0f);
+        assertEquals(220f, recorder.getArg(3, 1), 0f);
+    }
+
+    @Test
+    public void brokenBrick_isNotDrawn() throws Exception {
+        final Brick brick = bricks.get(0, 0);
+        for(int i = 0; i < 10 && brick.isUnBroken(); i++) {
+            brick.crash();
+        }
+        queue.publish();
+        queue.drawUncached(recorder, 0, 0, 1f);
+        assertEquals(4, recorder.getCount());
+    }
+
+    @Test
+    public void snapshot_isIndependentOfGame() throws Exception {
+        queue.publish();
+        // 公開した後にゲームの表示要素が変わっても、公開済みのスナップショットは変わらない
+        balls.get(0).setCenter(700, 800);
+        projectiles.clear(null);
+        queue.drawUncached(recorder, 0, 0, 1f);
+        assertEquals(5, recorder.getCount());
+        assertEquals(100f, recorder.getArg(3, 0), 0f);
+    }
+
+    @Test
+    public void collectBounds_coversItems() throws Exception {
+        queue.publish();
+        final Bounds bounds = new Bounds();
+        queue.collectBounds(bounds);
+        final Bounds ball = balls.get(0).getRect();
+        assertTrue(bounds.left <= ball.left && bounds.right >= ball.right);
+        assertTrue(bounds.top <= ball.top && bounds.bottom >= ball.bottom);
+        assertTrue(bounds.left <= 50 && bounds.bottom >= 520);
+        // ブロックは含めない
+        assertTrue(bounds.top > 40);
+    }
+
+    @Test
+    public void clear_drawsNothing() throws Exception {
+        queue.clear();
+        queue.publish();
+        queue.drawUncached(new NullRenderer(), 0, 0, 1f);
+        queue.drawUncached(recorder, 0, 0, 1f);
+        assertEquals(0, recorder.getCount());
+    }
+}
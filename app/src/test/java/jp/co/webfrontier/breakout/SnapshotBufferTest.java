@@ -0,0 +1,62 @@
+package jp.co.webfrontier.breakout;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * スナップショットのトリプルバッファ(SnapshotBuffer)の単体テスト
+ */
+public class SnapshotBufferTest {
+    private final SnapshotBuffer buffer = new SnapshotBuffer();
+
+    @Test
+    public void acquire_withoutPublish_keepsSameSnapshot() throws Exception {
+        final RenderSnapshot first = buffer.acquire();
+        assertSame(first, buffer.acquire());
+    }
+
+    @Test
+    public void publish_isVisibleOnNextAcquire() throws Exception {
+        final RenderSnapshot written = buffer.getWriteSnapshot();
+        buffer.publish();
+        assertSame(written, buffer.acquire());
+        assertSame(written, buffer.acquire());
+    }
+
+    @Test
+    public void writeSnapshot_isNeverTheReadSnapshot() throws Exception {
+        for(int i = 0; i < 10; i++) {
+            buffer.publish();
+            final RenderSnapshot read = buffer.acquire();
+            assertNotSame(read, buffer.getWriteSnapshot());
+        }
+    }
+
+    @Test
+    public void unreadSnapshot_isOverwrittenByNewer() throws Exception {
+        buffer.acquire();
+        final RenderSnapshot older = buffer.getWriteSnapshot();
+        buffer.publish();
+        final RenderSnapshot newer = buffer.getWriteSnapshot();
+        assertNotSame(older, newer);
+        buffer.publish();
+        // 読み込まれなかった古いスナップショットは次の書き込み先になる
+        assertSame(older, buffer.getWriteSnapshot());
+        assertSame(newer, buffer.acquire());
+    }
+
+    @Test
+    public void usesThreeSnapshots() throws Exception {
+        final Set<RenderSnapshot> seen = new HashSet<>();
+        for(int i = 0; i < 10; i++) {
+            seen.add(buffer.getWriteSnapshot());
+            buffer.publish();
+            seen.add(buffer.acquire());
+        }
+        assertEquals(3, seen.size());
+    }
+}